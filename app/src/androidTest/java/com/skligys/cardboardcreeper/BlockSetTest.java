@@ -0,0 +1,53 @@
+package com.skligys.cardboardcreeper;
+
+import com.skligys.cardboardcreeper.model.Block;
+
+import junit.framework.TestCase;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+public class BlockSetTest extends TestCase {
+  public void testAddRemove() {
+    BlockSet blockSet = new BlockSet();
+    blockSet.add(new Block(1, 2, 3));
+    blockSet.add(new Block(-1, -2, -3));
+    blockSet.add(new Block(1, 2, 3));
+    assertEquals(2, blockSet.size());
+    assertTrue(blockSet.contains(1, 2, 3));
+    assertTrue(blockSet.contains(-1, -2, -3));
+    assertFalse(blockSet.contains(3, 2, 1));
+
+    blockSet.remove(new Block(1, 2, 3));
+    blockSet.remove(new Block(0, 0, 0));
+    assertEquals(1, blockSet.size());
+    assertFalse(blockSet.contains(1, 2, 3));
+    assertTrue(blockSet.contains(-1, -2, -3));
+  }
+
+  /** Removals from collision chains, while growing, against a HashSet. */
+  public void testSameAsHashSet() {
+    Random random = new Random(1);
+    BlockSet blockSet = new BlockSet();
+    Set<Block> expected = new HashSet<Block>();
+    for (int i = 0; i < 20000; ++i) {
+      Block block = new Block(random.nextInt(40) - 20, random.nextInt(40), random.nextInt(40) - 20);
+      if (random.nextInt(3) == 0) {
+        blockSet.remove(block);
+        expected.remove(block);
+      } else {
+        blockSet.add(block);
+        expected.add(block);
+      }
+    }
+    assertEquals(expected.size(), blockSet.size());
+    for (int x = -20; x < 20; ++x) {
+      for (int y = 0; y < 40; ++y) {
+        for (int z = -20; z < 20; ++z) {
+          assertEquals(expected.contains(new Block(x, y, z)), blockSet.contains(x, y, z));
+        }
+      }
+    }
+  }
+}
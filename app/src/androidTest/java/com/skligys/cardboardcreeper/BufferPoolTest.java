@@ -0,0 +1,81 @@
+package com.skligys.cardboardcreeper;
+
+import junit.framework.TestCase;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+public class BufferPoolTest extends TestCase {
+  public void testSizeClasses() {
+    BufferPool pool = new BufferPool();
+    ByteBuffer small = pool.borrow(100);
+    assertEquals(1024, small.capacity());
+    assertEquals(100, small.limit());
+    assertEquals(0, small.position());
+    assertTrue(small.isDirect());
+    assertEquals(ByteOrder.nativeOrder(), small.order());
+
+    assertEquals(1024, pool.borrow(1024).capacity());
+    assertEquals(2048, pool.borrow(1025).capacity());
+    assertEquals(64 * 1024, pool.borrow(40000).capacity());
+  }
+
+  public void testReleasedBufferReused() {
+    BufferPool pool = new BufferPool();
+    ByteBuffer first = pool.borrow(3000);
+    first.put((byte) 1);
+    pool.release(first);
+
+    // The same size class comes back cleared, with the new limit.
+    ByteBuffer second = pool.borrow(2500);
+    assertSame(first, second);
+    assertEquals(0, second.position());
+    assertEquals(2500, second.limit());
+    // Another size class does not.
+    assertNotSame(first, pool.borrow(1000));
+  }
+
+  public void testSlabsSlicedAndKept() {
+    BufferPool pool = new BufferPool();
+    // A 64KB slab holds 64 buffers of 1KB, the 65th needs another one.
+    ByteBuffer[] buffers = new ByteBuffer[65];
+    for (int i = 0; i < 64; ++i) {
+      buffers[i] = pool.borrow(1000);
+    }
+    assertTrue(pool.stats(), pool.stats().startsWith("64 buffers, 64KB borrowed (peak 64KB) " +
+        "of 64KB reserved"));
+    buffers[64] = pool.borrow(1000);
+    assertTrue(pool.stats(), pool.stats().contains("of 128KB reserved"));
+
+    // Released buffers go back to the free lists, slabs stay reserved.
+    for (ByteBuffer buffer : buffers) {
+      pool.release(buffer);
+    }
+    assertTrue(pool.stats(), pool.stats().startsWith("0 buffers, 0KB borrowed (peak 65KB) " +
+        "of 128KB reserved"));
+    for (int i = 0; i < 65; ++i) {
+      pool.borrow(1000);
+    }
+    assertTrue(pool.stats(), pool.stats().contains("of 128KB reserved"));
+  }
+
+  public void testBorrowCopy() {
+    BufferPool pool = new BufferPool();
+    ByteBuffer from = ByteBuffer.wrap(new byte[] {1, 2, 3, 4, 5});
+    from.position(1);
+    ByteBuffer copy = pool.borrowCopy(from);
+    assertEquals(0, copy.position());
+    assertEquals(4, copy.limit());
+    assertEquals(2, copy.get(0));
+    assertEquals(5, copy.get(3));
+    assertEquals(5, from.position());
+  }
+
+  public void testTooLarge() {
+    try {
+      new BufferPool().borrow(Integer.MAX_VALUE);
+      fail();
+    } catch (IllegalArgumentException expected) {
+    }
+  }
+}
@@ -0,0 +1,28 @@
+package com.skligys.cardboardcreeper;
+
+import com.skligys.cardboardcreeper.model.Chunk;
+
+import junit.framework.TestCase;
+
+public class ChunkTest extends TestCase {
+  public void testSizeFixedOnceChunksExist() {
+    new Chunk(0, 0, 0);
+    int size = Chunk.size();
+    // The same size again is fine.
+    Chunk.setSize(size);
+    try {
+      Chunk.setSize(size == Chunk.MAX_SIZE ? 16 : Chunk.MAX_SIZE);
+      fail();
+    } catch (IllegalStateException expected) {
+    }
+    assertEquals(size, Chunk.size());
+  }
+
+  public void testUnsupportedSize() {
+    try {
+      Chunk.setSize(24);
+      fail();
+    } catch (IllegalArgumentException expected) {
+    }
+  }
+}
@@ -0,0 +1,111 @@
+package com.skligys.cardboardcreeper;
+
+import com.skligys.cardboardcreeper.model.Block;
+import com.skligys.cardboardcreeper.model.Chunk;
+import com.skligys.cardboardcreeper.model.Point3;
+
+import junit.framework.TestCase;
+
+import java.util.HashSet;
+import java.util.Set;
+
+public class ChunkVisibilityTest extends TestCase {
+  /** Returns all blocks of a 16 block chunk at the origin, except the ones at y = z = 5. */
+  private static Set<Block> solidWithTunnelAlongX() {
+    Set<Block> blocks = new HashSet<Block>();
+    for (int x = 0; x < 16; ++x) {
+      for (int y = 0; y < 16; ++y) {
+        for (int z = 0; z < 16; ++z) {
+          if (y != 5 || z != 5) {
+            blocks.add(new Block(x, y, z));
+          }
+        }
+      }
+    }
+    return blocks;
+  }
+
+  public void testConnectivity() {
+    Chunk chunk = new Chunk(0, 0, 0);
+    assertEquals(ChunkVisibility.ALL_CONNECTED,
+        ChunkVisibility.connectivity(chunk, new HashSet<Block>()));
+
+    Set<Block> blocks = solidWithTunnelAlongX();
+    long tunnel = ChunkVisibility.connectivity(chunk, blocks);
+    assertTrue(ChunkVisibility.connected(tunnel, Face.LEFT, Face.RIGHT));
+    assertTrue(ChunkVisibility.connected(tunnel, Face.RIGHT, Face.LEFT));
+    assertFalse(ChunkVisibility.connected(tunnel, Face.TOP, Face.BOTTOM));
+    assertFalse(ChunkVisibility.connected(tunnel, Face.LEFT, Face.FRONT));
+
+    blocks.add(new Block(7, 5, 5));
+    assertFalse(ChunkVisibility.connected(
+        ChunkVisibility.connectivity(chunk, blocks), Face.LEFT, Face.RIGHT));
+  }
+
+  public void testTraverse() {
+    // A column of chunks along z, looking along -z from the middle of chunk 0.
+    ChunkVisibility visibility = new ChunkVisibility();
+    visibility.reset(0, 0, -3, 0, 0, 1);
+    Frustum frustum = new Frustum();
+    frustum.set(FrustumTest.viewProjection(8.0f, 8.0f, 8.0f));
+
+    visibility.traverse(0, 0, 0, frustum);
+    assertTrue(visibility.visible(new Chunk(0, 0, -3)));
+    // Behind the eye.
+    assertFalse(visibility.visible(new Chunk(0, 0, 1)));
+
+    // A solid chunk hides everything behind it, but is visible itself.
+    visibility.setConnectivity(new Chunk(0, 0, -1), 0L);
+    visibility.traverse(0, 0, 0, frustum);
+    assertTrue(visibility.visible(new Chunk(0, 0, 0)));
+    assertTrue(visibility.visible(new Chunk(0, 0, -1)));
+    assertFalse(visibility.visible(new Chunk(0, 0, -2)));
+    assertFalse(visibility.visible(new Chunk(0, 0, -3)));
+
+    // Eye outside of the box, everything is visible.
+    visibility.traverse(0, 0, 5, frustum);
+    assertTrue(visibility.visible(new Chunk(0, 0, -3)));
+  }
+
+  public void testTraverseAround() {
+    // The chunk 2 ahead is solid, the walk goes over it but does not turn back down behind it.
+    ChunkVisibility visibility = new ChunkVisibility();
+    visibility.reset(0, 0, -3, 0, 1, 0);
+    visibility.setConnectivity(new Chunk(0, 0, -2), 0L);
+    Frustum frustum = new Frustum();
+    frustum.set(FrustumTest.viewProjection(8.0f, 8.0f, 8.0f));
+
+    visibility.traverse(0, 0, 0, frustum);
+    assertTrue(visibility.visible(new Chunk(0, 1, -3)));
+    assertFalse(visibility.visible(new Chunk(0, 0, -3)));
+
+    // Not if the chunk above is solid as well.
+    visibility.setConnectivity(new Chunk(0, 1, -2), 0L);
+    visibility.traverse(0, 0, 0, frustum);
+    assertFalse(visibility.visible(new Chunk(0, 1, -3)));
+  }
+
+  public void testEyeChunkRoundsDown() {
+    assertEquals(new Chunk(0, 0, 0), ChunkVisibility.eyeChunk(new Point3(0.2f, 5.0f, 15.4f)));
+    // Blocks -1 and -16 are in chunk -1, whose blocks span -16.5 to -0.5.
+    assertEquals(new Chunk(-1, 0, -1), ChunkVisibility.eyeChunk(new Point3(-1.0f, 5.0f, -1.0f)));
+    assertEquals(new Chunk(-1, -1, -1),
+        ChunkVisibility.eyeChunk(new Point3(-0.6f, -16.0f, -16.4f)));
+    assertEquals(new Chunk(-2, 0, 0), ChunkVisibility.eyeChunk(new Point3(-16.6f, 0.0f, 0.0f)));
+  }
+
+  public void testTraverseFromNegativeEye() {
+    // Looking along -z from block (-1, 8, -1) in chunk (-1, 0, -1).  Starting from chunk (0, 0, 0)
+    // instead, only the solid chunk ahead of it would be reached, everything else is behind.
+    ChunkVisibility visibility = new ChunkVisibility();
+    visibility.reset(-1, 0, -3, 0, 0, 0);
+    visibility.setConnectivity(new Chunk(0, 0, -1), 0L);
+    Frustum frustum = new Frustum();
+    frustum.set(FrustumTest.viewProjection(-1.0f, 8.0f, -1.0f));
+
+    Chunk eyeChunk = ChunkVisibility.eyeChunk(new Point3(-1.0f, 8.0f, -1.0f));
+    visibility.traverse(eyeChunk.x, eyeChunk.y, eyeChunk.z, frustum);
+    assertTrue(visibility.visible(new Chunk(-1, 0, -1)));
+    assertTrue(visibility.visible(new Chunk(-1, 0, -3)));
+  }
+}
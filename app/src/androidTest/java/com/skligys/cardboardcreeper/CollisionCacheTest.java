@@ -0,0 +1,51 @@
+package com.skligys.cardboardcreeper;
+
+import com.skligys.cardboardcreeper.model.Block;
+import com.skligys.cardboardcreeper.model.Chunk;
+
+import junit.framework.TestCase;
+
+public class CollisionCacheTest extends TestCase {
+  private final BlockSet blocks = new BlockSet();
+  private final CollisionCache cache = new CollisionCache(blocks, new Object());
+
+  public void testRefillsOnlyOutsideBox() {
+    blocks.add(new Block(0, 0, 0));
+    blocks.add(new Block(3, 0, 0));
+    cache.cover(-1, -1, -1, 1, 1, 1);
+    assertEquals(1, cache.refills());
+    assertTrue(cache.contains(0, 0, 0));
+    assertFalse(cache.contains(1, 0, 0));
+    // Within the margin.
+    assertTrue(cache.contains(3, 0, 0));
+
+    cache.cover(0, -1, -1, 2, 1, 1);
+    cache.cover(-3, -3, -3, 3, 3, 3);
+    assertEquals(1, cache.refills());
+    cache.cover(2, -1, -1, 4, 1, 1);
+    assertEquals(2, cache.refills());
+    assertTrue(cache.contains(3, 0, 0));
+    assertFalse(cache.contains(-10, 0, 0));
+  }
+
+  public void testRefillsAfterChangeInBox() {
+    cache.cover(-1, -1, -1, 1, 1, 1);
+    blocks.add(new Block(1, 0, 0));
+    cache.chunkChanged(new Chunk(0, 0, 0));
+    // Chunk 2 spans blocks 32 to 47 along x, far from the box.
+    blocks.add(new Block(40, 0, 0));
+    cache.chunkChanged(new Chunk(2, 0, 0));
+    assertFalse(cache.contains(1, 0, 0));
+
+    cache.cover(-1, -1, -1, 1, 1, 1);
+    assertEquals(2, cache.refills());
+    assertTrue(cache.contains(1, 0, 0));
+    // Far changes do not refill, touching the box does.
+    cache.chunkChanged(new Chunk(2, 0, 0));
+    cache.cover(-1, -1, -1, 1, 1, 1);
+    assertEquals(2, cache.refills());
+    cache.chunkChanged(new Chunk(-1, -1, -1));
+    cache.cover(-1, -1, -1, 1, 1, 1);
+    assertEquals(3, cache.refills());
+  }
+}
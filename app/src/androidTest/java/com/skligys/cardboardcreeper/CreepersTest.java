@@ -0,0 +1,128 @@
+package com.skligys.cardboardcreeper;
+
+import com.skligys.cardboardcreeper.model.Block;
+import com.skligys.cardboardcreeper.model.Chunk;
+
+import junit.framework.TestCase;
+
+public class CreepersTest extends TestCase {
+  private static final float DT = Simulation.TICK_SECONDS;
+  private static final float EPSILON = 1e-3f;
+  /** Top of the floor. */
+  private static final float FLOOR = 0.5f;
+  /** Out of chasing range. */
+  private static final float FAR = 1000.0f;
+
+  private final BlockSet blocks = new BlockSet();
+  private final Object blocksLock = new Object();
+  private Creepers creepers;
+
+  @Override protected void setUp() {
+    for (int x = -20; x <= 20; ++x) {
+      for (int z = -20; z <= 20; ++z) {
+        blocks.add(new Block(x, 0, z));
+      }
+    }
+    creepers = new Creepers(blocks, blocksLock, 64, 1);
+  }
+
+  @Override protected void tearDown() {
+    creepers.shutdown();
+  }
+
+  public void testFallsOntoFloor() {
+    creepers.add(0.0f, 6.0f, 0.0f, 1L);
+    ticks(creepers, 120, FAR, FLOOR, FAR);
+    assertEquals(FLOOR, creepers.y(0), EPSILON);
+  }
+
+  public void testChasesSteveUntilClose() {
+    creepers.add(0.0f, FLOOR, 0.0f, 1L);
+    ticks(creepers, 300, 8.0f, FLOOR, 0.0f);
+    float distance = 8.0f - creepers.x(0);
+    assertTrue("Distance " + distance, distance > 1.0f && distance <= 1.5f);
+    assertEquals(0.0f, creepers.z(0), EPSILON);
+  }
+
+  public void testStoppedByWall() {
+    for (int y = 1; y <= 3; ++y) {
+      for (int z = -20; z <= 20; ++z) {
+        blocks.add(new Block(3, y, z));
+      }
+    }
+    creepers.add(0.0f, FLOOR, 0.0f, 1L);
+    ticks(creepers, 300, 8.0f, FLOOR, 0.0f);
+    assertEquals(2.5f - Creepers.HITBOX_WIDTH / 2.0f, creepers.x(0), EPSILON);
+    assertEquals(FLOOR, creepers.y(0), EPSILON);
+  }
+
+  public void testPushedApart() {
+    creepers.add(0.0f, FLOOR, 0.0f, 1L);
+    creepers.add(0.0f, FLOOR, 0.0f, 2L);
+    creepers.add(0.1f, FLOOR, 0.1f, 3L);
+    // Chasing Steve keeps them from wandering apart.
+    ticks(creepers, 60, 0.0f, FLOOR, 0.0f);
+    for (int i = 0; i < 3; ++i) {
+      for (int j = i + 1; j < 3; ++j) {
+        float dx = creepers.x(i) - creepers.x(j);
+        float dz = creepers.z(i) - creepers.z(j);
+        assertTrue(dx * dx + dz * dz > 0.9f * Creepers.HITBOX_WIDTH * Creepers.HITBOX_WIDTH);
+      }
+    }
+  }
+
+  public void testSameWithThreads() {
+    Creepers parallel = new Creepers(blocks, blocksLock, 64, 4);
+    try {
+      for (int i = 0; i < 50; ++i) {
+        float x = -10.0f + (i % 10) * 0.4f;
+        float z = -10.0f + (i / 10) * 0.4f;
+        creepers.add(x, 2.0f, z, i + 1);
+        parallel.add(x, 2.0f, z, i + 1);
+      }
+      ticks(creepers, 200, FAR, FLOOR, FAR);
+      ticks(parallel, 200, FAR, FLOOR, FAR);
+      for (int i = 0; i < 50; ++i) {
+        assertEquals(creepers.x(i), parallel.x(i));
+        assertEquals(creepers.y(i), parallel.y(i));
+        assertEquals(creepers.z(i), parallel.z(i));
+      }
+    } finally {
+      parallel.shutdown();
+    }
+  }
+
+  public void testFallsThroughRemovedFloor() {
+    creepers.add(4.0f, FLOOR, 4.0f, 1L);
+    ticks(creepers, 10, FAR, FLOOR, FAR);
+    assertEquals(FLOOR, creepers.y(0), EPSILON);
+
+    synchronized(blocksLock) {
+      for (int x = 1; x <= 7; ++x) {
+        for (int z = 1; z <= 7; ++z) {
+          blocks.remove(new Block(x, 0, z));
+        }
+      }
+      creepers.chunkChanged(new Chunk(0, 0, 0));
+    }
+    ticks(creepers, 60, FAR, FLOOR, FAR);
+    assertTrue(creepers.y(0) < FLOOR - 1.0f);
+  }
+
+  public void testTicksAfterShutdown() {
+    Creepers parallel = new Creepers(blocks, blocksLock, 64, 2);
+    parallel.add(0.0f, 6.0f, 0.0f, 1L);
+    ticks(parallel, 10, FAR, FLOOR, FAR);
+    parallel.shutdown();
+    ticks(parallel, 110, FAR, FLOOR, FAR);
+    parallel.shutdown();
+    assertEquals(FLOOR, parallel.y(0), EPSILON);
+  }
+
+  private static void ticks(Creepers creepers, int ticks, float steveX, float steveY,
+      float steveZ) {
+    for (int i = 0; i < ticks; ++i) {
+      creepers.tick(DT, steveX, steveY, steveZ);
+    }
+  }
+}
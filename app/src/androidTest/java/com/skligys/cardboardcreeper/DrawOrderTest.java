@@ -0,0 +1,58 @@
+package com.skligys.cardboardcreeper;
+
+import junit.framework.TestCase;
+
+public class DrawOrderTest extends TestCase {
+  private static Hitbox chunk(int x, int z) {
+    return new Hitbox(16 * x - 0.5f, -0.5f, 16 * z - 0.5f,
+        16 * x + 15.5f, 15.5f, 16 * z + 15.5f);
+  }
+
+  private static String order(DrawOrder<String> drawOrder) {
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < drawOrder.size(); ++i) {
+      sb.append(drawOrder.get(i));
+    }
+    return sb.toString();
+  }
+
+  public void testFrontToBack() {
+    DrawOrder<String> drawOrder = new DrawOrder<String>();
+    drawOrder.add("c", chunk(3, 0));
+    drawOrder.add("a", chunk(0, 0));
+    drawOrder.add("b", chunk(-2, 0));
+    drawOrder.add("d", chunk(0, -5));
+
+    // Inside chunk a.
+    assertTrue(drawOrder.sort(8.0f, 8.0f, 8.0f));
+    assertEquals("abcd", order(drawOrder));
+
+    // Barely moved, the previous order is reused.
+    assertFalse(drawOrder.sort(8.9f, 8.0f, 8.0f));
+    assertEquals("abcd", order(drawOrder));
+
+    // Far enough to sort again.
+    assertTrue(drawOrder.sort(40.0f, 8.0f, -40.0f));
+    assertEquals("dcab", order(drawOrder));
+  }
+
+  public void testSortsAfterAdding() {
+    DrawOrder<String> drawOrder = new DrawOrder<String>();
+    drawOrder.add("b", chunk(1, 0));
+    assertTrue(drawOrder.sort(8.0f, 8.0f, 8.0f));
+
+    drawOrder.add("a", chunk(0, 0));
+    assertTrue(drawOrder.sort(8.0f, 8.0f, 8.0f));
+    assertEquals("ab", order(drawOrder));
+
+    drawOrder.clear();
+    assertEquals(0, drawOrder.size());
+  }
+
+  public void testDistanceSquared() {
+    Hitbox box = new Hitbox(0.0f, 0.0f, 0.0f, 2.0f, 2.0f, 2.0f);
+    assertEquals(0.0f, box.distanceSquared(1.0f, 1.0f, 1.0f));
+    assertEquals(9.0f, box.distanceSquared(5.0f, 1.0f, 1.0f));
+    assertEquals(3.0f, box.distanceSquared(-1.0f, 3.0f, 3.0f));
+  }
+}
@@ -0,0 +1,35 @@
+package com.skligys.cardboardcreeper;
+
+import junit.framework.TestCase;
+
+public class EyeTest extends TestCase {
+  private static final float EPSILON = 1e-5f;
+
+  /** Asserts the view matrix maps the world point to the view space point. */
+  private static void assertMaps(float[] view, float x, float y, float z,
+      float viewX, float viewY, float viewZ) {
+    assertEquals(viewX, view[0] * x + view[4] * y + view[8] * z + view[12], EPSILON);
+    assertEquals(viewY, view[1] * x + view[5] * y + view[9] * z + view[13], EPSILON);
+    assertEquals(viewZ, view[2] * x + view[6] * y + view[10] * z + view[14], EPSILON);
+  }
+
+  public void testViewMatrix() {
+    Eye eye = new Eye(1.0f, 2.0f, 3.0f);
+    // Looks along -z at first.
+    assertMaps(eye.viewMatrix(), 1.0f, 2.0f, 3.0f, 0.0f, 0.0f, 0.0f);
+    assertMaps(eye.viewMatrix(), 1.0f, 2.0f, 2.0f, 0.0f, 0.0f, -1.0f);
+    assertMaps(eye.viewMatrix(), 2.0f, 3.0f, 3.0f, 1.0f, 1.0f, 0.0f);
+
+    // Turned right by 90 degrees, looks along +x.
+    eye.rotate(-450.0f, 0.0f);
+    assertMaps(eye.viewMatrix(), 1.0f, 2.0f, 3.0f, 0.0f, 0.0f, 0.0f);
+    assertMaps(eye.viewMatrix(), 2.0f, 2.0f, 3.0f, 0.0f, 0.0f, -1.0f);
+    assertMaps(eye.viewMatrix(), 1.0f, 3.0f, 4.0f, 1.0f, 1.0f, 0.0f);
+
+    // Moved and looking up at 45 degrees.
+    eye.setPosition(0.0f, 0.0f, 0.0f);
+    eye.rotate(0.0f, 225.0f);
+    float half = (float) Math.sqrt(0.5);
+    assertMaps(eye.viewMatrix(), half, half, 0.0f, 0.0f, 0.0f, -1.0f);
+  }
+}
@@ -0,0 +1,113 @@
+package com.skligys.cardboardcreeper;
+
+import junit.framework.TestCase;
+
+import java.util.Random;
+
+public class FaceRangesTest extends TestCase {
+  private static final int SIZE = 16;
+
+  private static int bits(Face... faces) {
+    int result = 0;
+    for (Face face : faces) {
+      result |= 1 << face.ordinal();
+    }
+    return result;
+  }
+
+  public void testEyeAboveChunk() {
+    // Chunk spans -0.5 to 15.5 along each axis, eye above and to the right of it.
+    int visible = FaceRanges.visibleFaces(20.0f, 30.0f, 8.0f, 0.0f, 0.0f, 0.0f, SIZE);
+    assertEquals(bits(Face.TOP, Face.FRONT, Face.RIGHT, Face.BACK), visible);
+  }
+
+  public void testEyeBelowFarChunk() {
+    int visible = FaceRanges.visibleFaces(8.0f, 8.0f, 8.0f, -64.0f, 32.0f, -64.0f, SIZE);
+    assertEquals(bits(Face.FRONT, Face.RIGHT, Face.BOTTOM), visible);
+  }
+
+  public void testEyeInsideChunk() {
+    int visible = FaceRanges.visibleFaces(7.3f, 5.6f, 9.1f, 0.0f, 0.0f, 0.0f, SIZE);
+    assertEquals(bits(Face.values()), visible);
+  }
+
+  /** Compares against checking every plane faces of the chunk can lie in. */
+  public void testMatchesAllPlanes() {
+    Random random = new Random(1234);
+    for (int i = 0; i < 10000; ++i) {
+      float[] eye = {
+          random.nextFloat() * 64.0f - 24.0f, random.nextFloat() * 64.0f - 24.0f,
+          random.nextFloat() * 64.0f - 24.0f };
+      int visible = FaceRanges.visibleFaces(eye[0], eye[1], eye[2], 0.0f, 0.0f, 0.0f, SIZE);
+      for (Face face : Face.values()) {
+        int direction = face.dx + face.dy + face.dz;
+        boolean expected = false;
+        for (int k = 0; k < SIZE; ++k) {
+          float plane = k + 0.5f * direction;
+          expected |= direction * (eye[face.normalAxis] - plane) > 0.0f;
+        }
+        assertEquals(face + " from " + eye[0] + ", " + eye[1] + ", " + eye[2],
+            expected, (visible & (1 << face.ordinal())) != 0);
+      }
+    }
+  }
+
+  public void testVisibleRangesMerged() {
+    // TOP: 0-9, FRONT: 10-14, LEFT: none, RIGHT: 15-19, BACK: 20-21, BOTTOM: 22-29.
+    int[] faceQuadStarts = { 0, 10, 15, 15, 20, 22, 30 };
+    int[] ranges = new int[2 * FaceRanges.MAX_RANGES];
+
+    int count = FaceRanges.visibleRanges(
+        bits(Face.TOP, Face.FRONT, Face.RIGHT, Face.BACK), faceQuadStarts, ranges);
+    assertEquals(2, count);
+    assertEquals(0, ranges[0]);
+    assertEquals(15, ranges[1]);
+    assertEquals(15, ranges[2]);
+    assertEquals(7, ranges[3]);
+
+    count = FaceRanges.visibleRanges(
+        bits(Face.TOP, Face.LEFT, Face.BACK), faceQuadStarts, ranges);
+    assertEquals(2, count);
+    assertEquals(0, ranges[0]);
+    assertEquals(10, ranges[1]);
+    assertEquals(20, ranges[2]);
+    assertEquals(2, ranges[3]);
+
+    assertEquals(1, FaceRanges.visibleRanges(bits(Face.values()), faceQuadStarts, ranges));
+    assertEquals(0, ranges[0]);
+    assertEquals(30, ranges[1]);
+
+    assertEquals(0, FaceRanges.visibleRanges(bits(Face.LEFT), faceQuadStarts, ranges));
+  }
+
+  public void testPartFaceQuadStarts() {
+    int[] faceQuadStarts = { 0, 10, 15, 15, 20, 22, 30 };
+    int[] expectedFirst = { 0, 10, 12, 12, 12, 12, 12 };
+    int[] expectedSecond = { 0, 0, 3, 3, 8, 10, 18 };
+    int[] first = FaceRanges.partFaceQuadStarts(faceQuadStarts, 0, 12);
+    int[] second = FaceRanges.partFaceQuadStarts(faceQuadStarts, 12, 18);
+    for (int i = 0; i < faceQuadStarts.length; ++i) {
+      assertEquals(expectedFirst[i], first[i]);
+      assertEquals(expectedSecond[i], second[i]);
+    }
+  }
+
+  public void testBuilderRanges() {
+    VertexBuilder builder = new VertexBuilder();
+    builder.addFace(Face.TOP, 0, 0, 0, 0, 0, 0);
+    builder.addFace(Face.TOP, 1, 0, 0, 1, 0, 0);
+    builder.addFace(Face.RIGHT, 1, 0, 0, 1, 0, 0);
+    builder.addFace(Face.BOTTOM, 0, 0, 0, 1, 0, 0);
+    int[] expectedStarts = { 0, 2, 2, 2, 3, 3, 4 };
+    int[] actual = builder.faceQuadStarts();
+    for (int i = 0; i < expectedStarts.length; ++i) {
+      assertEquals(expectedStarts[i], actual[i]);
+    }
+
+    try {
+      builder.addFace(Face.TOP, 0, 0, 0, 0, 0, 0);
+      fail();
+    } catch (IllegalStateException expected) {
+    }
+  }
+}
@@ -0,0 +1,86 @@
+package com.skligys.cardboardcreeper;
+
+import junit.framework.TestCase;
+
+public class FrustumTest extends TestCase {
+  private static final float NEAR = 0.1f;
+  private static final float FAR = 60.0f;
+
+  /**
+   * Returns a column-major view projection matrix for an eye at given position looking along -z,
+   * with 90 degree field of view and square aspect.
+   */
+  static float[] viewProjection(float eyeX, float eyeY, float eyeZ) {
+    float[] projection = new float[16];
+    projection[0] = 1.0f;
+    projection[5] = 1.0f;
+    projection[10] = (FAR + NEAR) / (NEAR - FAR);
+    projection[11] = -1.0f;
+    projection[14] = 2.0f * FAR * NEAR / (NEAR - FAR);
+
+    float[] view = new float[16];
+    view[0] = 1.0f;
+    view[5] = 1.0f;
+    view[10] = 1.0f;
+    view[15] = 1.0f;
+    view[12] = -eyeX;
+    view[13] = -eyeY;
+    view[14] = -eyeZ;
+
+    float[] result = new float[16];
+    for (int column = 0; column < 4; ++column) {
+      for (int row = 0; row < 4; ++row) {
+        float sum = 0.0f;
+        for (int i = 0; i < 4; ++i) {
+          sum += projection[4 * i + row] * view[4 * column + i];
+        }
+        result[4 * column + row] = sum;
+      }
+    }
+    return result;
+  }
+
+  private static Hitbox cube(float x, float y, float z) {
+    return new Hitbox(x - 0.5f, y - 0.5f, z - 0.5f, x + 0.5f, y + 0.5f, z + 0.5f);
+  }
+
+  public void testEyeAtOrigin() {
+    Frustum frustum = new Frustum();
+    frustum.set(viewProjection(0.0f, 0.0f, 0.0f));
+
+    assertTrue(frustum.intersects(cube(0.0f, 0.0f, -10.0f)));
+    assertTrue(frustum.intersects(cube(9.0f, -9.0f, -10.0f)));
+    // Behind, too far to the side, beyond the far plane.
+    assertFalse(frustum.intersects(cube(0.0f, 0.0f, 10.0f)));
+    assertFalse(frustum.intersects(cube(-12.0f, 0.0f, -10.0f)));
+    assertFalse(frustum.intersects(cube(0.0f, 12.0f, -10.0f)));
+    assertFalse(frustum.intersects(cube(0.0f, 0.0f, -62.0f)));
+    // Straddling a plane, and containing the eye.
+    assertTrue(frustum.intersects(new Hitbox(-20.0f, -1.0f, -11.0f, -10.0f, 1.0f, -9.0f)));
+    assertTrue(frustum.intersects(new Hitbox(-8.0f, -8.0f, -8.0f, 8.0f, 8.0f, 8.0f)));
+  }
+
+  public void testMovedEye() {
+    Frustum frustum = new Frustum();
+    frustum.set(viewProjection(100.0f, 50.0f, 100.0f));
+
+    assertTrue(frustum.intersects(cube(100.0f, 50.0f, 90.0f)));
+    assertFalse(frustum.intersects(cube(100.0f, 50.0f, 110.0f)));
+    assertFalse(frustum.intersects(cube(0.0f, 0.0f, -10.0f)));
+  }
+
+  public void testBuilderBounds() {
+    VertexBuilder builder = new VertexBuilder();
+    assertNull(builder.bounds(16.0f, 0.0f, 0.0f));
+
+    builder.addFace(Face.TOP, 1, 2, 3, 4, 2, 3);
+    builder.addFace(Face.FRONT, 0, 5, 3, 0, 5, 3);
+    Hitbox bounds = builder.bounds(16.0f, 0.0f, 32.0f);
+    assertEquals(15.5f, bounds.minX);
+    assertEquals(1.5f, bounds.minY);
+    assertEquals(34.5f, bounds.minZ);
+    assertEquals(20.5f, bounds.maxX);
+    assertEquals(5.5f, bounds.maxY);
+    assertEquals(35.5f, bounds.maxZ);
+  }
+}
@@ -0,0 +1,216 @@
+package com.skligys.cardboardcreeper;
+
+import com.skligys.cardboardcreeper.model.Block;
+import com.skligys.cardboardcreeper.model.Chunk;
+import com.skligys.cardboardcreeper.perlin.Generator;
+
+import junit.framework.TestCase;
+
+import java.nio.ByteBuffer;
+import java.nio.ShortBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Checks that greedy meshes look exactly like per-face meshes, by rasterizing both on the CPU.
+ * All faces are axis aligned, so each triangle is rasterized in its own plane, sampling several
+ * points per block, and the texture coordinate the fragment shader would compute is recorded
+ * for each sample.
+ */
+public class GreedyMeshBuilderTest extends TestCase {
+  private static final int SAMPLES_PER_BLOCK = 4;
+
+  public void testSingleBlock() {
+    Block block = new Block(1, 2, 3);
+    assertSameImage(new Chunk(0, 0, 0), Arrays.asList(block), new HashSet<Block>());
+  }
+
+  public void testFlatSquare() {
+    List<Block> blocks = new ArrayList<Block>();
+    for (int x = 0; x < Chunk.size(); ++x) {
+      for (int z = 0; z < Chunk.size(); ++z) {
+        blocks.add(new Block(x, 5, z));
+      }
+    }
+    VertexBuilder greedy =
+        assertSameImage(new Chunk(0, 0, 0), blocks, new HashSet<Block>(blocks));
+    // Top, bottom and 4 sides are a single quad each.
+    assertEquals(6 * 4, greedy.vertexCount());
+  }
+
+  public void testGeneratedTerrain() {
+    Generator generator = new Generator(1234);
+    Set<Block> allBlocks = new HashSet<Block>();
+    Map<Chunk, List<Block>> chunkBlocks = new HashMap<Chunk, List<Block>>();
+    for (int x = -1; x <= 1; ++x) {
+      for (int z = -1; z <= 1; ++z) {
+        for (int y = Generator.minChunkY(); y <= Generator.maxChunkY(); ++y) {
+          Chunk chunk = new Chunk(x, y, z);
+          List<Block> blocks = generator.generateChunk(chunk);
+          chunkBlocks.put(chunk, blocks);
+          allBlocks.addAll(blocks);
+        }
+      }
+    }
+    for (int y = Generator.minChunkY(); y <= Generator.maxChunkY(); ++y) {
+      Chunk chunk = new Chunk(0, y, 0);
+      assertSameImage(chunk, MeshBuilder.shownBlocks(chunkBlocks.get(chunk), allBlocks),
+          allBlocks);
+    }
+  }
+
+  public void testLod() {
+    Chunk chunk = new Chunk(0, 0, 0);
+    Set<Block> blocks = new HashSet<Block>();
+    for (int x = 4; x < 8; ++x) {
+      for (int y = 0; y < 4; ++y) {
+        for (int z = 0; z < 4; ++z) {
+          blocks.add(new Block(x, y, z));
+        }
+      }
+    }
+    // A lone block is less than half of a 2 block cube.
+    blocks.add(new Block(10, 10, 10));
+
+    VertexBuilder builder = new VertexBuilder();
+    for (int scale = 2; scale <= 4; scale *= 2) {
+      GreedyMeshBuilder.buildLod(chunk, blocks, scale, builder);
+      // A single quad per side of the 4 block cube.
+      assertEquals(6, builder.quadCount());
+      Hitbox bounds = builder.bounds(0.0f, 0.0f, 0.0f);
+      assertEquals(3.5f, bounds.minX);
+      assertEquals(7.5f, bounds.maxX);
+      assertEquals(-0.5f, bounds.minY);
+      assertEquals(3.5f, bounds.maxY);
+    }
+
+    // Half full cubes are solid.
+    blocks.clear();
+    blocks.add(new Block(0, 0, 0));
+    blocks.add(new Block(1, 0, 0));
+    blocks.add(new Block(0, 0, 1));
+    blocks.add(new Block(1, 0, 1));
+    GreedyMeshBuilder.buildLod(chunk, blocks, 2, builder);
+    assertEquals(6, builder.quadCount());
+    GreedyMeshBuilder.buildLod(chunk, blocks, 4, builder);
+    assertEquals(0, builder.quadCount());
+  }
+
+  public void testLodKeepsFacesAtChunkSides() {
+    int size = Chunk.size();
+    Chunk chunk = new Chunk(0, 0, 0);
+    Set<Block> blocks = new HashSet<Block>();
+    // Ground 2 blocks deep, only 1 deep in the next chunk along x, which 2 block cubes still
+    // take as solid.
+    for (int x = 0; x < 2 * size; ++x) {
+      for (int z = 0; z < size; ++z) {
+        blocks.add(new Block(x, 0, z));
+        if (x < size) {
+          blocks.add(new Block(x, 1, z));
+        }
+      }
+    }
+
+    VertexBuilder builder = new VertexBuilder();
+    GreedyMeshBuilder.buildLod(chunk, blocks, 2, builder);
+    // The next chunk may be drawn with full detail, 1 block lower, so the side facing it stays.
+    assertEquals(1, faceQuads(builder, Face.RIGHT));
+    assertEquals(size - 0.5f, builder.bounds(0.0f, 0.0f, 0.0f).maxX);
+
+    // An entirely solid neighbor hides it at any level of detail.
+    for (int x = size; x < 2 * size; ++x) {
+      for (int z = 0; z < size; ++z) {
+        blocks.add(new Block(x, 1, z));
+      }
+    }
+    GreedyMeshBuilder.buildLod(chunk, blocks, 2, builder);
+    assertEquals(0, faceQuads(builder, Face.RIGHT));
+  }
+
+  private static int faceQuads(VertexBuilder builder, Face face) {
+    int[] faceQuadStarts = builder.faceQuadStarts();
+    return faceQuadStarts[face.ordinal() + 1] - faceQuadStarts[face.ordinal()];
+  }
+
+  /** Returns the greedy mesh. */
+  private static VertexBuilder assertSameImage(Chunk chunk, List<Block> blocks,
+      Set<Block> allBlocks) {
+    VertexBuilder perFace = new VertexBuilder();
+    MeshBuilder.build(chunk, blocks, allBlocks, perFace);
+    VertexBuilder greedy = new VertexBuilder();
+    GreedyMeshBuilder.build(chunk, blocks, allBlocks, greedy);
+    assertTrue(greedy.vertexCount() <= perFace.vertexCount());
+    assertEquals(rasterize(perFace), rasterize(greedy));
+    return greedy;
+  }
+
+  /**
+   * Maps sample points on faces, keyed by position and facing direction, to texture coordinates
+   * quantized to the atlas's texels.
+   */
+  private static Map<String, String> rasterize(VertexBuilder builder) {
+    ByteBuffer vertices = builder.vertexBuffer();
+    ShortBuffer indices = QuadIndices.buffer();
+
+    Map<String, String> result = new HashMap<String, String>();
+    for (int t = 0; t < QuadIndices.indexCount(builder.quadCount()); t += 3) {
+      int[] v = {
+          indices.get(t) & 0xffff, indices.get(t + 1) & 0xffff, indices.get(t + 2) & 0xffff };
+      float[][] p = new float[3][];
+      for (int i = 0; i < 3; ++i) {
+        p[i] = new float[] {
+            VertexFormat.x(vertices, v[i]), VertexFormat.y(vertices, v[i]),
+            VertexFormat.z(vertices, v[i]) };
+      }
+      // The flat axis and which way the triangle faces along it.
+      int axis = p[0][0] == p[1][0] && p[0][0] == p[2][0] ? 0 :
+          (p[0][1] == p[1][1] && p[0][1] == p[2][1] ? 1 : 2);
+      int a = (axis + 1) % 3;
+      int b = (axis + 2) % 3;
+      float area = edge(p[0][a], p[0][b], p[1][a], p[1][b], p[2][a], p[2][b]);
+      String facing = axis + (area > 0.0f ? "+" : "-") + p[0][axis];
+
+      float minA = Math.min(p[0][a], Math.min(p[1][a], p[2][a]));
+      float maxA = Math.max(p[0][a], Math.max(p[1][a], p[2][a]));
+      float minB = Math.min(p[0][b], Math.min(p[1][b], p[2][b]));
+      float maxB = Math.max(p[0][b], Math.max(p[1][b], p[2][b]));
+      float step = 1.0f / SAMPLES_PER_BLOCK;
+      for (float sa = minA + 0.5f * step; sa < maxA; sa += step) {
+        for (float sb = minB + 0.5f * step; sb < maxB; sb += step) {
+          // Barycentric coordinates, the sample is inside if all have the same sign as area.
+          float w0 = edge(p[1][a], p[1][b], p[2][a], p[2][b], sa, sb) / area;
+          float w1 = edge(p[2][a], p[2][b], p[0][a], p[0][b], sa, sb) / area;
+          float w2 = edge(p[0][a], p[0][b], p[1][a], p[1][b], sa, sb) / area;
+          if (w0 < 0.0f || w1 < 0.0f || w2 < 0.0f) {
+            continue;
+          }
+          float tileU = w0 * VertexFormat.u(vertices, v[0]) +
+              w1 * VertexFormat.u(vertices, v[1]) + w2 * VertexFormat.u(vertices, v[2]);
+          float tileV = w0 * VertexFormat.v(vertices, v[0]) +
+              w1 * VertexFormat.v(vertices, v[1]) + w2 * VertexFormat.v(vertices, v[2]);
+          // Same as the shaders, the face is the same for all 3 vertices.
+          Face face = VertexFormat.face(vertices, v[0]);
+          float u = face.tileU + fract(tileU) * Face.TILE_SIZE;
+          float w = face.tileV + fract(tileV) * Face.TILE_SIZE;
+          String key = facing + "@" + (int) Math.floor(sa * SAMPLES_PER_BLOCK) + "," +
+              (int) Math.floor(sb * SAMPLES_PER_BLOCK);
+          result.put(key, Math.round(u * 64.0f) + "," + Math.round(w * 64.0f));
+        }
+      }
+    }
+    return result;
+  }
+
+  private static float edge(float ax, float ay, float bx, float by, float px, float py) {
+    return (bx - ax) * (py - ay) - (by - ay) * (px - ax);
+  }
+
+  private static float fract(float f) {
+    return f - (float) Math.floor(f);
+  }
+}
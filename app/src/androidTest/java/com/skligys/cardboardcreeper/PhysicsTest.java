@@ -0,0 +1,136 @@
+package com.skligys.cardboardcreeper;
+
+import android.os.Debug;
+
+import com.skligys.cardboardcreeper.model.Block;
+
+import junit.framework.TestCase;
+
+public class PhysicsTest extends TestCase {
+  private static final float DT = 1.0f / 60.0f;
+  /** Largest step, World clamps dt of slow frames to it. */
+  private static final float LARGE_DT = 0.2f;
+
+  private final BlockSet blocks = new BlockSet();
+  private final CollisionCache cache = new CollisionCache(blocks, new Object());
+  private final Physics physics = new Physics();
+
+  /** Fills a floor at y = 0 and a wall at x = 3, Steve stands on the floor at the origin. */
+  private Steve steveOnFloor() {
+    for (int z = -10; z <= 10; ++z) {
+      for (int x = -10; x <= 10; ++x) {
+        blocks.add(new Block(x, 0, z));
+      }
+      blocks.add(new Block(3, 1, z));
+      blocks.add(new Block(3, 2, z));
+    }
+    return new Steve(new Block(0, 0, 0));
+  }
+
+  private void steps(Steve steve, int count) {
+    for (int i = 0; i < count; ++i) {
+      physics.updateEyePosition(steve, DT, cache);
+    }
+  }
+
+  public void testFallsOntoFloor() {
+    Steve steve = steveOnFloor();
+    steve.setPosition(0.0f, 5.0f, 0.0f);
+    steps(steve, 300);
+    assertEquals(0.5f + Steve.EYE_LEVEL, steve.positionY(), 1e-3f);
+    assertEquals(0.0f, steve.verticalSpeed());
+  }
+
+  public void testStopsAtWall() {
+    Steve steve = steveOnFloor();
+    // Faces +x.
+    steve.rotate(-450.0f, 0.0f);
+    steve.walk(true);
+    steps(steve, 300);
+    assertEquals(2.5f - Steve.HITBOX_WIDTH / 2.0f, steve.positionX(), 1e-3f);
+    assertEquals(0.0f, steve.positionZ(), 1e-3f);
+  }
+
+  public void testFastFallLandsOnFloor() {
+    Steve steve = steveOnFloor();
+    steve.setPosition(0.0f, 100.0f, 0.0f);
+    steve.setVerticalSpeed(-100.0f);
+    // Falls up to 16 blocks per step at terminal velocity, never through the floor.
+    for (int i = 0; i < 10; ++i) {
+      physics.updateEyePosition(steve, LARGE_DT, cache);
+      assertTrue(steve.positionY() >= 0.5f + Steve.EYE_LEVEL);
+    }
+    assertEquals(0.5f + Steve.EYE_LEVEL, steve.positionY(), 1e-3f);
+    assertEquals(0.0f, steve.verticalSpeed());
+  }
+
+  public void testLargeStepsStopAtWall() {
+    Steve steve = steveOnFloor();
+    steve.rotate(-450.0f, 0.0f);
+    steve.walk(true);
+    for (int i = 0; i < 10; ++i) {
+      physics.updateEyePosition(steve, LARGE_DT, cache);
+    }
+    assertEquals(2.5f - Steve.HITBOX_WIDTH / 2.0f, steve.positionX(), 1e-3f);
+    assertEquals(0.5f + Steve.EYE_LEVEL, steve.positionY(), 1e-3f);
+  }
+
+  public void testSlidesAlongWall() {
+    Steve steve = steveOnFloor();
+    // Faces between +x and +z, the wall only stops the x part.
+    steve.rotate(-675.0f, 0.0f);
+    steve.walk(true);
+    steps(steve, 100);
+    assertEquals(2.5f - Steve.HITBOX_WIDTH / 2.0f, steve.positionX(), 1e-3f);
+    assertTrue(steve.positionZ() > 4.0f);
+    assertEquals(0.5f + Steve.EYE_LEVEL, steve.positionY(), 1e-3f);
+  }
+
+  public void testPassesBetweenBlocks() {
+    Steve steve = steveOnFloor();
+    // A gap one block wide in the wall, Steve walks through it along z = 0.
+    blocks.remove(new Block(3, 1, 0));
+    blocks.remove(new Block(3, 2, 0));
+    steve.rotate(-450.0f, 0.0f);
+    steve.walk(true);
+    steps(steve, 300);
+    assertTrue(steve.positionX() > 4.0f);
+  }
+
+  public void testClimbsStep() {
+    Steve steve = steveOnFloor();
+    blocks.add(new Block(-2, 1, 0));
+    // Faces -x.
+    steve.rotate(450.0f, 0.0f);
+    steve.walk(true);
+    steps(steve, 300);
+    assertTrue(steve.positionX() < -2.0f);
+  }
+
+  public void testHitsCeiling() {
+    Steve steve = steveOnFloor();
+    blocks.add(new Block(0, 3, 0));
+    steve.setVerticalSpeed(10.0f);
+    physics.updateEyePosition(steve, LARGE_DT, cache);
+    assertEquals(2.5f - Steve.HITBOX_HEIGHT + Steve.EYE_LEVEL, steve.positionY(), 1e-3f);
+    assertEquals(0.0f, steve.verticalSpeed());
+  }
+
+  public void testStepAllocatesNothing() {
+    Steve steve = steveOnFloor();
+    steve.walk(true);
+    // Warms up, walking around in circles, falling, hitting the wall and jumping.
+    for (int i = 0; i < 1000; ++i) {
+      steve.rotate(5.0f, 0.0f);
+      physics.updateEyePosition(steve, DT, cache);
+    }
+
+    Debug.startAllocCounting();
+    Debug.resetThreadAllocCount();
+    // Not turning, rotations allocate.
+    steps(steve, 1000);
+    int allocated = Debug.getThreadAllocCount();
+    Debug.stopAllocCounting();
+    assertEquals(0, allocated);
+  }
+}
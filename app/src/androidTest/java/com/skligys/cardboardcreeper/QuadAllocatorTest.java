@@ -0,0 +1,44 @@
+package com.skligys.cardboardcreeper;
+
+import junit.framework.TestCase;
+
+public class QuadAllocatorTest extends TestCase {
+  public void testFirstFit() {
+    QuadAllocator allocator = new QuadAllocator(100);
+    assertEquals(0, allocator.allocate(10));
+    assertEquals(10, allocator.allocate(20));
+    assertEquals(30, allocator.allocate(30));
+    assertEquals(-1, allocator.allocate(41));
+    assertEquals(60, allocator.allocatedQuads());
+
+    // A freed range is reused by anything no larger.
+    allocator.free(10, 20);
+    assertEquals(10, allocator.allocate(15));
+    assertEquals(25, allocator.allocate(5));
+    assertEquals(60, allocator.allocate(40));
+    assertEquals(-1, allocator.allocate(1));
+  }
+
+  public void testFreeMerges() {
+    QuadAllocator allocator = new QuadAllocator(30);
+    assertEquals(0, allocator.allocate(10));
+    assertEquals(10, allocator.allocate(10));
+    assertEquals(20, allocator.allocate(10));
+
+    // Freed in an order which needs merging with both neighbors.
+    allocator.free(0, 10);
+    allocator.free(20, 10);
+    allocator.free(10, 10);
+    assertEquals(0, allocator.allocatedQuads());
+    assertEquals(0, allocator.allocate(30));
+  }
+
+  public void testFreeOutOfRange() {
+    QuadAllocator allocator = new QuadAllocator(10);
+    try {
+      allocator.free(5, 10);
+      fail();
+    } catch (IllegalArgumentException expected) {
+    }
+  }
+}
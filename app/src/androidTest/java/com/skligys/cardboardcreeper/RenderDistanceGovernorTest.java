@@ -0,0 +1,78 @@
+package com.skligys.cardboardcreeper;
+
+import junit.framework.TestCase;
+
+import java.util.Random;
+
+/**
+ * Simulates a device whose work per frame grows with the area shown, plus jitter, and whose
+ * frames take at least a vsync interval.
+ */
+public class RenderDistanceGovernorTest extends TestCase {
+  private static final float TARGET = 1.0f / 60.0f;
+
+  private final Random random = new Random(42);
+  private final RenderDistanceGovernor governor =
+      new RenderDistanceGovernor(TARGET, 32, 96, 16, 48);
+  private int changes = 0;
+
+  /** Runs frames with work in seconds per square block shown, returns the final distance. */
+  private int simulate(int frames, float workPerArea, int chunkBacklog) {
+    for (int i = 0; i < frames; ++i) {
+      int distance = governor.distance();
+      float jitter = 1.0f + 0.2f * (random.nextFloat() - 0.5f);
+      float work = workPerArea * distance * distance * jitter;
+      // Waits for the next vsync after the work is done.
+      float frame = TARGET * (float) Math.ceil(work / TARGET);
+      if (governor.addFrame(frame, work, chunkBacklog)) {
+        ++changes;
+      }
+    }
+    return governor.distance();
+  }
+
+  public void testGrowsOnFastDevice() {
+    // 48 blocks take a fifth of the budget.
+    float workPerArea = TARGET / 5.0f / (48 * 48);
+    assertEquals(96, simulate(60 * 60, workPerArea, 0));
+  }
+
+  public void testSettlesWithoutFlapping() {
+    // 64 blocks take 60% of the budget, 80 would not fit.
+    float workPerArea = TARGET * 0.6f / (64 * 64);
+    assertEquals(64, simulate(60 * 60, workPerArea, 0));
+    changes = 0;
+    assertEquals(64, simulate(60 * 60, workPerArea, 0));
+    assertEquals(0, changes);
+  }
+
+  public void testShrinksOnSlowDevice() {
+    // 48 blocks take twice the budget, so do 32, but it does not go below the minimum.
+    float workPerArea = 2.0f * TARGET / (48 * 48);
+    int frames = RenderDistanceGovernor.SHRINK_WINDOWS * RenderDistanceGovernor.WINDOW_FRAMES;
+    // A single slow window is not enough.
+    assertEquals(48, simulate(frames - 1, workPerArea, 0));
+    assertEquals(32, simulate(1 + frames, workPerArea, 0));
+    assertEquals(32, simulate(60 * 60, workPerArea, 0));
+  }
+
+  public void testShrinksWhenThrottled() {
+    float workPerArea = TARGET * 0.6f / (64 * 64);
+    assertEquals(64, simulate(60 * 60, workPerArea, 0));
+    // Thermal throttling makes work twice as slow, 48 blocks fit again.
+    assertEquals(48, simulate(60 * 10, 2.0f * workPerArea, 0));
+  }
+
+  public void testBacklogStopsGrowing() {
+    float workPerArea = TARGET / 5.0f / (48 * 48);
+    assertEquals(48, simulate(60 * 60, workPerArea, 10));
+    assertEquals(0, changes);
+  }
+
+  public void testIgnoresFirstFrame() {
+    for (int i = 0; i < 10 * RenderDistanceGovernor.WINDOW_FRAMES; ++i) {
+      assertFalse(governor.addFrame(-1.0f, 1.0f, 0));
+    }
+    assertEquals(48, governor.distance());
+  }
+}
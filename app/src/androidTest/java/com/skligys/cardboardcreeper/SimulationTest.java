@@ -0,0 +1,133 @@
+package com.skligys.cardboardcreeper;
+
+import com.skligys.cardboardcreeper.model.Block;
+
+import junit.framework.TestCase;
+
+public class SimulationTest extends TestCase {
+  private static final long START = 1000000L;
+  private static final float EPSILON = 1e-4f;
+
+  private final BlockSet blocks = new BlockSet();
+  /** Above the floor, so every tick moves him. */
+  private final Steve steve = new Steve(new Block(0, 8, 0));
+  private final Object blocksLock = new Object();
+  private final Creepers creepers = new Creepers(blocks, blocksLock, 4, 2);
+  private final Simulation simulation = new Simulation(steve,
+      new CollisionCache(blocks, blocksLock), creepers, new Performance());
+  private final Eye eye = new Eye(0.0f, 0.0f, 0.0f);
+
+  @Override protected void setUp() {
+    for (int x = -5; x <= 5; ++x) {
+      for (int z = -5; z <= 5; ++z) {
+        blocks.add(new Block(x, 0, z));
+      }
+    }
+  }
+
+  public void testInterpolatesTickBehind() {
+    simulation.tick(START);
+    float firstY = steve.positionY();
+    simulation.tick(START + Simulation.TICK_NANOS);
+    float secondY = steve.positionY();
+    assertTrue(secondY < firstY);
+
+    simulation.interpolate(START + Simulation.TICK_NANOS, eye);
+    assertEquals(firstY, eye.y(), EPSILON);
+    simulation.interpolate(START + Simulation.TICK_NANOS * 3 / 2, eye);
+    assertEquals(0.5f * (firstY + secondY), eye.y(), EPSILON);
+    // No later snapshot yet.
+    simulation.interpolate(START + Simulation.TICK_NANOS * 5, eye);
+    assertEquals(secondY, eye.y(), EPSILON);
+  }
+
+  public void testInputAppliedAtTick() {
+    // Turns to face +x and walks.
+    simulation.drag(-450.0f, 0.0f);
+    simulation.walk(true);
+    assertEquals(0.0f, steve.rotationX());
+    assertEquals(0.0f, steve.motionX());
+
+    simulation.tick(START);
+    assertEquals(90.0f, steve.rotationX());
+    assertTrue(steve.positionX() > 0.0f);
+    // Drags are applied once.
+    simulation.tick(START + Simulation.TICK_NANOS);
+    assertEquals(90.0f, steve.rotationX());
+  }
+
+  @Override protected void tearDown() {
+    simulation.stop();
+    creepers.shutdown();
+  }
+
+  public void testTicksCreepers() {
+    creepers.add(4.0f, 0.5f, 0.0f, 1L);
+    for (int i = 0; i < 120; ++i) {
+      simulation.tick(START + i * Simulation.TICK_NANOS);
+    }
+    // Chased Steve until close.
+    assertTrue(creepers.x(0) < 2.0f);
+    assertEquals(0.5f, creepers.y(0), EPSILON);
+  }
+
+  public void testTicksWithoutCreepers() {
+    Simulation alone = new Simulation(steve, new CollisionCache(blocks, blocksLock), null,
+        new Performance());
+    float startY = steve.positionY();
+    alone.tick(START);
+    assertTrue(steve.positionY() < startY);
+  }
+
+  public void testTicksInBackground() throws InterruptedException {
+    float startY = steve.positionY();
+    simulation.start();
+    long deadline = System.nanoTime() + 2000000000L;
+    do {
+      Thread.sleep(10L);
+      simulation.interpolate(System.nanoTime(), eye);
+    } while (eye.y() == startY && System.nanoTime() < deadline);
+    simulation.pause();
+    assertTrue(eye.y() < startY);
+  }
+
+  public void testPauseStopsCreeperThreads() throws InterruptedException {
+    creepers.add(4.0f, 0.5f, 0.0f, 1L);
+    simulation.start();
+    long deadline = System.nanoTime() + 2000000000L;
+    while (!threadsAlive("creepers") && System.nanoTime() < deadline) {
+      Thread.sleep(10L);
+    }
+    assertTrue(threadsAlive("creepers"));
+
+    simulation.pause();
+    deadline = System.nanoTime() + 2000000000L;
+    while (threadsAlive("creepers") && System.nanoTime() < deadline) {
+      Thread.sleep(10L);
+    }
+    assertFalse(threadsAlive("creepers"));
+  }
+
+  public void testStopEndsThreads() throws InterruptedException {
+    creepers.add(4.0f, 0.5f, 0.0f, 1L);
+    simulation.start();
+    simulation.pause();
+    simulation.stop();
+    long deadline = System.nanoTime() + 2000000000L;
+    while ((threadsAlive("simulation") || threadsAlive("creepers")) &&
+        System.nanoTime() < deadline) {
+      Thread.sleep(10L);
+    }
+    assertFalse(threadsAlive("simulation"));
+    assertFalse(threadsAlive("creepers"));
+  }
+
+  private static boolean threadsAlive(String name) {
+    for (Thread thread : Thread.getAllStackTraces().keySet()) {
+      if (thread.getName().equals(name) && thread.isAlive()) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
@@ -0,0 +1,51 @@
+package com.skligys.cardboardcreeper;
+
+import junit.framework.TestCase;
+
+import java.util.HashSet;
+import java.util.Set;
+
+public class SpatialHashTest extends TestCase {
+  public void testFindsEntitiesByCell() {
+    float[] xs = {0.5f, 0.7f, -0.5f, 10.2f, 0.1f};
+    float[] zs = {0.5f, 0.2f, 0.5f, -3.5f, 1.9f};
+    SpatialHash hash = new SpatialHash(1.0f, 8);
+    hash.build(xs, zs, xs.length);
+
+    assertEquals(-1, hash.cell(-0.5f));
+    assertEquals(setOf(0, 1), inCell(hash, xs, zs, 0, 0));
+    assertEquals(setOf(2), inCell(hash, xs, zs, -1, 0));
+    assertEquals(setOf(3), inCell(hash, xs, zs, 10, -4));
+    assertEquals(setOf(4), inCell(hash, xs, zs, 0, 1));
+    assertEquals(setOf(), inCell(hash, xs, zs, 5, 5));
+
+    // Rebuilding forgets moved entities.
+    xs[0] = 5.5f;
+    hash.build(xs, zs, 2);
+    assertEquals(setOf(1), inCell(hash, xs, zs, 0, 0));
+    assertEquals(setOf(0), inCell(hash, xs, zs, 5, 0));
+    assertEquals(setOf(), inCell(hash, xs, zs, 0, 1));
+  }
+
+  /** Returns entities in the cell's bucket which are in the cell. */
+  private static Set<Integer> inCell(SpatialHash hash, float[] xs, float[] zs, int cellX,
+      int cellZ) {
+    Set<Integer> result = new HashSet<Integer>();
+    int bucket = hash.bucket(cellX, cellZ);
+    for (int i = hash.bucketStart(bucket); i < hash.bucketEnd(bucket); ++i) {
+      int entity = hash.entity(i);
+      if (hash.cell(xs[entity]) == cellX && hash.cell(zs[entity]) == cellZ) {
+        result.add(entity);
+      }
+    }
+    return result;
+  }
+
+  private static Set<Integer> setOf(Integer... entities) {
+    Set<Integer> result = new HashSet<Integer>();
+    for (Integer entity : entities) {
+      result.add(entity);
+    }
+    return result;
+  }
+}
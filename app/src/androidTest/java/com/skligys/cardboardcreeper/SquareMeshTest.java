@@ -0,0 +1,340 @@
+package com.skligys.cardboardcreeper;
+
+import com.skligys.cardboardcreeper.model.Block;
+import com.skligys.cardboardcreeper.model.Chunk;
+import com.skligys.cardboardcreeper.model.Point3;
+
+import junit.framework.TestCase;
+
+import java.nio.ByteBuffer;
+import java.nio.ShortBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/** Checks mesh upload lifecycle against a recording GL which keeps track of buffer sizes. */
+public class SquareMeshTest extends TestCase {
+  /** Also remembers sizes and update offsets.  Unknown or out of range buffers throw. */
+  private static class StubGl extends RecordingGl {
+    private final Map<Integer, Integer> sizes = new HashMap<Integer, Integer>();
+    /** Byte offset of each vertex buffer update, in order. */
+    private final List<Integer> updateOffsets = new ArrayList<Integer>();
+    /** Byte offset of each draw's indices, in order. */
+    private final List<Integer> drawOffsets = new ArrayList<Integer>();
+    private int createdCount = 0;
+    private int deletedCount = 0;
+
+    @Override public int createVertexBuffer(int size) {
+      return created(super.createVertexBuffer(size), size);
+    }
+
+    @Override public void updateVertexBuffer(int name, int offset, ByteBuffer vertices) {
+      super.updateVertexBuffer(name, offset, vertices);
+      updateOffsets.add(offset);
+    }
+
+    @Override public void drawElements(int mode, int count, int type, int offset) {
+      super.drawElements(mode, count, type, offset);
+      drawOffsets.add(offset);
+    }
+
+    @Override public int createIndexBuffer(ShortBuffer indices) {
+      return created(super.createIndexBuffer(indices), 2 * indices.remaining());
+    }
+
+    private int created(int name, int size) {
+      ++createdCount;
+      sizes.put(name, size);
+      return name;
+    }
+
+    @Override public void deleteBuffer(int name) {
+      super.deleteBuffer(name);
+      sizes.remove(name);
+      ++deletedCount;
+    }
+  }
+
+  private final StubGl gl = new StubGl();
+  private final SquareMesh squareMesh = new SquareMesh(gl, 0.0f);
+
+  private void load(Chunk chunk, Block... blocks) {
+    List<Block> blockList = Arrays.asList(blocks);
+    squareMesh.load(chunk, blockList, new HashSet<Block>(blockList));
+  }
+
+  public void testUploadOnceAndDelete() {
+    Chunk a = new Chunk(0, 0, 0);
+    Chunk b = new Chunk(1, 0, 0);
+    load(a, new Block(0, 0, 0));
+    load(b, new Block(16, 0, 0), new Block(17, 0, 0));
+    assertEquals(0, gl.createdCount);
+
+    // Both chunks are in the same region and share a vertex buffer.
+    squareMesh.syncGpuBuffers();
+    assertEquals(1, gl.createdCount);
+    assertEquals(1, squareMesh.vertexBuffersUploaded());
+    assertTrue(gl.sizes.containsValue(
+        SquareMesh.PAGE_QUADS * 4 * VertexFormat.STRIDE));
+    assertEquals(2, gl.updateOffsets.size());
+
+    // Nothing left to upload.
+    squareMesh.syncGpuBuffers();
+    assertEquals(2, gl.updateOffsets.size());
+
+    // Replacing a mesh only updates its range, the buffer is deleted once empty.
+    load(a, new Block(1, 1, 1));
+    squareMesh.unload(b);
+    squareMesh.syncGpuBuffers();
+    assertEquals(1, gl.createdCount);
+    assertEquals(0, gl.deletedCount);
+    assertEquals(3, gl.updateOffsets.size());
+    assertEquals(1, squareMesh.chunksLoaded());
+
+    squareMesh.unload(a);
+    squareMesh.syncGpuBuffers();
+    assertEquals(1, gl.deletedCount);
+    assertEquals(0, squareMesh.vertexBuffersUploaded());
+  }
+
+  public void testReplaceInPlace() {
+    Chunk a = new Chunk(0, 0, 0);
+    Chunk b = new Chunk(0, 1, 0);
+    load(a, new Block(0, 0, 0));
+    load(b, new Block(0, 16, 0));
+    squareMesh.syncGpuBuffers();
+    int blockSize = 6 * 4 * VertexFormat.STRIDE;
+    assertEquals(Arrays.asList(0, blockSize), gl.updateOffsets);
+
+    // Same size, gets its old range back.
+    load(a, new Block(5, 5, 5));
+    squareMesh.syncGpuBuffers();
+    assertEquals(Arrays.asList(0, blockSize, 0), gl.updateOffsets);
+
+    // Larger, does not fit in front of b.
+    load(a, new Block(5, 5, 5), new Block(7, 5, 5));
+    squareMesh.syncGpuBuffers();
+    assertEquals(Arrays.asList(0, blockSize, 0, 2 * blockSize), gl.updateOffsets);
+    assertEquals(1, squareMesh.vertexBuffersUploaded());
+  }
+
+  public void testRegions() {
+    int chunksPerRegion = SquareMesh.REGION_SIZE / Chunk.size();
+    load(new Chunk(0, 0, 0), new Block(0, 0, 0));
+    load(new Chunk(chunksPerRegion - 1, 0, 0), new Block(SquareMesh.REGION_SIZE - 1, 0, 0));
+    load(new Chunk(chunksPerRegion, 0, 0), new Block(SquareMesh.REGION_SIZE, 0, 0));
+    load(new Chunk(-1, 0, 0), new Block(-1, 0, 0));
+    squareMesh.syncGpuBuffers();
+    assertEquals(3, squareMesh.vertexBuffersUploaded());
+  }
+
+  public void testUnloadBeforeUpload() {
+    Chunk chunk = new Chunk(0, 0, 0);
+    load(chunk, new Block(0, 0, 0));
+    squareMesh.unload(chunk);
+    squareMesh.syncGpuBuffers();
+    assertEquals(0, gl.createdCount);
+    assertEquals(0, gl.deletedCount);
+  }
+
+  public void testEmptyMeshNotUploaded() {
+    load(new Chunk(0, 0, 0));
+    squareMesh.syncGpuBuffers();
+    assertEquals(0, gl.createdCount);
+    assertEquals(1, squareMesh.chunksLoaded());
+  }
+
+  public void testGpuBuffersLost() {
+    Chunk uploaded = new Chunk(0, 0, 0);
+    Chunk staged = new Chunk(1, 0, 0);
+    load(uploaded, new Block(0, 0, 0));
+    squareMesh.syncGpuBuffers();
+    load(staged, new Block(16, 0, 0));
+
+    Set<Chunk> lost = squareMesh.gpuBuffersLost();
+    assertEquals(new HashSet<Chunk>(Arrays.asList(uploaded)), lost);
+    assertEquals(1, squareMesh.chunksLoaded());
+
+    // Buffers from the lost context are not deleted, the staged mesh still gets uploaded.
+    squareMesh.syncGpuBuffers();
+    assertEquals(0, gl.deletedCount);
+    assertEquals(2, gl.createdCount);
+    assertEquals(1, squareMesh.vertexBuffersUploaded());
+  }
+
+  public void testLoadWhileSyncing() throws InterruptedException {
+    final Chunk chunk = new Chunk(0, 0, 0);
+    Thread loader = new Thread(new Runnable() {
+      @Override public void run() {
+        for (int i = 0; i < 1000; ++i) {
+          load(chunk, new Block(i % 16, 0, 0));
+          if (i % 3 == 0) {
+            squareMesh.unload(chunk);
+          }
+        }
+        load(chunk, new Block(0, 0, 0));
+      }
+    });
+    loader.start();
+    while (loader.isAlive()) {
+      squareMesh.syncGpuBuffers();
+    }
+    loader.join();
+    squareMesh.syncGpuBuffers();
+
+    // Every replaced buffer got deleted exactly once, the stub checks it was known.
+    assertEquals(1, squareMesh.vertexBuffersUploaded());
+    assertEquals(1, gl.sizes.size());
+    assertEquals(gl.createdCount - 1, gl.deletedCount);
+  }
+
+  public void testLodMeshes() {
+    SquareMesh lodMesh = new SquareMesh(gl, 32.0f);
+    List<Block> blocks = new ArrayList<Block>();
+    for (int x = 0; x < 4; ++x) {
+      for (int y = 0; y < 4; ++y) {
+        for (int z = 0; z < 4; ++z) {
+          blocks.add(new Block(x, y, z));
+        }
+      }
+    }
+    // Bumps too small for 2 block cubes.
+    blocks.add(new Block(0, 4, 0));
+    blocks.add(new Block(2, 4, 2));
+    Chunk chunk = new Chunk(0, 0, 0);
+    Set<Block> allBlocks = new HashSet<Block>(blocks);
+    lodMesh.load(chunk, blocks, allBlocks);
+    lodMesh.surfaceCreated(1);
+    lodMesh.syncGpuBuffers();
+    // Only full detail until seen from afar.
+    assertEquals(1, lodMesh.vertexBuffersUploaded());
+
+    // Past the distance, 2 block cubes are missing and requested once.
+    float[] viewProjection = FrustumTest.viewProjection(8.0f, 8.0f, 50.0f);
+    Point3 eyePosition = new Point3(8.0f, 8.0f, 50.0f);
+    gl.reset();
+    lodMesh.cull(viewProjection, eyePosition, 0.0f);
+    lodMesh.draw(viewProjection);
+    assertEquals(1, lodMesh.meshesDrawn());
+    int fullDetailQuads = lodMesh.quadsDrawn();
+    assertEquals(chunk, lodMesh.pollLodRequest());
+    lodMesh.cull(viewProjection, eyePosition, 0.0f);
+    assertNull(lodMesh.pollLodRequest());
+
+    lodMesh.loadLod(chunk, allBlocks);
+    // Built already.
+    lodMesh.loadLod(chunk, allBlocks);
+    lodMesh.cull(viewProjection, eyePosition, 0.0f);
+    lodMesh.draw(viewProjection);
+    assertEquals(2, lodMesh.vertexBuffersUploaded());
+    assertEquals(1, lodMesh.meshesDrawn());
+    assertTrue(lodMesh.quadsDrawn() < fullDetailQuads);
+
+    // Loading it again from afar builds the coarse level right away.
+    lodMesh.load(chunk, blocks, allBlocks);
+    lodMesh.cull(viewProjection, eyePosition, 0.0f);
+    assertEquals(2, lodMesh.vertexBuffersUploaded());
+    assertNull(lodMesh.pollLodRequest());
+  }
+
+  /** Loads the chunk with every other block of its bottom {@code layers} layers. */
+  private void loadCheckerboard(Chunk chunk, int layers) {
+    List<Block> blocks = new ArrayList<Block>();
+    int size = Chunk.size();
+    for (int x = 0; x < size; ++x) {
+      for (int y = 0; y < layers; ++y) {
+        for (int z = 0; z < size; ++z) {
+          if ((x + y + z) % 2 == 0) {
+            blocks.add(new Block(chunk.x * size + x, chunk.y * size + y, chunk.z * size + z));
+          }
+        }
+      }
+    }
+    squareMesh.load(chunk, blocks, new HashSet<Block>(blocks));
+  }
+
+  public void testUploadsSpreadOverSyncs() {
+    // 128 separate blocks per layer.
+    int chunkBytes = 128 * 6 * 4 * VertexFormat.STRIDE;
+    int perSync = SquareMesh.MAX_UPLOAD_BYTES_PER_FRAME / chunkBytes;
+    for (int i = 0; i < perSync + 2; ++i) {
+      loadCheckerboard(new Chunk(i, 0, 0), 1);
+    }
+    squareMesh.syncGpuBuffers();
+    assertEquals(perSync, gl.updateOffsets.size());
+    squareMesh.syncGpuBuffers();
+    assertEquals(perSync + 2, gl.updateOffsets.size());
+
+    // A load larger than the limit still gets uploaded, alone.
+    loadCheckerboard(new Chunk(0, 1, 0), Chunk.size());
+    load(new Chunk(1, 1, 0), new Block(16, 16, 0));
+    squareMesh.syncGpuBuffers();
+    assertEquals(perSync + 3, gl.updateOffsets.size());
+    squareMesh.syncGpuBuffers();
+    assertEquals(perSync + 4, gl.updateOffsets.size());
+  }
+
+  public void testReplacedDrawnUntilUploaded() {
+    Chunk replaced = new Chunk(0, 0, 0);
+    load(replaced, new Block(0, 0, 0));
+    squareMesh.surfaceCreated(1);
+    squareMesh.syncGpuBuffers();
+
+    // The replacement waits behind a load filling the frame, the old mesh is drawn meanwhile.
+    loadCheckerboard(new Chunk(1, 0, 0), Chunk.size());
+    load(replaced, new Block(1, 0, 0));
+    Point3 eyePosition = new Point3(8.0f, 8.0f, 40.0f);
+    float[] viewProjection = FrustumTest.viewProjection(8.0f, 8.0f, 40.0f);
+    squareMesh.cull(viewProjection, eyePosition, 0.0f);
+    assertEquals(2, squareMesh.meshesDrawn());
+    squareMesh.cull(viewProjection, eyePosition, 0.0f);
+    assertEquals(2, squareMesh.meshesDrawn());
+    assertEquals(3, gl.updateOffsets.size());
+  }
+
+  public void testDrawRecorded() {
+    load(new Chunk(0, 0, 0), new Block(0, 0, 0));
+    load(new Chunk(1, 0, 0), new Block(16, 0, 0));
+    squareMesh.surfaceCreated(1);
+    gl.reset();
+
+    squareMesh.cull(FrustumTest.viewProjection(8.0f, 8.0f, 40.0f), new Point3(8.0f, 8.0f, 40.0f),
+        0.0f);
+    squareMesh.draw(FrustumTest.viewProjection(8.0f, 8.0f, 40.0f));
+    // Both chunks' visible faces are a single range of their region's vertex buffer.
+    assertEquals(2, squareMesh.meshesDrawn());
+    assertEquals(1, squareMesh.drawCalls());
+    assertEquals(1, gl.drawCalls());
+    assertEquals(QuadIndices.indexCount(squareMesh.quadsDrawn()), gl.indicesDrawn());
+    // Each mesh copied into the shared vertex buffer.
+    assertEquals(2, gl.bufferUploads());
+  }
+
+  public void testDrawFrontToBackInPage() {
+    load(new Chunk(0, 0, 0), new Block(0, 0, 0));
+    load(new Chunk(1, 0, 0), new Block(16, 0, 0));
+    squareMesh.surfaceCreated(1);
+
+    // From either side, one of the orders matches the meshes' order in the buffer and is drawn
+    // merged, the other one takes a draw call per mesh.
+    int drawCalls = 0;
+    for (float eyeX : new float[] {-20.0f, 36.0f}) {
+      gl.reset();
+      gl.drawOffsets.clear();
+      squareMesh.cull(FrustumTest.viewProjection(eyeX, 8.0f, 60.0f),
+          new Point3(eyeX, 8.0f, 60.0f), 0.0f);
+      squareMesh.draw(FrustumTest.viewProjection(eyeX, 8.0f, 60.0f));
+      assertEquals(2, squareMesh.meshesDrawn());
+      drawCalls += gl.drawCalls();
+      if (gl.drawCalls() == 2) {
+        // The nearer mesh comes later in the buffer.
+        assertTrue(gl.drawOffsets.get(0) > gl.drawOffsets.get(1));
+      }
+    }
+    assertEquals(3, drawCalls);
+  }
+}
@@ -0,0 +1,105 @@
+package com.skligys.cardboardcreeper;
+
+import junit.framework.TestCase;
+
+import java.util.Random;
+
+public class StereoViewsTest extends TestCase {
+  private static final float FIELD_OF_VIEW = (float) Math.toRadians(70.0f);
+  private static final float NEAR = 0.1f;
+  private static final float FAR = 60.0f;
+  private static final float[] IDENTITY = {
+      1.0f, 0.0f, 0.0f, 0.0f,
+      0.0f, 1.0f, 0.0f, 0.0f,
+      0.0f, 0.0f, 1.0f, 0.0f,
+      0.0f, 0.0f, 0.0f, 1.0f,
+  };
+
+  /** Returns clip coordinates of a point divided by w. */
+  private static float[] project(float[] m, float x, float y, float z) {
+    float[] result = new float[3];
+    float w = m[3] * x + m[7] * y + m[11] * z + m[15];
+    for (int row = 0; row < 3; ++row) {
+      result[row] = (m[row] * x + m[4 + row] * y + m[8 + row] * z + m[12 + row]) / w;
+    }
+    return result;
+  }
+
+  private static Frustum frustum(float[] viewProjectionMatrix) {
+    Frustum result = new Frustum();
+    result.set(viewProjectionMatrix);
+    return result;
+  }
+
+  private static boolean contains(Frustum frustum, float x, float y, float z) {
+    return frustum.intersects(x, y, z, x, y, z);
+  }
+
+  public void testPerspective() {
+    float[] projection = new float[16];
+    StereoViews.perspective(0.5f, 0.25f, NEAR, FAR, projection);
+    assertEquals(-1.0f, project(projection, 0.0f, 0.0f, -NEAR)[2], 1e-4f);
+    assertEquals(1.0f, project(projection, 0.0f, 0.0f, -FAR)[2], 1e-4f);
+    // Corners of the field of view.
+    float[] corner = project(projection, 5.0f, -2.5f, -10.0f);
+    assertEquals(1.0f, corner[0], 1e-5f);
+    assertEquals(-1.0f, corner[1], 1e-5f);
+  }
+
+  public void testMono() {
+    StereoViews views = new StereoViews(false, FIELD_OF_VIEW, NEAR, FAR);
+    views.setSurfaceSize(800, 400);
+    views.setViewMatrix(IDENTITY);
+    assertEquals(1, views.eyeCount());
+    assertEquals(800, views.viewportWidth());
+    assertEquals(0.0f, views.eyeOffset());
+    float[] viewProjection = views.viewProjectionMatrix(0);
+    float[] cullViewProjection = views.cullViewProjectionMatrix();
+    for (int i = 0; i < 16; ++i) {
+      assertEquals(viewProjection[i], cullViewProjection[i], 1e-6f);
+    }
+  }
+
+  public void testEyes() {
+    StereoViews views = new StereoViews(true, FIELD_OF_VIEW, NEAR, FAR);
+    views.setSurfaceSize(800, 400);
+    views.setViewMatrix(IDENTITY);
+    assertEquals(2, views.eyeCount());
+    assertEquals(400, views.viewportWidth());
+    assertEquals(400, views.viewportX(1));
+
+    // Straight ahead of each eye is in the middle of its view.
+    float offset = views.eyeOffset();
+    assertEquals(0.0f, project(views.viewProjectionMatrix(0), -offset, 0.0f, -10.0f)[0], 1e-5f);
+    assertEquals(0.0f, project(views.viewProjectionMatrix(1), offset, 0.0f, -10.0f)[0], 1e-5f);
+  }
+
+  public void testCullFrustumHoldsBothEyes() {
+    StereoViews views = new StereoViews(true, FIELD_OF_VIEW, NEAR, FAR);
+    views.setSurfaceSize(800, 400);
+    views.setViewMatrix(IDENTITY);
+    Frustum left = frustum(views.viewProjectionMatrix(0));
+    Frustum right = frustum(views.viewProjectionMatrix(1));
+    Frustum cull = frustum(views.cullViewProjectionMatrix());
+
+    Random random = new Random(1234);
+    int inEyes = 0;
+    for (int i = 0; i < 10000; ++i) {
+      float x = (random.nextFloat() - 0.5f) * 100.0f;
+      float y = (random.nextFloat() - 0.5f) * 100.0f;
+      float z = -random.nextFloat() * 70.0f;
+      if (contains(left, x, y, z) || contains(right, x, y, z)) {
+        ++inEyes;
+        assertTrue(contains(cull, x, y, z));
+      }
+    }
+    assertTrue(inEyes > 1000);
+
+    // Side planes are the outer eyes' ones, so just past them is out.
+    // Viewports are square, so the horizontal field of view is the vertical one.
+    float tanHalfWidth = (float) Math.tan(FIELD_OF_VIEW / 2.0f);
+    float edge = -views.eyeOffset() - 10.0f * tanHalfWidth;
+    assertTrue(contains(cull, edge + 0.01f, 0.0f, -10.0f));
+    assertFalse(contains(cull, edge - 0.01f, 0.0f, -10.0f));
+  }
+}
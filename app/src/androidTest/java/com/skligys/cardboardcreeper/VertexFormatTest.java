@@ -0,0 +1,49 @@
+package com.skligys.cardboardcreeper;
+
+import junit.framework.TestCase;
+
+import java.nio.ByteBuffer;
+
+public class VertexFormatTest extends TestCase {
+  public void testRoundTrip() {
+    ByteBuffer buffer = ByteBuffer.allocate(2 * VertexFormat.STRIDE);
+    VertexFormat.put(buffer, -0.5f, 3.5f, 15.5f, Face.TOP, 0.0f, 16.0f);
+    VertexFormat.put(buffer, 7.5f, -0.5f, 0.5f, Face.BOTTOM, 3.0f, 1.0f);
+    assertEquals(2 * VertexFormat.STRIDE, buffer.position());
+
+    assertEquals(-0.5f, VertexFormat.x(buffer, 0));
+    assertEquals(3.5f, VertexFormat.y(buffer, 0));
+    assertEquals(15.5f, VertexFormat.z(buffer, 0));
+    assertEquals(Face.TOP, VertexFormat.face(buffer, 0));
+    assertEquals(0, VertexFormat.u(buffer, 0));
+    assertEquals(16, VertexFormat.v(buffer, 0));
+
+    assertEquals(7.5f, VertexFormat.x(buffer, 1));
+    assertEquals(-0.5f, VertexFormat.y(buffer, 1));
+    assertEquals(0.5f, VertexFormat.z(buffer, 1));
+    assertEquals(Face.BOTTOM, VertexFormat.face(buffer, 1));
+    assertEquals(3, VertexFormat.u(buffer, 1));
+    assertEquals(1, VertexFormat.v(buffer, 1));
+  }
+
+  public void testLargestCoordinates() {
+    ByteBuffer buffer = ByteBuffer.allocate(VertexFormat.STRIDE);
+    VertexFormat.put(buffer, 254.5f, 254.5f, 254.5f, Face.RIGHT, 255.0f, 255.0f);
+    assertEquals(254.5f, VertexFormat.x(buffer, 0));
+    assertEquals(255, VertexFormat.u(buffer, 0));
+  }
+
+  public void testOutOfRange() {
+    ByteBuffer buffer = ByteBuffer.allocate(VertexFormat.STRIDE);
+    try {
+      VertexFormat.put(buffer, -1.5f, 0.5f, 0.5f, Face.TOP, 0.0f, 0.0f);
+      fail();
+    } catch (IllegalArgumentException expected) {
+    }
+    try {
+      VertexFormat.put(buffer, 0.5f, 0.5f, 0.5f, Face.TOP, 256.0f, 0.0f);
+      fail();
+    } catch (IllegalArgumentException expected) {
+    }
+  }
+}
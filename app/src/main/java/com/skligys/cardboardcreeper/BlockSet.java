@@ -0,0 +1,132 @@
+package com.skligys.cardboardcreeper;
+
+import com.skligys.cardboardcreeper.model.Block;
+
+/**
+ * Positions of solid blocks, packed into longs in an open addressing hash table, so lookups by
+ * coordinates allocate nothing.  Physics probes it many times per frame, where a
+ * {@code Set<Block>} would need a new block per probe.  Coordinates must fit in 21 bits.  Pure
+ * Java, not thread safe, though any number of threads may probe it while none changes it.
+ */
+class BlockSet implements SolidBlocks {
+  private static final int INITIAL_CAPACITY = 1024;
+  private static final int COORDINATE_BITS = 21;
+  private static final long COORDINATE_MASK = (1L << COORDINATE_BITS) - 1;
+  /** Never a packed position, the top bit is not used. */
+  private static final long EMPTY = -1L;
+
+  /** Length is a power of 2, at most half full. */
+  private long[] table = newTable(INITIAL_CAPACITY);
+  private int size = 0;
+
+  int size() {
+    return size;
+  }
+
+  /** Nothing to prepare, all blocks are held. */
+  @Override public void cover(int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+  }
+
+  @Override public boolean contains(int x, int y, int z) {
+    long key = pack(x, y, z);
+    int mask = table.length - 1;
+    for (int i = hash(key) & mask; ; i = (i + 1) & mask) {
+      long entry = table[i];
+      if (entry == key) {
+        return true;
+      }
+      if (entry == EMPTY) {
+        return false;
+      }
+    }
+  }
+
+  void add(Block block) {
+    if (2 * (size + 1) > table.length) {
+      resize(2 * table.length);
+    }
+    if (insert(table, pack(block.x, block.y, block.z))) {
+      ++size;
+    }
+  }
+
+  void addAll(Iterable<Block> blocks) {
+    for (Block block : blocks) {
+      add(block);
+    }
+  }
+
+  void remove(Block block) {
+    long key = pack(block.x, block.y, block.z);
+    int mask = table.length - 1;
+    int i = hash(key) & mask;
+    while (table[i] != key) {
+      if (table[i] == EMPTY) {
+        return;
+      }
+      i = (i + 1) & mask;
+    }
+    // Moves back later entries of the probe run which would no longer be found past the hole.
+    int hole = i;
+    for (int j = (hole + 1) & mask; table[j] != EMPTY; j = (j + 1) & mask) {
+      int home = hash(table[j]) & mask;
+      // Whether home is cyclically outside (hole, j], then the entry can fill the hole.
+      boolean movable = hole <= j ? (home <= hole || home > j) : (home <= hole && home > j);
+      if (movable) {
+        table[hole] = table[j];
+        hole = j;
+      }
+    }
+    table[hole] = EMPTY;
+    --size;
+  }
+
+  void removeAll(Iterable<Block> blocks) {
+    for (Block block : blocks) {
+      remove(block);
+    }
+  }
+
+  private void resize(int capacity) {
+    long[] newTable = newTable(capacity);
+    for (long entry : table) {
+      if (entry != EMPTY) {
+        insert(newTable, entry);
+      }
+    }
+    table = newTable;
+  }
+
+  /** Returns false if already there. */
+  private static boolean insert(long[] table, long key) {
+    int mask = table.length - 1;
+    for (int i = hash(key) & mask; ; i = (i + 1) & mask) {
+      if (table[i] == key) {
+        return false;
+      }
+      if (table[i] == EMPTY) {
+        table[i] = key;
+        return true;
+      }
+    }
+  }
+
+  private static long[] newTable(int capacity) {
+    long[] result = new long[capacity];
+    for (int i = 0; i < capacity; ++i) {
+      result[i] = EMPTY;
+    }
+    return result;
+  }
+
+  private static long pack(int x, int y, int z) {
+    return ((x & COORDINATE_MASK) << (2 * COORDINATE_BITS)) |
+        ((y & COORDINATE_MASK) << COORDINATE_BITS) | (z & COORDINATE_MASK);
+  }
+
+  /** Spreads neighboring positions over the table, their low bits differ too little. */
+  private static int hash(long key) {
+    long mixed = key * 0x9E3779B97F4A7C15L;
+    return (int) (mixed >>> 32);
+  }
+}
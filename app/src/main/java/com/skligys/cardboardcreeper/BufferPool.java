@@ -0,0 +1,130 @@
+package com.skligys.cardboardcreeper;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayDeque;
+import java.util.Locale;
+
+/**
+ * Pool of native order direct buffers for chunk meshes, so streaming chunks in and out does not
+ * keep allocating native memory and leaving it for the GC to reclaim at some unknown time.
+ * Buffers come in power of 2 size classes sliced out of larger slabs.  They are borrowed when a
+ * chunk loads and explicitly released when it unloads, and slabs are kept for reuse rather than
+ * freed, so native memory stays at the high-water mark of what was in use.
+ */
+class BufferPool {
+  private static final int MIN_BUFFER_SIZE = 1024;
+  /** Large enough for a mesh with the most quads {@link QuadIndices} can draw. */
+  private static final int MAX_BUFFER_SIZE =
+      Integer.highestOneBit(QuadIndices.MAX_QUADS * 4 * VertexFormat.STRIDE - 1) << 1;
+  /** Size of slabs buffers are sliced out of, unless a single buffer is larger. */
+  private static final int SLAB_SIZE = 64 * 1024;
+
+  private final Object lock = new Object();
+  /** Free buffers by size class, class i holds buffers of {@code MIN_BUFFER_SIZE << i} bytes. */
+  private final ArrayDeque<ByteBuffer>[] freeBuffers;
+  /** Total bytes in all slabs. */
+  private long reservedBytes = 0L;
+  /** Bytes in buffers currently borrowed, including their unused tails. */
+  private long borrowedBytes = 0L;
+  /** Bytes actually requested for buffers currently borrowed. */
+  private long requestedBytes = 0L;
+  private long highWaterBorrowedBytes = 0L;
+  private int borrowedCount = 0;
+
+  @SuppressWarnings("unchecked")
+  BufferPool() {
+    int classCount = sizeClass(MAX_BUFFER_SIZE) + 1;
+    freeBuffers = (ArrayDeque<ByteBuffer>[]) new ArrayDeque<?>[classCount];
+    for (int i = 0; i < classCount; ++i) {
+      freeBuffers[i] = new ArrayDeque<ByteBuffer>();
+    }
+  }
+
+  /**
+   * Returns a buffer with at least {@code size} bytes, limited to {@code size} and positioned
+   * at 0.  Must be given back with {@link #release} once no longer used.
+   */
+  ByteBuffer borrow(int size) {
+    if (size > MAX_BUFFER_SIZE) {
+      throw new IllegalArgumentException("Buffer too large: " + size);
+    }
+    int sizeClass = sizeClass(size);
+    ByteBuffer result;
+    synchronized(lock) {
+      ArrayDeque<ByteBuffer> free = freeBuffers[sizeClass];
+      if (free.isEmpty()) {
+        allocateSlab(sizeClass);
+      }
+      result = free.removeFirst();
+      borrowedBytes += result.capacity();
+      requestedBytes += size;
+      highWaterBorrowedBytes = Math.max(highWaterBorrowedBytes, borrowedBytes);
+      ++borrowedCount;
+    }
+    result.limit(size);
+    return result;
+  }
+
+  /** Copies remaining bytes into a borrowed buffer, see {@link #borrow}. */
+  ByteBuffer borrowCopy(ByteBuffer from) {
+    ByteBuffer result = borrow(from.remaining());
+    result.put(from)
+        .position(0);
+    return result;
+  }
+
+  /** Gives back a buffer from {@link #borrow}, it must not be used afterwards. */
+  void release(ByteBuffer buffer) {
+    int sizeClass = sizeClass(buffer.capacity());
+    synchronized(lock) {
+      borrowedBytes -= buffer.capacity();
+      requestedBytes -= buffer.limit();
+      --borrowedCount;
+      buffer.clear();
+      freeBuffers[sizeClass].addFirst(buffer);
+    }
+  }
+
+  /**
+   * Returns a human readable summary: memory borrowed, its high-water mark and memory reserved
+   * in slabs, internal fragmentation (borrowed but not requested, as a percentage of borrowed)
+   * and external fragmentation (reserved but sitting in free lists, as a percentage of reserved).
+   */
+  String stats() {
+    synchronized(lock) {
+      return String.format(Locale.US,
+          "%d buffers, %dKB borrowed (peak %dKB) of %dKB reserved, " +
+              "fragmentation: %.0f%% internal, %.0f%% external",
+          borrowedCount, borrowedBytes / 1024, highWaterBorrowedBytes / 1024, reservedBytes / 1024,
+          percentage(borrowedBytes - requestedBytes, borrowedBytes),
+          percentage(reservedBytes - borrowedBytes, reservedBytes));
+    }
+  }
+
+  /** Slices a new slab into buffers of the size class and adds them to its free list. */
+  private void allocateSlab(int sizeClass) {
+    int bufferSize = MIN_BUFFER_SIZE << sizeClass;
+    int slabSize = Math.max(SLAB_SIZE, bufferSize);
+    ByteBuffer slab = ByteBuffer.allocateDirect(slabSize);
+    for (int offset = 0; offset < slabSize; offset += bufferSize) {
+      slab.limit(offset + bufferSize)
+          .position(offset);
+      freeBuffers[sizeClass].addLast(slab.slice().order(ByteOrder.nativeOrder()));
+    }
+    reservedBytes += slabSize;
+  }
+
+  /** Returns the smallest size class with buffers of at least {@code size} bytes. */
+  private static int sizeClass(int size) {
+    if (size <= MIN_BUFFER_SIZE) {
+      return 0;
+    }
+    return 32 - Integer.numberOfLeadingZeros(size - 1) -
+        Integer.numberOfTrailingZeros(MIN_BUFFER_SIZE);
+  }
+
+  private static float percentage(long part, long whole) {
+    return whole != 0L ? part * 100.0f / whole : 0.0f;
+  }
+}
@@ -0,0 +1,202 @@
+package com.skligys.cardboardcreeper;
+
+import com.skligys.cardboardcreeper.model.Block;
+import com.skligys.cardboardcreeper.model.Chunk;
+
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Persistent store of generated chunks, one file per chunk in a directory, plus files holding
+ * the world seed and the chunk size.  Each chunk is stored as a bitmap of solid blocks.  Chunk
+ * files are written to a temporary file first and then renamed, so several processes can fill the
+ * same store with different chunks and an interrupted run leaves no partial chunks behind.
+ */
+class ChunkStore {
+  private static final String SEED_FILE_NAME = "seed";
+  /** Missing from stores created before chunk size was configurable, those have default size. */
+  private static final String CHUNK_SIZE_FILE_NAME = "chunk_size";
+  private static final int MAGIC = 0x43434b31;  // "CCK1"
+
+  private final File dir;
+  private final int seed;
+  private final int chunkSize;
+
+  private ChunkStore(File dir, int seed, int chunkSize) {
+    this.dir = dir;
+    this.seed = seed;
+    this.chunkSize = chunkSize;
+  }
+
+  /** Opens an existing store, returns null if there is none in the directory. */
+  static ChunkStore open(File dir) throws IOException {
+    File seedFile = new File(dir, SEED_FILE_NAME);
+    if (!seedFile.isFile()) {
+      return null;
+    }
+    return new ChunkStore(dir, readInt(seedFile), readChunkSize(dir));
+  }
+
+  /**
+   * Opens the store in the directory, creating it if needed, for chunks of the current size.
+   * Fails if the store exists but was generated with a different seed or chunk size.
+   */
+  static ChunkStore create(File dir, int seed) throws IOException {
+    if (!dir.isDirectory() && !dir.mkdirs()) {
+      throw new IOException("Failed to create directory " + dir);
+    }
+    int chunkSize = Chunk.size();
+    File seedFile = new File(dir, SEED_FILE_NAME);
+    if (seedFile.isFile()) {
+      int existingSeed = readInt(seedFile);
+      if (existingSeed != seed) {
+        throw new IOException(String.format("%s has seed %d, not %d", dir, existingSeed, seed));
+      }
+      int existingChunkSize = readChunkSize(dir);
+      if (existingChunkSize != chunkSize) {
+        throw new IOException(String.format("%s has chunk size %d, not %d",
+            dir, existingChunkSize, chunkSize));
+      }
+    } else {
+      // Chunk size first, so a store with a seed always has the right one.
+      writeInt(new File(dir, CHUNK_SIZE_FILE_NAME), chunkSize);
+      writeInt(seedFile, seed);
+    }
+    return new ChunkStore(dir, seed, chunkSize);
+  }
+
+  private static int readChunkSize(File dir) throws IOException {
+    File chunkSizeFile = new File(dir, CHUNK_SIZE_FILE_NAME);
+    return chunkSizeFile.isFile() ? readInt(chunkSizeFile) : Chunk.DEFAULT_SIZE;
+  }
+
+  private static int readInt(File file) throws IOException {
+    BufferedReader reader = new BufferedReader(new FileReader(file));
+    try {
+      return Integer.parseInt(reader.readLine().trim());
+    } catch (NumberFormatException e) {
+      throw new IOException("Malformed number in " + file, e);
+    } finally {
+      reader.close();
+    }
+  }
+
+  private static void writeInt(File file, int value) throws IOException {
+    File temp = File.createTempFile(file.getName(), ".tmp", file.getParentFile());
+    Writer writer = new FileWriter(temp);
+    try {
+      writer.write(Integer.toString(value));
+    } finally {
+      writer.close();
+    }
+    rename(temp, file);
+  }
+
+  int seed() {
+    return seed;
+  }
+
+  /** Blocks per side of stored chunks, only usable if the same as {@link Chunk#size}. */
+  int chunkSize() {
+    return chunkSize;
+  }
+
+  boolean contains(Chunk chunk) {
+    return file(chunk).isFile();
+  }
+
+  /** Returns blocks of a stored chunk in the same order as generated, or null if not stored. */
+  List<Block> read(Chunk chunk) throws IOException {
+    File file = file(chunk);
+    if (!file.isFile()) {
+      return null;
+    }
+
+    int size = Chunk.size();
+    int blocksPerChunk = size * size * size;
+    byte[] bits = new byte[blocksPerChunk / 8];
+    DataInputStream in = new DataInputStream(new FileInputStream(file));
+    try {
+      int magic = in.readInt();
+      int chunkSize = in.readInt();
+      if (magic != MAGIC || chunkSize != size) {
+        throw new IOException(String.format("Unsupported chunk file %s, magic: %x, size: %d",
+            file, magic, chunkSize));
+      }
+      in.readFully(bits);
+    } finally {
+      in.close();
+    }
+
+    int xOffset = chunk.x * size;
+    int yOffset = chunk.y * size;
+    int zOffset = chunk.z * size;
+    List<Block> result = new ArrayList<Block>();
+    for (int i = 0; i < blocksPerChunk; ++i) {
+      if ((bits[i >> 3] & (1 << (i & 7))) == 0) {
+        continue;
+      }
+      int z = i % size;
+      int y = (i / size) % size;
+      int x = i / (size * size);
+      result.add(new Block(x + xOffset, y + yOffset, z + zOffset));
+    }
+    return result;
+  }
+
+  /** Stores blocks of a chunk, replacing the chunk if already stored. */
+  void write(Chunk chunk, List<Block> blocks) throws IOException {
+    int size = Chunk.size();
+    int xOffset = chunk.x * size;
+    int yOffset = chunk.y * size;
+    int zOffset = chunk.z * size;
+    byte[] bits = new byte[size * size * size / 8];
+    for (Block block : blocks) {
+      int x = block.x - xOffset;
+      int y = block.y - yOffset;
+      int z = block.z - zOffset;
+      if (x < 0 || x >= size || y < 0 || y >= size ||
+          z < 0 || z >= size) {
+        Exceptions.failIllegalArgument("%s is not in %s", block, chunk);
+      }
+      int i = (x * size + y) * size + z;
+      bits[i >> 3] |= 1 << (i & 7);
+    }
+
+    File temp = File.createTempFile(fileName(chunk), ".tmp", dir);
+    DataOutputStream out = new DataOutputStream(new FileOutputStream(temp));
+    try {
+      out.writeInt(MAGIC);
+      out.writeInt(size);
+      out.write(bits);
+    } finally {
+      out.close();
+    }
+    rename(temp, file(chunk));
+  }
+
+  private File file(Chunk chunk) {
+    return new File(dir, fileName(chunk));
+  }
+
+  private static String fileName(Chunk chunk) {
+    return "chunk_" + chunk.x + "_" + chunk.y + "_" + chunk.z;
+  }
+
+  private static void rename(File from, File to) throws IOException {
+    if (!from.renameTo(to)) {
+      from.delete();
+      throw new IOException("Failed to rename " + from + " to " + to);
+    }
+  }
+}
@@ -0,0 +1,269 @@
+package com.skligys.cardboardcreeper;
+
+import com.skligys.cardboardcreeper.model.Block;
+import com.skligys.cardboardcreeper.model.Chunk;
+import com.skligys.cardboardcreeper.model.Point3;
+
+import java.util.Set;
+
+/**
+ * Cave culling: skips chunks which can only be seen through solid terrain, like caves under the
+ * surface.  When a chunk's mesh is built, {@link #connectivity} records which pairs of its 6 sides
+ * are connected through air inside it.  Each frame {@link #traverse} walks chunks breadth first
+ * from the eye's chunk, entering a neighbor only if the side it got in through connects to the
+ * side towards the neighbor, the neighbor is in the frustum, and the walk does not turn back
+ * against a direction it already went.  Chunks it does not reach are not drawn.  Pure Java.
+ * <p>
+ * Holds the connectivity of all chunks in a box, chunks in it without connectivity set are
+ * treated as empty.  Only used from one thread.
+ */
+class ChunkVisibility {
+  private static final int FACE_COUNT = Face.values().length;
+  /** Connectivity of a chunk without any solid blocks: all sides connect to each other. */
+  static final long ALL_CONNECTED = (1L << (FACE_COUNT * FACE_COUNT)) - 1;
+  /** Ordinal of the opposite face for each face's ordinal. */
+  private static final int[] OPPOSITE = new int[FACE_COUNT];
+  static {
+    for (Face face : Face.values()) {
+      for (Face other : Face.values()) {
+        if (other.dx == -face.dx && other.dy == -face.dy && other.dz == -face.dz) {
+          OPPOSITE[face.ordinal()] = other.ordinal();
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns which sides of the chunk are connected to each other through air inside the chunk,
+   * see {@link #connected}.  Blocks are solid if in {@code allBlocks}.
+   */
+  static long connectivity(Chunk chunk, Set<Block> allBlocks) {
+    int size = Chunk.size();
+    int xOffset = chunk.x * size;
+    int yOffset = chunk.y * size;
+    int zOffset = chunk.z * size;
+    // Indexed by x * size * size + y * size + z, like in GreedyMeshBuilder.
+    int[] strides = { size * size, size, 1 };
+    int cellCount = size * size * size;
+    boolean[] filled = new boolean[cellCount];
+    boolean empty = true;
+    for (int x = 0; x < size; ++x) {
+      for (int y = 0; y < size; ++y) {
+        for (int z = 0; z < size; ++z) {
+          if (allBlocks.contains(new Block(x + xOffset, y + yOffset, z + zOffset))) {
+            filled[x * strides[0] + y * strides[1] + z] = true;
+            empty = false;
+          }
+        }
+      }
+    }
+    if (empty) {
+      return ALL_CONNECTED;
+    }
+
+    // Flood fill each air pocket and connect all sides it touches.
+    long result = 0L;
+    int[] queue = new int[cellCount];
+    int[] xyz = new int[3];
+    for (int start = 0; start < cellCount; ++start) {
+      if (filled[start]) {
+        continue;
+      }
+      filled[start] = true;
+      queue[0] = start;
+      int head = 0;
+      int tail = 1;
+      int sides = 0;
+      while (head < tail) {
+        int cell = queue[head++];
+        xyz[0] = cell / strides[0];
+        xyz[1] = (cell / strides[1]) % size;
+        xyz[2] = cell % size;
+        for (Face face : Face.values()) {
+          int axis = face.normalAxis;
+          int direction = face.dx + face.dy + face.dz;
+          int next = xyz[axis] + direction;
+          if (next < 0 || next >= size) {
+            sides |= 1 << face.ordinal();
+            continue;
+          }
+          int neighbor = cell + direction * strides[axis];
+          if (!filled[neighbor]) {
+            filled[neighbor] = true;
+            queue[tail++] = neighbor;
+          }
+        }
+      }
+      for (int a = 0; a < FACE_COUNT; ++a) {
+        if ((sides & (1 << a)) == 0) {
+          continue;
+        }
+        for (int b = 0; b < FACE_COUNT; ++b) {
+          if ((sides & (1 << b)) != 0) {
+            result |= 1L << (a * FACE_COUNT + b);
+          }
+        }
+      }
+    }
+    return result;
+  }
+
+  /** Returns true if the connectivity has the 2 sides connected through air. */
+  static boolean connected(long connectivity, Face a, Face b) {
+    return connected(connectivity, a.ordinal(), b.ordinal());
+  }
+
+  private static boolean connected(long connectivity, int a, int b) {
+    return (connectivity & (1L << (a * FACE_COUNT + b))) != 0;
+  }
+
+  // Box of chunks, in chunk coordinates.
+  private int minX;
+  private int minY;
+  private int minZ;
+  private int sizeX = 0;
+  private int sizeY = 0;
+  private int sizeZ = 0;
+  /** Per chunk in the box, indexed by ((x - minX) * sizeY + y - minY) * sizeZ + z - minZ. */
+  private long[] connectivities = new long[0];
+  private boolean[] visible = new boolean[0];
+  /** Face ordinal through which the walk entered each chunk, -1 for the eye's chunk. */
+  private int[] enteredThrough = new int[0];
+  /** Bitmask of face ordinals the walk went through to reach each chunk. */
+  private int[] directions = new int[0];
+  private int[] queue = new int[0];
+  /** True if the eye was outside of the box in the last traversal, everything is visible. */
+  private boolean eyeOutside = true;
+
+  /** Sets the box of chunks from min to max inclusive, and marks them all empty. */
+  void reset(int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+    this.minX = minX;
+    this.minY = minY;
+    this.minZ = minZ;
+    sizeX = maxX - minX + 1;
+    sizeY = maxY - minY + 1;
+    sizeZ = maxZ - minZ + 1;
+    int cellCount = sizeX * sizeY * sizeZ;
+    if (connectivities.length < cellCount) {
+      connectivities = new long[cellCount];
+      visible = new boolean[cellCount];
+      enteredThrough = new int[cellCount];
+      directions = new int[cellCount];
+      queue = new int[cellCount];
+    }
+    for (int i = 0; i < cellCount; ++i) {
+      connectivities[i] = ALL_CONNECTED;
+    }
+    eyeOutside = true;
+  }
+
+  /** Sets connectivity of a chunk in the box, see {@link #connectivity}. */
+  void setConnectivity(Chunk chunk, long connectivity) {
+    int index = index(chunk.x, chunk.y, chunk.z);
+    if (index < 0) {
+      Exceptions.failIllegalArgument("%s is outside of chunk visibility box", chunk);
+    }
+    connectivities[index] = connectivity;
+  }
+
+  /**
+   * Returns the chunk containing the eye, for {@link #traverse}.  Unlike {@code new Chunk(eye)},
+   * rounds down for negative coordinates too, block -1 is in chunk -1.
+   */
+  static Chunk eyeChunk(Point3 eye) {
+    Block block = new Block(eye);
+    int size = Chunk.size();
+    return new Chunk(floorDiv(block.x, size), floorDiv(block.y, size), floorDiv(block.z, size));
+  }
+
+  private static int floorDiv(int dividend, int divisor) {
+    return dividend >= 0 ? dividend / divisor : -((-dividend - 1) / divisor) - 1;
+  }
+
+  /**
+   * Walks from the chunk with given coordinates, which contains the eye, and marks chunks it can
+   * see.  If outside of the box, marks all chunks visible.
+   */
+  void traverse(int eyeChunkX, int eyeChunkY, int eyeChunkZ, Frustum frustum) {
+    int cellCount = sizeX * sizeY * sizeZ;
+    int start = index(eyeChunkX, eyeChunkY, eyeChunkZ);
+    eyeOutside = start < 0;
+    if (eyeOutside) {
+      return;
+    }
+    for (int i = 0; i < cellCount; ++i) {
+      visible[i] = false;
+    }
+
+    int size = Chunk.size();
+    int[] strides = { sizeY * sizeZ, sizeZ, 1 };
+    Face[] faces = Face.values();
+    visible[start] = true;
+    enteredThrough[start] = -1;
+    directions[start] = 0;
+    queue[0] = start;
+    int head = 0;
+    int tail = 1;
+    while (head < tail) {
+      int cell = queue[head++];
+      int cellX = cell / strides[0];
+      int cellY = (cell / strides[1]) % sizeY;
+      int cellZ = cell % sizeZ;
+      for (Face face : faces) {
+        int out = face.ordinal();
+        // Never turn back against a direction already gone, and only leave through sides
+        // connected to where the walk came in.
+        if ((directions[cell] & (1 << OPPOSITE[out])) != 0) {
+          continue;
+        }
+        if (enteredThrough[cell] >= 0 &&
+            !connected(connectivities[cell], enteredThrough[cell], out)) {
+          continue;
+        }
+        int nextX = cellX + face.dx;
+        int nextY = cellY + face.dy;
+        int nextZ = cellZ + face.dz;
+        if (nextX < 0 || nextX >= sizeX || nextY < 0 || nextY >= sizeY ||
+            nextZ < 0 || nextZ >= sizeZ) {
+          continue;
+        }
+        int next = cell + face.dx * strides[0] + face.dy * strides[1] + face.dz * strides[2];
+        if (visible[next]) {
+          continue;
+        }
+        // Chunk's box in world coordinates, blocks are centered on integer coordinates.
+        float boxMinX = (nextX + minX) * size - 0.5f;
+        float boxMinY = (nextY + minY) * size - 0.5f;
+        float boxMinZ = (nextZ + minZ) * size - 0.5f;
+        if (!frustum.intersects(boxMinX, boxMinY, boxMinZ,
+            boxMinX + size, boxMinY + size, boxMinZ + size)) {
+          continue;
+        }
+        visible[next] = true;
+        enteredThrough[next] = OPPOSITE[out];
+        directions[next] = directions[cell] | (1 << out);
+        queue[tail++] = next;
+      }
+    }
+  }
+
+  /** Returns true if the last traversal reached the chunk.  Chunks outside of the box are not. */
+  boolean visible(Chunk chunk) {
+    if (eyeOutside) {
+      return true;
+    }
+    int index = index(chunk.x, chunk.y, chunk.z);
+    return index >= 0 && visible[index];
+  }
+
+  /** Returns index of the chunk in the box, or -1 if outside. */
+  private int index(int x, int y, int z) {
+    x -= minX;
+    y -= minY;
+    z -= minZ;
+    if (x < 0 || x >= sizeX || y < 0 || y >= sizeY || z < 0 || z >= sizeZ) {
+      return -1;
+    }
+    return (x * sizeY + y) * sizeZ + z;
+  }
+}
@@ -0,0 +1,42 @@
+package com.skligys.cardboardcreeper;
+
+import com.skligys.cardboardcreeper.model.Chunk;
+import com.skligys.cardboardcreeper.perlin.Generator;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/** Helpers for finding chunks around a given one. */
+class Chunks {
+  private Chunks() {}  // No instantiation.
+
+  /**
+   * Returns chunks within a sphere of given radius (in chunks) around center, but only those
+   * containing any blocks.
+   */
+  static Set<Chunk> neighboringChunks(Chunk center, int radius) {
+    int minChunkY = Generator.minChunkY();
+    int maxChunkY = Generator.maxChunkY();
+
+    Set<Chunk> result = new HashSet<Chunk>();
+    for (int dx = -radius; dx <= radius; ++dx) {
+      for (int dy = -radius; dy <= radius; ++dy) {
+        for (int dz = -radius; dz <= radius; ++dz) {
+          if (!chunkShown(dx, dy, dz, radius)) {
+            continue;
+          }
+          Chunk chunk = center.plus(new Chunk(dx, dy, dz));
+          if (chunk.y < minChunkY || chunk.y > maxChunkY) {
+            continue;
+          }
+          result.add(chunk);
+        }
+      }
+    }
+    return result;
+  }
+
+  private static boolean chunkShown(int dx, int dy, int dz, int radius) {
+    return dx * dx + dy * dy + dz * dz <= radius * radius;
+  }
+}
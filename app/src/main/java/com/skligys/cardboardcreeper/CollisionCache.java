@@ -0,0 +1,103 @@
+package com.skligys.cardboardcreeper;
+
+import com.skligys.cardboardcreeper.model.Chunk;
+
+/**
+ * Which blocks are solid within a small box around Steve or a creeper, copied from the world's
+ * blocks into a dense array, so physics probes it without locks or hashing.  The box is only
+ * refilled when physics needs blocks outside of it, with a margin so that moving a block or two
+ * does not need one, or when blocks inside it change.  Probed from one thread at a time.
+ */
+class CollisionCache implements SolidBlocks {
+  /** Blocks added on each side of the box physics needs, when refilling. */
+  private static final int MARGIN = 2;
+
+  private final BlockSet blocks;
+  /** Guards {@code blocks}, and the box bounds for {@link #chunkChanged}. */
+  private final Object blocksLock;
+
+  // The box held, lowest corner and size in blocks.
+  private int minX = 0;
+  private int minY = 0;
+  private int minZ = 0;
+  private int sizeX = 0;
+  private int sizeY = 0;
+  private int sizeZ = 0;
+  /** Indexed by ((x - minX) * sizeY + (y - minY)) * sizeZ + (z - minZ).  Only ever grows. */
+  private boolean[] solid = new boolean[0];
+  /** Set when blocks in the box changed since it was filled. */
+  private volatile boolean stale = true;
+  private int refills = 0;
+
+  /** {@code blocks} may change while holding {@code blocksLock}, with {@link #chunkChanged}. */
+  CollisionCache(BlockSet blocks, Object blocksLock) {
+    this.blocks = blocks;
+    this.blocksLock = blocksLock;
+  }
+
+  /** Returns how many times the box got refilled. */
+  int refills() {
+    return refills;
+  }
+
+  /** Makes sure blocks from the min to the max corner, inclusive, are held. */
+  @Override public void cover(int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+    if (!stale && minX >= this.minX && maxX < this.minX + sizeX &&
+        minY >= this.minY && maxY < this.minY + sizeY &&
+        minZ >= this.minZ && maxZ < this.minZ + sizeZ) {
+      return;
+    }
+    refill(minX - MARGIN, minY - MARGIN, minZ - MARGIN, maxX - minX + 1 + 2 * MARGIN,
+        maxY - minY + 1 + 2 * MARGIN, maxZ - minZ + 1 + 2 * MARGIN);
+  }
+
+  private void refill(int minX, int minY, int minZ, int sizeX, int sizeY, int sizeZ) {
+    if (solid.length < sizeX * sizeY * sizeZ) {
+      solid = new boolean[sizeX * sizeY * sizeZ];
+    }
+    synchronized(blocksLock) {
+      this.minX = minX;
+      this.minY = minY;
+      this.minZ = minZ;
+      this.sizeX = sizeX;
+      this.sizeY = sizeY;
+      this.sizeZ = sizeZ;
+      stale = false;
+      int i = 0;
+      for (int x = minX; x < minX + sizeX; ++x) {
+        for (int y = minY; y < minY + sizeY; ++y) {
+          for (int z = minZ; z < minZ + sizeZ; ++z) {
+            solid[i++] = blocks.contains(x, y, z);
+          }
+        }
+      }
+    }
+    ++refills;
+  }
+
+  /** Returns whether the block is solid, false outside of the box. */
+  @Override public boolean contains(int x, int y, int z) {
+    x -= minX;
+    y -= minY;
+    z -= minZ;
+    if (x < 0 || x >= sizeX || y < 0 || y >= sizeY || z < 0 || z >= sizeZ) {
+      return false;
+    }
+    return solid[(x * sizeY + y) * sizeZ + z];
+  }
+
+  /**
+   * Marks the box for a refill if the chunk, whose blocks changed, overlaps it.  Call holding the
+   * blocks lock.
+   */
+  void chunkChanged(Chunk chunk) {
+    int size = Chunk.size();
+    int chunkX = chunk.x * size;
+    int chunkY = chunk.y * size;
+    int chunkZ = chunk.z * size;
+    if (chunkX < minX + sizeX && chunkX + size > minX && chunkY < minY + sizeY &&
+        chunkY + size > minY && chunkZ < minZ + sizeZ && chunkZ + size > minZ) {
+      stale = true;
+    }
+  }
+}
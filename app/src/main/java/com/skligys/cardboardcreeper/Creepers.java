@@ -0,0 +1,304 @@
+package com.skligys.cardboardcreeper;
+
+import com.skligys.cardboardcreeper.model.Chunk;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Creepers roaming the terrain.  Each wanders about in random directions, and chases Steve once he
+ * comes close.  They fall, collide with blocks and auto-jump with the same physics as Steve, and
+ * push each other apart rather than overlap, finding neighbors through a {@link SpatialHash}.
+ * Creepers are held as arrays of their fields, indexed by creeper.
+ *
+ * <p>Ticks update creepers in parallel, split into slices over a pool of threads.  A tick reads
+ * positions of the previous one and writes new ones into separate arrays, swapped afterwards, so
+ * slices never see each other's writes and results do not depend on the number of threads.
+ * Each creeper collides with its own {@link CollisionCache}, so ticks only take the blocks lock
+ * when one walks out of its box or blocks in it changed.  Adding creepers, ticking and shutting
+ * down must happen on a single thread.
+ */
+class Creepers {
+  static final float HITBOX_HEIGHT = 1.7f;  // meters from feet.
+  static final float HITBOX_WIDTH = 0.6f;  // meters
+  private static final float WANDERING_SPEED = 1.0f;  // m/s
+  private static final float CHASING_SPEED = 2.5f;  // m/s
+  /** Steve gets chased when closer than this, in blocks. */
+  private static final float CHASE_DISTANCE = 16.0f;
+  /** Chasing creepers stop when this close to Steve. */
+  private static final float STOP_DISTANCE = 1.5f;
+  /** Chance of a wandering creeper to pick a new direction at each tick, and to walk in it. */
+  private static final float TURN_CHANCE = 1.0f / 120.0f;
+  private static final float WALK_CHANCE = 0.75f;
+
+  private final int capacity;
+  private int count = 0;
+
+  // Bottom centers of hitboxes, at the last tick and as being computed by the current one.
+  private float[] x;
+  private float[] y;
+  private float[] z;
+  private float[] nextX;
+  private float[] nextY;
+  private float[] nextZ;
+  // Only read and written by the slice updating the creeper.
+  private final float[] verticalSpeed;
+  /** Unit direction to wander in, or zero when standing still. */
+  private final float[] wanderX;
+  private final float[] wanderZ;
+  /** Xorshift random state, never 0. */
+  private final long[] random;
+  /** Blocks around each creeper, only probed by the slice updating it. */
+  private final CollisionCache[] collisionCaches;
+
+  /** Cells fit a hitbox, so overlapping hitboxes are in the same or adjacent cells. */
+  private final SpatialHash neighbors;
+  private final Slice[] slices;
+  /**
+   * Runs all slices but the first one, which the ticking thread runs.  Started by the first tick
+   * with more than one slice, null until then and after {@link #shutdown}.
+   */
+  private ExecutorService pool = null;
+  private final Future<?>[] futures;
+
+  // Parameters of the current tick, for slices.
+  private float dt;
+  private float targetX;
+  private float targetY;
+  private float targetZ;
+
+  /**
+   * Creepers collide with {@code blocks}, which may change while holding {@code blocksLock}, with
+   * {@link #chunkChanged}.  Updates are split over {@code threads} threads.
+   */
+  Creepers(BlockSet blocks, Object blocksLock, int capacity, int threads) {
+    if (threads < 1) {
+      Exceptions.failIllegalArgument("Bad thread count %d", threads);
+    }
+    this.capacity = capacity;
+    x = new float[capacity];
+    y = new float[capacity];
+    z = new float[capacity];
+    nextX = new float[capacity];
+    nextY = new float[capacity];
+    nextZ = new float[capacity];
+    verticalSpeed = new float[capacity];
+    wanderX = new float[capacity];
+    wanderZ = new float[capacity];
+    random = new long[capacity];
+    collisionCaches = new CollisionCache[capacity];
+    for (int i = 0; i < capacity; ++i) {
+      collisionCaches[i] = new CollisionCache(blocks, blocksLock);
+    }
+    neighbors = new SpatialHash(1.0f, capacity);
+
+    slices = new Slice[threads];
+    for (int i = 0; i < threads; ++i) {
+      slices[i] = new Slice(i, threads);
+    }
+    futures = new Future<?>[threads];
+  }
+
+  /** Stops the threads, e.g. while paused.  The next tick starts them again. */
+  void shutdown() {
+    if (pool != null) {
+      pool.shutdown();
+      pool = null;
+    }
+  }
+
+  /** Marks boxes of creepers overlapping the chunk for a refill.  Call holding the blocks lock. */
+  void chunkChanged(Chunk chunk) {
+    for (CollisionCache collisionCache : collisionCaches) {
+      collisionCache.chunkChanged(chunk);
+    }
+  }
+
+  private void startPool() {
+    pool = Executors.newFixedThreadPool(slices.length - 1, new ThreadFactory() {
+      @Override public Thread newThread(Runnable runnable) {
+        Thread thread = new Thread(runnable, "creepers");
+        // Do not keep the process alive if never shut down.
+        thread.setDaemon(true);
+        return thread;
+      }
+    });
+  }
+
+  int count() {
+    return count;
+  }
+
+  /** Returns the x coordinate of the creeper's feet. */
+  float x(int creeper) {
+    return x[creeper];
+  }
+
+  float y(int creeper) {
+    return y[creeper];
+  }
+
+  float z(int creeper) {
+    return z[creeper];
+  }
+
+  /**
+   * Adds a creeper standing with its feet at given position, and returns its index.  Its random
+   * choices derive from {@code seed}.
+   */
+  int add(float x, float y, float z, long seed) {
+    if (count == capacity) {
+      Exceptions.fail("No room for more than %d creepers", capacity);
+    }
+    int creeper = count++;
+    this.x[creeper] = x;
+    this.y[creeper] = y;
+    this.z[creeper] = z;
+    verticalSpeed[creeper] = 0.0f;
+    wanderX[creeper] = 0.0f;
+    wanderZ[creeper] = 0.0f;
+    // Xorshift gets stuck at 0.
+    random[creeper] = seed != 0L ? seed : 1L;
+    return creeper;
+  }
+
+  /** Steps all creepers by {@code dt} seconds, with Steve's feet at given position. */
+  void tick(float dt, float steveX, float steveY, float steveZ) {
+    this.dt = dt;
+    targetX = steveX;
+    targetY = steveY;
+    targetZ = steveZ;
+    neighbors.build(x, z, count);
+    if (pool == null && slices.length > 1) {
+      startPool();
+    }
+
+    for (int i = 1; i < slices.length; ++i) {
+      futures[i] = pool.submit(slices[i]);
+    }
+    slices[0].run();
+    try {
+      for (int i = 1; i < slices.length; ++i) {
+        futures[i].get();
+        futures[i] = null;
+      }
+    } catch (InterruptedException e) {
+      throw new RuntimeException(e);
+    } catch (ExecutionException e) {
+      throw new RuntimeException(e.getCause());
+    }
+
+    float[] swap = x;
+    x = nextX;
+    nextX = swap;
+    swap = y;
+    y = nextY;
+    nextY = swap;
+    swap = z;
+    z = nextZ;
+    nextZ = swap;
+  }
+
+  /**
+   * Updates a contiguous range of creepers, so threads do not write next to each other's ones.
+   */
+  private class Slice implements Runnable {
+    private final int index;
+    private final int sliceCount;
+    /** Scratch state is per thread. */
+    private final Physics physics = new Physics();
+
+    Slice(int index, int sliceCount) {
+      this.index = index;
+      this.sliceCount = sliceCount;
+    }
+
+    @Override public void run() {
+      int end = count * (index + 1) / sliceCount;
+      for (int creeper = count * index / sliceCount; creeper < end; ++creeper) {
+        update(creeper, physics);
+      }
+    }
+  }
+
+  private void update(int creeper, Physics physics) {
+    float feetX = x[creeper];
+    float feetY = y[creeper];
+    float feetZ = z[creeper];
+
+    float dx;
+    float dz;
+    float toX = targetX - feetX;
+    float toZ = targetZ - feetZ;
+    float distanceSquared = toX * toX + toZ * toZ;
+    if (distanceSquared < CHASE_DISTANCE * CHASE_DISTANCE &&
+        Math.abs(targetY - feetY) < CHASE_DISTANCE) {
+      float distance = Floats.sqrt(distanceSquared);
+      float walked = distance > STOP_DISTANCE ? dt * CHASING_SPEED / distance : 0.0f;
+      dx = walked * toX;
+      dz = walked * toZ;
+    } else {
+      if (nextFloat(creeper) < TURN_CHANCE) {
+        float heading = 2.0f * (float) Math.PI * nextFloat(creeper);
+        boolean walks = nextFloat(creeper) < WALK_CHANCE;
+        wanderX[creeper] = walks ? (float) Math.sin(heading) : 0.0f;
+        wanderZ[creeper] = walks ? (float) -Math.cos(heading) : 0.0f;
+      }
+      dx = dt * WANDERING_SPEED * wanderX[creeper];
+      dz = dt * WANDERING_SPEED * wanderZ[creeper];
+    }
+
+    // Each of two overlapping creepers moves away by half the overlap, blocks may stop it.
+    int cellX = neighbors.cell(feetX);
+    int cellZ = neighbors.cell(feetZ);
+    for (int neighborX = cellX - 1; neighborX <= cellX + 1; ++neighborX) {
+      for (int neighborZ = cellZ - 1; neighborZ <= cellZ + 1; ++neighborZ) {
+        int bucket = neighbors.bucket(neighborX, neighborZ);
+        int end = neighbors.bucketEnd(bucket);
+        for (int i = neighbors.bucketStart(bucket); i < end; ++i) {
+          int other = neighbors.entity(i);
+          // Buckets may hold other cells, which are visited on their own.
+          if (other == creeper || neighbors.cell(x[other]) != neighborX ||
+              neighbors.cell(z[other]) != neighborZ ||
+              Math.abs(y[other] - feetY) >= HITBOX_HEIGHT) {
+            continue;
+          }
+          float awayX = feetX - x[other];
+          float awayZ = feetZ - z[other];
+          float apartSquared = awayX * awayX + awayZ * awayZ;
+          if (apartSquared >= HITBOX_WIDTH * HITBOX_WIDTH) {
+            continue;
+          }
+          float apart = Floats.sqrt(apartSquared);
+          float push = 0.5f * (HITBOX_WIDTH - apart);
+          if (apart > 0.0f) {
+            dx += push * awayX / apart;
+            dz += push * awayZ / apart;
+          } else {
+            // Exactly on top of each other, split along x by index.
+            dx += creeper < other ? -push : push;
+          }
+        }
+      }
+    }
+
+    verticalSpeed[creeper] = physics.move(feetX, feetY, feetZ, HITBOX_WIDTH, HITBOX_HEIGHT, dx,
+        dz, verticalSpeed[creeper], dt, collisionCaches[creeper]);
+    nextX[creeper] = physics.x();
+    nextY[creeper] = physics.y();
+    nextZ[creeper] = physics.z();
+  }
+
+  /** Returns a random float from 0 inclusive to 1 exclusive, from the creeper's own state. */
+  private float nextFloat(int creeper) {
+    long state = random[creeper];
+    state ^= state << 13;
+    state ^= state >>> 7;
+    state ^= state << 17;
+    random[creeper] = state;
+    return (state >>> 40) / (float) (1 << 24);
+  }
+}
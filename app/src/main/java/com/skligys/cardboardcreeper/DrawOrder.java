@@ -0,0 +1,86 @@
+package com.skligys.cardboardcreeper;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Items to draw with their bounding boxes, kept sorted front to back by distance from the eye so
+ * near geometry fills the depth buffer first and hides far geometry before it gets shaded.  Fill
+ * rate is scarce on phones at Cardboard resolution.  Sorting is skipped while the eye stays
+ * within {@link #RESORT_DISTANCE} of where it was last sorted for, the order barely changes.
+ */
+class DrawOrder<T> {
+  /** How far the eye can move before items are sorted again. */
+  static final float RESORT_DISTANCE = 1.0f;
+
+  private static class Entry<T> {
+    private final T item;
+    private final Hitbox bounds;
+    private float distanceSquared;
+
+    Entry(T item, Hitbox bounds) {
+      this.item = item;
+      this.bounds = bounds;
+    }
+  }
+
+  private static final Comparator<Entry<?>> BY_DISTANCE = new Comparator<Entry<?>>() {
+    @Override public int compare(Entry<?> a, Entry<?> b) {
+      return Float.compare(a.distanceSquared, b.distanceSquared);
+    }
+  };
+
+  private final List<Entry<T>> entries = new ArrayList<Entry<T>>();
+  private boolean sorted = false;
+  private float sortedEyeX;
+  private float sortedEyeY;
+  private float sortedEyeZ;
+
+  /** Removes all items. */
+  void clear() {
+    entries.clear();
+    sorted = false;
+  }
+
+  /** Adds an item, it gets its place in the order at the next {@link #sort}. */
+  void add(T item, Hitbox bounds) {
+    entries.add(new Entry<T>(item, bounds));
+    sorted = false;
+  }
+
+  int size() {
+    return entries.size();
+  }
+
+  /** Returns the item at given index in the order. */
+  T get(int index) {
+    return entries.get(index).item;
+  }
+
+  /**
+   * Sorts items by distance from the eye to the nearest point of their boxes, unless already
+   * sorted for an eye position close by.  Returns true if sorted.
+   */
+  boolean sort(float eyeX, float eyeY, float eyeZ) {
+    if (sorted) {
+      float dx = eyeX - sortedEyeX;
+      float dy = eyeY - sortedEyeY;
+      float dz = eyeZ - sortedEyeZ;
+      if (dx * dx + dy * dy + dz * dz <= RESORT_DISTANCE * RESORT_DISTANCE) {
+        return false;
+      }
+    }
+
+    for (Entry<T> entry : entries) {
+      entry.distanceSquared = entry.bounds.distanceSquared(eyeX, eyeY, eyeZ);
+    }
+    Collections.sort(entries, BY_DISTANCE);
+    sorted = true;
+    sortedEyeX = eyeX;
+    sortedEyeY = eyeY;
+    sortedEyeZ = eyeZ;
+    return true;
+  }
+}
@@ -1,13 +1,12 @@
 package com.skligys.cardboardcreeper;
 
-import android.opengl.Matrix;
-
-import com.skligys.cardboardcreeper.model.Point2;
 import com.skligys.cardboardcreeper.model.Point3;
 
 class Eye {
-  /** Eye position. */
-  private Point3 position;
+  // Eye position, mutable so physics can move it without allocating.
+  private float x;
+  private float y;
+  private float z;
 
   /**
    * Eye rotation.  x is rotation in degrees in the horizontal plane starting from negative z axis
@@ -15,40 +14,67 @@ class Eye {
    * from the horizontal plane up.  The range is from -90.0f (looking straight down) to 90.0f
    * (looking straight up).
    */
-  private Point2 rotation = new Point2(0.0f, 0.0f);
+  private float rotationX = 0.0f;
+  private float rotationY = 0.0f;
 
   private final float[] viewMatrix = new float[16];
+  /** Whether position or rotation changed since the view matrix was last computed. */
+  private boolean viewMatrixStale = true;
 
   Eye(float x, float y, float z) {
-    this.position = new Point3(x, y, z);
-    computeViewMatrix();
+    setPosition(x, y, z);
   }
 
   float[] viewMatrix() {
+    if (viewMatrixStale) {
+      computeViewMatrix();
+      viewMatrixStale = false;
+    }
     return viewMatrix;
   }
 
   Point3 position() {
-    return position;
+    return new Point3(x, y, z);
+  }
+
+  float x() {
+    return x;
+  }
+
+  float y() {
+    return y;
+  }
+
+  float z() {
+    return z;
+  }
+
+  void setPosition(float x, float y, float z) {
+    this.x = x;
+    this.y = y;
+    this.z = z;
+    viewMatrixStale = true;
   }
 
-  void setPosition(Point3 xyz) {
-    position = xyz;
-    computeViewMatrix();
+  float rotationX() {
+    return rotationX;
   }
 
-  Point2 rotation() {
-    return rotation;
+  float rotationY() {
+    return rotationY;
+  }
+
+  void setRotation(float x, float y) {
+    rotationX = x;
+    rotationY = y;
+    viewMatrixStale = true;
   }
 
   private static final float ROTATION_SPEED = 0.2f;
 
   void rotate(float dx, float dy) {
-    float newX = rotation.x + dx * (-ROTATION_SPEED);
-    float newY = clamp(rotation.y + dy * ROTATION_SPEED, -90.0f, 90.0f);
-    rotation = new Point2(newX, newY);
-
-    computeViewMatrix();
+    setRotation(rotationX + dx * (-ROTATION_SPEED),
+        clamp(rotationY + dy * ROTATION_SPEED, -90.0f, 90.0f));
   }
 
   private static float clamp(float value, float min, float max) {
@@ -56,11 +82,50 @@ class Eye {
   }
 
   private void computeViewMatrix() {
-    float vert = Floats.cos(rotation.y);
-    float dx = Floats.cos(rotation.x - 90.0f) * vert;
-    float dy = Floats.sin(rotation.y);
-    float dz = Floats.sin(rotation.x - 90.0f) * vert;
-    Matrix.setLookAtM(viewMatrix, 0, position.x, position.y, position.z,
-        position.x + dx, position.y + dy, position.z + dz, 0.0f, 1.0f, 0.0f);
+    float vert = Floats.cos(rotationY);
+    float dx = Floats.cos(rotationX - 90.0f) * vert;
+    float dy = Floats.sin(rotationY);
+    float dz = Floats.sin(rotationX - 90.0f) * vert;
+    lookAt(x, y, z, dx, dy, dz, viewMatrix);
+  }
+
+  /**
+   * Sets a column-major view matrix for an eye at given position looking in the unit direction
+   * with y up, the same as Matrix.setLookAtM but without needing a device.
+   */
+  private static void lookAt(float eyeX, float eyeY, float eyeZ, float dx, float dy, float dz,
+      float[] result) {
+    // Side = forward x up, normalized.
+    float sideX = -dz;
+    float sideZ = dx;
+    float sideLength = Floats.sqrt(sideX * sideX + sideZ * sideZ);
+    if (sideLength > 0.0f) {
+      sideX /= sideLength;
+      sideZ /= sideLength;
+    } else {
+      // Looking straight up or down.
+      sideX = 1.0f;
+    }
+    // Up = side x forward.
+    float upX = -sideZ * dy;
+    float upY = sideZ * dx - sideX * dz;
+    float upZ = sideX * dy;
+
+    result[0] = sideX;
+    result[1] = upX;
+    result[2] = -dx;
+    result[3] = 0.0f;
+    result[4] = 0.0f;
+    result[5] = upY;
+    result[6] = -dy;
+    result[7] = 0.0f;
+    result[8] = sideZ;
+    result[9] = upZ;
+    result[10] = -dz;
+    result[11] = 0.0f;
+    result[12] = -(sideX * eyeX + sideZ * eyeZ);
+    result[13] = -(upX * eyeX + upY * eyeY + upZ * eyeZ);
+    result[14] = dx * eyeX + dy * eyeY + dz * eyeZ;
+    result[15] = 1.0f;
   }
 }
@@ -0,0 +1,102 @@
+package com.skligys.cardboardcreeper;
+
+import com.skligys.cardboardcreeper.model.Point3;
+
+/** The 6 faces of a block, with their geometry and textures. */
+enum Face {
+  // OpenGL coordinates:
+  //        ^ y
+  //        |     x
+  //        +--->
+  //   z   /
+  //      v
+  TOP(0, 1, 0, new Point3[] {
+      new Point3(-0.5f, 0.5f, 0.5f),  // front left
+      new Point3(0.5f, 0.5f, 0.5f),  // front right
+      new Point3(0.5f, 0.5f, -0.5f),  // rear right
+      new Point3(-0.5f, 0.5f, -0.5f)  // rear left
+  }, Face.X, Face.Z, 0.0f, 0.5f),
+  FRONT(0, 0, 1, new Point3[] {
+      new Point3(-0.5f, -0.5f, 0.5f),  // bottom left
+      new Point3(0.5f, -0.5f, 0.5f),  // bottom right
+      new Point3(0.5f, 0.5f, 0.5f),  // top right
+      new Point3(-0.5f, 0.5f, 0.5f)  // top left
+  }, Face.X, Face.Y, 0.5f, 0.5f),
+  LEFT(-1, 0, 0, new Point3[] {
+      new Point3(-0.5f, -0.5f, -0.5f),  // rear bottom
+      new Point3(-0.5f, -0.5f, 0.5f),  // front bottom
+      new Point3(-0.5f, 0.5f, 0.5f),  // front top
+      new Point3(-0.5f, 0.5f, -0.5f)  // rear top
+  }, Face.Z, Face.Y, 0.5f, 0.5f),
+  RIGHT(1, 0, 0, new Point3[] {
+      new Point3(0.5f, -0.5f, 0.5f),  // front bottom
+      new Point3(0.5f, -0.5f, -0.5f),  // rear bottom
+      new Point3(0.5f, 0.5f, -0.5f),  // rear top
+      new Point3(0.5f, 0.5f, 0.5f)  // front top
+  }, Face.Z, Face.Y, 0.5f, 0.5f),
+  BACK(0, 0, -1, new Point3[] {
+      new Point3(0.5f, -0.5f, -0.5f),  // bottom right
+      new Point3(-0.5f, -0.5f, -0.5f),  // bottom left
+      new Point3(-0.5f, 0.5f, -0.5f),  // top left
+      new Point3(0.5f, 0.5f, -0.5f)  // top right
+  }, Face.X, Face.Y, 0.5f, 0.5f),
+  BOTTOM(0, -1, 0, new Point3[] {
+      new Point3(-0.5f, -0.5f, -0.5f),  // rear left
+      new Point3(0.5f, -0.5f, -0.5f),  // rear right
+      new Point3(0.5f, -0.5f, 0.5f),  // front right
+      new Point3(-0.5f, -0.5f, 0.5f)  // front left
+  }, Face.X, Face.Z, 0.0f, 0.0f);
+
+  static final int X = 0;
+  static final int Y = 1;
+  static final int Z = 2;
+
+  /** Two triangles per face, indices into the 4 corners. */
+  static final short[] DRAW_LIST_IDXS = {
+      0, 1, 3,
+      3, 1, 2,
+  };
+
+  /**
+   * Texture coordinates of the corners within a tile, in tiles.  The same for all faces since
+   * corners are listed starting with bottom left as seen from outside.  Flip top and bottom since
+   * bitmaps are loaded upside down.
+   */
+  static final float[] TILE_COORDS = {
+      0.0f, 1.0f,
+      1.0f, 1.0f,
+      1.0f, 0.0f,
+      0.0f, 0.0f,
+  };
+
+  /** Size of a tile in the texture atlas, in texture coordinates. */
+  static final float TILE_SIZE = 0.5f;
+
+  /** Offset to the neighboring block covering this face, also the outward normal. */
+  final int dx;
+  final int dy;
+  final int dz;
+  /** Corners relative to the block center, counter-clockwise as seen from outside. */
+  final Point3[] corners;
+  /** Axis along which the face is flat. */
+  final int normalAxis;
+  /** Axes along which the texture's horizontal and vertical coordinates change. */
+  final int textureUAxis;
+  final int textureVAxis;
+  /** Texture coordinates of the tile's corner in the atlas. */
+  final float tileU;
+  final float tileV;
+
+  Face(int dx, int dy, int dz, Point3[] corners, int textureUAxis, int textureVAxis,
+      float tileU, float tileV) {
+    this.dx = dx;
+    this.dy = dy;
+    this.dz = dz;
+    this.corners = corners;
+    this.normalAxis = dx != 0 ? X : (dy != 0 ? Y : Z);
+    this.textureUAxis = textureUAxis;
+    this.textureVAxis = textureVAxis;
+    this.tileU = tileU;
+    this.tileV = tileV;
+  }
+}
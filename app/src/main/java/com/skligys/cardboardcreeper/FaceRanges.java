@@ -0,0 +1,78 @@
+package com.skligys.cardboardcreeper;
+
+/**
+ * Picks which quads of a chunk mesh to draw based on where the eye is.  Meshes store quads facing
+ * each way in a single range, in {@link Face} order.  Rather than having the GPU cull back faces
+ * one triangle at a time, whole ranges facing away from the eye everywhere in the chunk are
+ * skipped.  Pure Java, so it can be checked with made up eye positions.
+ */
+class FaceRanges {
+  private FaceRanges() {}  // No instantiation.
+
+  /** Enough room for {@link #visibleRanges} output, at most every other face is a range. */
+  static final int MAX_RANGES = (Face.values().length + 1) / 2;
+
+  /**
+   * Returns a bitmask with the bit for each face's ordinal set if any such face in the chunk may
+   * face the eye.  The chunk's origin block is centered at the origin coordinates and it has
+   * {@code size} blocks per side.
+   */
+  static int visibleFaces(float eyeX, float eyeY, float eyeZ,
+      float originX, float originY, float originZ, int size) {
+    int result = 0;
+    for (Face face : Face.values()) {
+      float eye = face.normalAxis == Face.X ? eyeX : (face.normalAxis == Face.Y ? eyeY : eyeZ);
+      float origin =
+          face.normalAxis == Face.X ? originX : (face.normalAxis == Face.Y ? originY : originZ);
+      int direction = face.dx + face.dy + face.dz;
+      // Faces lie in planes half a block past block centers, from origin to origin + size - 1,
+      // and face the eye if it is on their outer side.  Enough for one plane to qualify.
+      boolean visible = direction > 0 ? eye > origin + 0.5f : eye < origin + size - 1.5f;
+      if (visible) {
+        result |= 1 << face.ordinal();
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Returns face quad starts, see {@link #visibleRanges}, for the part of a mesh with
+   * {@code quadCount} quads from {@code firstQuad}, relative to that part.
+   */
+  static int[] partFaceQuadStarts(int[] faceQuadStarts, int firstQuad, int quadCount) {
+    int[] result = new int[faceQuadStarts.length];
+    for (int i = 0; i < result.length; ++i) {
+      result[i] = Math.min(Math.max(faceQuadStarts[i] - firstQuad, 0), quadCount);
+    }
+    return result;
+  }
+
+  /**
+   * Merges quad ranges of visible faces into as few ranges as possible.  {@code faceQuadStarts}
+   * holds the first quad for each face by ordinal, followed by the total number of quads.  Writes
+   * first quad and quad count pairs into {@code ranges}, which must have room for
+   * {@link #MAX_RANGES}, and returns the number of ranges.  Empty ranges are left out.
+   */
+  static int visibleRanges(int visibleFaces, int[] faceQuadStarts, int[] ranges) {
+    int rangeCount = 0;
+    int faceCount = Face.values().length;
+    int face = 0;
+    while (face < faceCount) {
+      if ((visibleFaces & (1 << face)) == 0) {
+        ++face;
+        continue;
+      }
+      int first = face;
+      while (face < faceCount && (visibleFaces & (1 << face)) != 0) {
+        ++face;
+      }
+      int quadCount = faceQuadStarts[face] - faceQuadStarts[first];
+      if (quadCount > 0) {
+        ranges[2 * rangeCount] = faceQuadStarts[first];
+        ranges[2 * rangeCount + 1] = quadCount;
+        ++rangeCount;
+      }
+    }
+    return rangeCount;
+  }
+}
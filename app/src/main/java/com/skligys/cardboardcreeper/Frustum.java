@@ -0,0 +1,55 @@
+package com.skligys.cardboardcreeper;
+
+/**
+ * View frustum, for skipping boxes which are out of view.  Pure Java, the planes are extracted
+ * straight from a view projection matrix.
+ */
+class Frustum {
+  private static final int PLANE_COUNT = 6;
+
+  /**
+   * Left, right, bottom, top, near and far planes, 4 floats each: a, b, c, d such that points
+   * with a * x + b * y + c * z + d >= 0 are on the inner side.  Not normalized, only signs count.
+   */
+  private final float[] planes = new float[4 * PLANE_COUNT];
+
+  /** Sets planes from a column-major view projection matrix, as used by OpenGL. */
+  void set(float[] viewProjectionMatrix) {
+    float[] m = viewProjectionMatrix;
+    // Clip coordinates are inside if -w <= x, y, z <= w, where w is the matrix's 4th row.
+    for (int axis = 0; axis < 3; ++axis) {
+      for (int column = 0; column < 4; ++column) {
+        float w = m[4 * column + 3];
+        float coordinate = m[4 * column + axis];
+        planes[4 * (2 * axis) + column] = w + coordinate;
+        planes[4 * (2 * axis + 1) + column] = w - coordinate;
+      }
+    }
+  }
+
+  /**
+   * Returns false if the box is entirely outside of the frustum.  Conservative: may return true
+   * for some boxes just outside of it near its corners.
+   */
+  boolean intersects(Hitbox box) {
+    return intersects(box.minX, box.minY, box.minZ, box.maxX, box.maxY, box.maxZ);
+  }
+
+  /** Like {@link #intersects(Hitbox)}, for a box given by its corners. */
+  boolean intersects(float minX, float minY, float minZ, float maxX, float maxY, float maxZ) {
+    for (int i = 0; i < PLANE_COUNT; ++i) {
+      float a = planes[4 * i];
+      float b = planes[4 * i + 1];
+      float c = planes[4 * i + 2];
+      float d = planes[4 * i + 3];
+      // The box corner furthest along the plane's normal.
+      float x = a >= 0.0f ? maxX : minX;
+      float y = b >= 0.0f ? maxY : minY;
+      float z = c >= 0.0f ? maxZ : minZ;
+      if (a * x + b * y + c * z + d < 0.0f) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
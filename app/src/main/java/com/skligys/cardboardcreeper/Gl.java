@@ -0,0 +1,54 @@
+package com.skligys.cardboardcreeper;
+
+/**
+ * The OpenGL ES 2.0 calls rendering makes, so it can run against a real GL context or a
+ * {@link RecordingGl} which only counts what would be submitted.  Methods mirror GLES20 ones
+ * without the gl prefix and take GLES20 constants.  Only called from the GL thread.
+ */
+interface Gl extends GpuBuffers {
+  /** Compiles and links a program from shader sources and returns its name. */
+  int linkProgram(String vertexShaderGlsl, String fragmentShaderGlsl);
+
+  void useProgram(int program);
+
+  int getUniformLocation(int program, String name);
+
+  int getAttribLocation(int program, String name);
+
+  void enableVertexAttribArray(int index);
+
+  /** Points an attribute at the bound array buffer, offset is in bytes. */
+  void vertexAttribPointer(int index, int size, int type, boolean normalized, int stride,
+      int offset);
+
+  void uniform1i(int location, int x);
+
+  void uniform2fv(int location, int count, float[] v, int offset);
+
+  void uniform3f(int location, float x, float y, float z);
+
+  void uniformMatrix4fv(int location, int count, boolean transpose, float[] value, int offset);
+
+  void activeTexture(int texture);
+
+  void bindTexture(int target, int texture);
+
+  void bindBuffer(int target, int buffer);
+
+  /** Draws with indices from the bound element array buffer, offset is in bytes. */
+  void drawElements(int mode, int count, int type, int offset);
+
+  void viewport(int x, int y, int width, int height);
+
+  void clearColor(float red, float green, float blue, float alpha);
+
+  void clear(int mask);
+
+  void enable(int capability);
+
+  void depthFunc(int func);
+
+  void frontFace(int mode);
+
+  void cullFace(int mode);
+}
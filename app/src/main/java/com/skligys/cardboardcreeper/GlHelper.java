@@ -7,38 +7,11 @@ import android.opengl.GLES20;
 import android.opengl.GLUtils;
 import android.util.Log;
 
-import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
-import java.nio.FloatBuffer;
-import java.nio.ShortBuffer;
-
 class GlHelper {
   private static final String TAG = "GlHelper";
 
   private GlHelper() {}  // No instantiation.
 
-  private static final int FLOAT_SIZE_IN_BYTES = 4;
-
-  static FloatBuffer createFloatBuffer(float[] from) {
-    FloatBuffer result = ByteBuffer.allocateDirect(FLOAT_SIZE_IN_BYTES * from.length)
-        .order(ByteOrder.nativeOrder())
-        .asFloatBuffer();
-    result.put(from)
-        .position(0);
-    return result;
-  }
-
-  private static final int SHORT_SIZE_IN_BYTES = 2;
-
-  static ShortBuffer createShortBuffer(short[] from) {
-    ShortBuffer result = ByteBuffer.allocateDirect(SHORT_SIZE_IN_BYTES * from.length)
-        .order(ByteOrder.nativeOrder())
-        .asShortBuffer();
-    result.put(from)
-        .position(0);
-    return result;
-  }
-
   /**
    * @param type  Must be one of GLES20.GL_VERTEX_SHADER or GLES20.GL_FRAGMENT_SHADER).
    */
@@ -3,62 +3,66 @@ package com.skligys.cardboardcreeper;
 import android.content.res.Resources;
 import android.opengl.GLES20;
 import android.opengl.GLSurfaceView;
-import android.opengl.Matrix;
 import android.util.Log;
 
+import java.io.File;
+
 import javax.microedition.khronos.egl.EGLConfig;
 import javax.microedition.khronos.opengles.GL10;
 
 class GlRenderer implements GLSurfaceView.Renderer {
   private static final String TAG = "GlRenderer";
 
+  /** Whether to render side by side views for the left and right eye, for Cardboard. */
+  private static final boolean STEREO = false;
+
+  private static final float FIELD_OF_VIEW = (float) Math.toRadians(70.0f);  // radians
+  private static final float NEAR_PLANE = 0.1f;
+  /** Until World moves it with the shown distance. */
+  private static final float FAR_PLANE = 60.0f;
+
   private final Resources resources;
-  private final float[] projectionMatrix = new float[16];
+  private final Gl gl = new GlesGl();
+  private final StereoViews views =
+      new StereoViews(STEREO, FIELD_OF_VIEW, NEAR_PLANE, FAR_PLANE);
   private final World world;
 
-  GlRenderer(Resources resources) {
+  GlRenderer(Resources resources, File chunkStoreDir) {
     this.resources = resources;
     Log.i(TAG, "-----------------------------------------------------------------");
-    world = new World();
+    world = new World(gl, chunkStoreDir);
   }
 
   @Override
   public void onSurfaceCreated(GL10 unused, EGLConfig config) {
     // Background color: sky.
-    GLES20.glClearColor(0.5f, 0.69f, 1.0f, 1.0f);
+    gl.clearColor(0.5f, 0.69f, 1.0f, 1.0f);
 
-    GLES20.glEnable(GLES20.GL_DEPTH_TEST);
-    GLES20.glDepthFunc(GLES20.GL_LEQUAL);
-    GLES20.glFrontFace(GLES20.GL_CCW);
+    gl.enable(GLES20.GL_DEPTH_TEST);
+    gl.depthFunc(GLES20.GL_LEQUAL);
+    gl.frontFace(GLES20.GL_CCW);
 
-    GLES20.glEnable(GLES20.GL_CULL_FACE);
-    GLES20.glCullFace(GLES20.GL_BACK);
+    gl.enable(GLES20.GL_CULL_FACE);
+    gl.cullFace(GLES20.GL_BACK);
 
     // Notify shapes.
-    world.surfaceCreated(resources);
+    world.surfaceCreated(GlHelper.loadTexture(resources, R.drawable.atlas));
   }
 
-  private static final float FIELD_OF_VIEW = (float) Math.toRadians(70.0f);  // radians
-  private static final float NEAR_PLANE = 0.1f;
-  private static final float FAR_PLANE = 60.0f;
-
   @Override
   public void onSurfaceChanged(GL10 unused, int width, int height) {
-    GLES20.glViewport(0, 0, width, height);
-
-    float aspect = (float) width / height;
-    float top = NEAR_PLANE * (float) Math.tan(FIELD_OF_VIEW / 2.0f);
-    float bottom = -top;
-    float left = bottom * aspect;
-    float right = -left;
-    Matrix.frustumM(projectionMatrix, 0, left, right, bottom, top, NEAR_PLANE, FAR_PLANE);
+    // Viewports are set per view when drawing.
+    views.setSurfaceSize(width, height);
   }
 
   @Override
   public void onDrawFrame(GL10 unused) {
-    GLES20.glClear(GLES20.GL_COLOR_BUFFER_BIT | GLES20.GL_DEPTH_BUFFER_BIT);
+    gl.clear(GLES20.GL_COLOR_BUFFER_BIT | GLES20.GL_DEPTH_BUFFER_BIT);
     // Draw shapes.
-    world.draw(projectionMatrix);
+    String stats = world.draw(views);
+    if (stats != null) {
+      Log.i(TAG, stats);
+    }
   }
 
   void drag(float dx, float dy) {
@@ -68,4 +72,16 @@ class GlRenderer implements GLSurfaceView.Renderer {
   void walk(boolean start) {
     world.walk(start);
   }
+
+  void pause() {
+    world.pause();
+  }
+
+  void resume() {
+    world.resume();
+  }
+
+  void stop() {
+    world.stop();
+  }
 }
@@ -0,0 +1,132 @@
+package com.skligys.cardboardcreeper;
+
+import android.opengl.GLES20;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ShortBuffer;
+
+/**
+ * {@link Gl} calling straight into GLES20.  Vertex buffers are shared by many chunk meshes and
+ * partly replaced when one of them changes, so they have dynamic draw usage.
+ */
+class GlesGl implements Gl {
+  private static final int SHORT_SIZE_IN_BYTES = 2;
+
+  /** Pre-allocated buffer object names argument.  Only used from the GL thread. */
+  private final int[] names = new int[1];
+
+  @Override public int createVertexBuffer(int size) {
+    return create(GLES20.GL_ARRAY_BUFFER, size, null, GLES20.GL_DYNAMIC_DRAW);
+  }
+
+  @Override public void updateVertexBuffer(int name, int offset, ByteBuffer vertices) {
+    GLES20.glBindBuffer(GLES20.GL_ARRAY_BUFFER, name);
+    GLES20.glBufferSubData(GLES20.GL_ARRAY_BUFFER, offset, vertices.remaining(), vertices);
+    GLES20.glBindBuffer(GLES20.GL_ARRAY_BUFFER, 0);
+  }
+
+  @Override public int createIndexBuffer(ShortBuffer indices) {
+    return create(GLES20.GL_ELEMENT_ARRAY_BUFFER, SHORT_SIZE_IN_BYTES * indices.remaining(),
+        indices, GLES20.GL_STATIC_DRAW);
+  }
+
+  private int create(int target, int size, Buffer data, int usage) {
+    GLES20.glGenBuffers(1, names, 0);
+    GLES20.glBindBuffer(target, names[0]);
+    GLES20.glBufferData(target, size, data, usage);
+    GLES20.glBindBuffer(target, 0);
+    return names[0];
+  }
+
+  @Override public void deleteBuffer(int name) {
+    names[0] = name;
+    GLES20.glDeleteBuffers(1, names, 0);
+  }
+
+  @Override public int linkProgram(String vertexShaderGlsl, String fragmentShaderGlsl) {
+    return GlHelper.linkProgram(vertexShaderGlsl, fragmentShaderGlsl);
+  }
+
+  @Override public void useProgram(int program) {
+    GLES20.glUseProgram(program);
+  }
+
+  @Override public int getUniformLocation(int program, String name) {
+    return GLES20.glGetUniformLocation(program, name);
+  }
+
+  @Override public int getAttribLocation(int program, String name) {
+    return GLES20.glGetAttribLocation(program, name);
+  }
+
+  @Override public void enableVertexAttribArray(int index) {
+    GLES20.glEnableVertexAttribArray(index);
+  }
+
+  @Override public void vertexAttribPointer(int index, int size, int type, boolean normalized,
+      int stride, int offset) {
+    GLES20.glVertexAttribPointer(index, size, type, normalized, stride, offset);
+  }
+
+  @Override public void uniform1i(int location, int x) {
+    GLES20.glUniform1i(location, x);
+  }
+
+  @Override public void uniform2fv(int location, int count, float[] v, int offset) {
+    GLES20.glUniform2fv(location, count, v, offset);
+  }
+
+  @Override public void uniform3f(int location, float x, float y, float z) {
+    GLES20.glUniform3f(location, x, y, z);
+  }
+
+  @Override public void uniformMatrix4fv(int location, int count, boolean transpose,
+      float[] value, int offset) {
+    GLES20.glUniformMatrix4fv(location, count, transpose, value, offset);
+  }
+
+  @Override public void activeTexture(int texture) {
+    GLES20.glActiveTexture(texture);
+  }
+
+  @Override public void bindTexture(int target, int texture) {
+    GLES20.glBindTexture(target, texture);
+  }
+
+  @Override public void bindBuffer(int target, int buffer) {
+    GLES20.glBindBuffer(target, buffer);
+  }
+
+  @Override public void drawElements(int mode, int count, int type, int offset) {
+    GLES20.glDrawElements(mode, count, type, offset);
+  }
+
+  @Override public void viewport(int x, int y, int width, int height) {
+    GLES20.glViewport(x, y, width, height);
+  }
+
+  @Override public void clearColor(float red, float green, float blue, float alpha) {
+    GLES20.glClearColor(red, green, blue, alpha);
+  }
+
+  @Override public void clear(int mask) {
+    GLES20.glClear(mask);
+  }
+
+  @Override public void enable(int capability) {
+    GLES20.glEnable(capability);
+  }
+
+  @Override public void depthFunc(int func) {
+    GLES20.glDepthFunc(func);
+  }
+
+  @Override public void frontFace(int mode) {
+    GLES20.glFrontFace(mode);
+  }
+
+  @Override public void cullFace(int mode) {
+    GLES20.glCullFace(mode);
+  }
+}
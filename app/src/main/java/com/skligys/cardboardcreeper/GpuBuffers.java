@@ -0,0 +1,26 @@
+package com.skligys.cardboardcreeper;
+
+import java.nio.ByteBuffer;
+import java.nio.ShortBuffer;
+
+/**
+ * Creates, fills and deletes GPU buffer objects holding meshes, so geometry is uploaded once
+ * instead of being copied from client memory on every draw.  Only called from the GL thread.
+ * Implemented with GLES20 on devices, and by stubs in tests which have no GL.
+ */
+interface GpuBuffers {
+  /**
+   * Creates a vertex buffer object of given size in bytes, to be filled in parts with
+   * {@link #updateVertexBuffer}, and returns its name.
+   */
+  int createVertexBuffer(int size);
+
+  /** Uploads remaining bytes into a vertex buffer object, starting at given byte offset. */
+  void updateVertexBuffer(int name, int offset, ByteBuffer vertices);
+
+  /** Uploads remaining shorts into a new index buffer object and returns its name. */
+  int createIndexBuffer(ShortBuffer indices);
+
+  /** Deletes a buffer object created by this. */
+  void deleteBuffer(int name);
+}
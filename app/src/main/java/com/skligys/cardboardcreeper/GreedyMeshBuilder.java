@@ -0,0 +1,202 @@
+package com.skligys.cardboardcreeper;
+
+import com.skligys.cardboardcreeper.model.Block;
+import com.skligys.cardboardcreeper.model.Chunk;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Builds chunk meshes like {@link MeshBuilder#build}, but merges adjacent shown faces facing the
+ * same way in the same plane into larger rectangular quads.  All faces facing the same way share a
+ * texture, so merging never mixes textures.
+ */
+class GreedyMeshBuilder {
+  private GreedyMeshBuilder() {}  // No instantiation.
+
+  /** Assumes the blocks belong to the chunk.  Adds quads to the cleared builder. */
+  static void build(Chunk chunk, List<Block> blocks, Set<Block> allBlocks,
+      VertexBuilder builder) {
+    int size = Chunk.size();
+    int[] offset = { chunk.x * size, chunk.y * size, chunk.z * size };
+
+    // Bit i is set if the face with ordinal i of the block at chunk-relative coordinates is shown.
+    // Indexed by x * size * size + y * size + z.
+    int[] strides = { size * size, size, 1 };
+    byte[] shownFaces = new byte[size * size * size];
+    for (Block block : blocks) {
+      int index = (block.x - offset[0]) * strides[0] + (block.y - offset[1]) * strides[1] +
+          (block.z - offset[2]) * strides[2];
+      for (Face face : Face.values()) {
+        Block neighbor = new Block(block.x + face.dx, block.y + face.dy, block.z + face.dz);
+        if (!allBlocks.contains(neighbor)) {
+          shownFaces[index] |= 1 << face.ordinal();
+        }
+      }
+    }
+
+    builder.clear();
+    merge(shownFaces, size, 1, builder);
+  }
+
+  /**
+   * Builds a simplified mesh of the chunk for drawing from afar, out of cubes of scale blocks per
+   * side instead of single blocks.  A cube is solid if at least half of its blocks are in
+   * {@code allBlocks}.  Scale has to divide the chunk size.  Adds quads to the cleared builder,
+   * with coordinates still in blocks, so the texture tile repeats once per block.
+   *
+   * <p>Neighboring chunks may be drawn with another level of detail, whose surface does not line
+   * up with this one.  So faces on the chunk's sides are only dropped where the neighboring cube
+   * is entirely solid, and cover what would otherwise be cracks along the seam.
+   */
+  static void buildLod(Chunk chunk, Set<Block> allBlocks, int scale, VertexBuilder builder) {
+    int size = Chunk.size();
+    int cells = size / scale;
+    int[] offset = { chunk.x * size, chunk.y * size, chunk.z * size };
+
+    // Solid cubes of the chunk and a layer of the neighboring chunks' around it, entirely solid
+    // ones only.  Indexed by (x + 1) * paddedCells * paddedCells + (y + 1) * paddedCells + z + 1.
+    int paddedCells = cells + 2;
+    boolean[] solid = new boolean[paddedCells * paddedCells * paddedCells];
+    int fullCount = scale * scale * scale;
+    int halfCount = fullCount / 2;
+    for (int x = -1; x <= cells; ++x) {
+      for (int y = -1; y <= cells; ++y) {
+        for (int z = -1; z <= cells; ++z) {
+          int count = 0;
+          for (int dx = 0; dx < scale; ++dx) {
+            for (int dy = 0; dy < scale; ++dy) {
+              for (int dz = 0; dz < scale; ++dz) {
+                if (allBlocks.contains(new Block(offset[0] + x * scale + dx,
+                    offset[1] + y * scale + dy, offset[2] + z * scale + dz))) {
+                  ++count;
+                }
+              }
+            }
+          }
+          boolean inside = x >= 0 && x < cells && y >= 0 && y < cells && z >= 0 && z < cells;
+          solid[((x + 1) * paddedCells + y + 1) * paddedCells + z + 1] =
+              count >= (inside ? halfCount : fullCount);
+        }
+      }
+    }
+
+    int[] strides = { cells * cells, cells, 1 };
+    byte[] shownFaces = new byte[cells * cells * cells];
+    for (int x = 0; x < cells; ++x) {
+      for (int y = 0; y < cells; ++y) {
+        for (int z = 0; z < cells; ++z) {
+          int padded = ((x + 1) * paddedCells + y + 1) * paddedCells + z + 1;
+          if (!solid[padded]) {
+            continue;
+          }
+          int index = x * strides[0] + y * strides[1] + z * strides[2];
+          for (Face face : Face.values()) {
+            int neighbor = padded + (face.dx * paddedCells + face.dy) * paddedCells + face.dz;
+            if (!solid[neighbor]) {
+              shownFaces[index] |= 1 << face.ordinal();
+            }
+          }
+        }
+      }
+    }
+
+    builder.clear();
+    merge(shownFaces, cells, scale, builder);
+  }
+
+  /**
+   * Covers shown faces of a grid of cubes with as few quads as possible and adds them to the
+   * builder.  Bit i of a cube's shown faces is set if the face with ordinal i is shown, cubes are
+   * indexed by x * cells * cells + y * cells + z, and each cube is scale blocks per side.
+   */
+  private static void merge(byte[] shownFaces, int cells, int scale, VertexBuilder builder) {
+    int[] strides = { cells * cells, cells, 1 };
+    // Bit i of planeFaces[axis * cells + n] is set if a cube in plane n across the axis shows the
+    // face with ordinal i, so that planes without any are skipped.  Mostly empty chunks, e.g.
+    // previews, would otherwise cost a scan of all cubes per face.
+    byte[] planeFaces = new byte[3 * cells];
+    for (int x = 0; x < cells; ++x) {
+      for (int y = 0; y < cells; ++y) {
+        for (int z = 0; z < cells; ++z) {
+          byte faces = shownFaces[x * strides[0] + y * strides[1] + z * strides[2]];
+          if (faces != 0) {
+            planeFaces[x] |= faces;
+            planeFaces[cells + y] |= faces;
+            planeFaces[2 * cells + z] |= faces;
+          }
+        }
+      }
+    }
+
+    // Shown faces in a single plane, indexed by u * cells + v.
+    boolean[] mask = new boolean[cells * cells];
+    int[] min = new int[3];
+    int[] max = new int[3];
+    for (Face face : Face.values()) {
+      int bit = 1 << face.ordinal();
+      int normalAxis = face.normalAxis;
+      int uAxis = face.textureUAxis;
+      int vAxis = face.textureVAxis;
+      for (int n = 0; n < cells; ++n) {
+        if ((planeFaces[normalAxis * cells + n] & bit) == 0) {
+          continue;
+        }
+        // Collect shown faces in the plane.
+        boolean any = false;
+        for (int u = 0; u < cells; ++u) {
+          int index = n * strides[normalAxis] + u * strides[uAxis];
+          for (int v = 0; v < cells; ++v) {
+            boolean shown = (shownFaces[index + v * strides[vAxis]] & bit) != 0;
+            mask[u * cells + v] = shown;
+            any |= shown;
+          }
+        }
+        if (!any) {
+          continue;
+        }
+
+        // The face lies on the outer layer of blocks of the cubes.
+        boolean positive = face.dx + face.dy + face.dz > 0;
+        min[normalAxis] = max[normalAxis] = positive ? n * scale + scale - 1 : n * scale;
+        // Greedily cover them with rectangles: grow along u as far as possible, then along v
+        // while the whole row is shown.
+        for (int v = 0; v < cells; ++v) {
+          for (int u = 0; u < cells; ++u) {
+            if (!mask[u * cells + v]) {
+              continue;
+            }
+            int width = 1;
+            while (u + width < cells && mask[(u + width) * cells + v]) {
+              ++width;
+            }
+            int height = 1;
+            while (v + height < cells && rowShown(mask, cells, u, width, v + height)) {
+              ++height;
+            }
+            for (int du = 0; du < width; ++du) {
+              for (int dv = 0; dv < height; ++dv) {
+                mask[(u + du) * cells + v + dv] = false;
+              }
+            }
+
+            min[uAxis] = u * scale;
+            min[vAxis] = v * scale;
+            max[uAxis] = (u + width) * scale - 1;
+            max[vAxis] = (v + height) * scale - 1;
+            builder.addFace(face, min[0], min[1], min[2], max[0], max[1], max[2]);
+          }
+        }
+      }
+    }
+  }
+
+  private static boolean rowShown(boolean[] mask, int size, int u, int width, int v) {
+    for (int du = 0; du < width; ++du) {
+      if (!mask[(u + du) * size + v]) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
@@ -16,4 +16,12 @@ class Hitbox {
     this.maxY = maxY;
     this.maxZ = maxZ;
   }
+
+  /** Returns squared distance from the point to the nearest point of the box, 0 if inside. */
+  float distanceSquared(float x, float y, float z) {
+    float dx = Math.max(Math.max(minX - x, x - maxX), 0.0f);
+    float dy = Math.max(Math.max(minY - y, y - maxY), 0.0f);
+    float dz = Math.max(Math.max(minZ - z, z - maxZ), 0.0f);
+    return dx * dx + dy * dy + dz * dz;
+  }
 }
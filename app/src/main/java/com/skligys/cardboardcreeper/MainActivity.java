@@ -4,12 +4,13 @@ import android.app.Activity;
 import android.app.ActivityManager;
 import android.content.Context;
 import android.content.pm.ConfigurationInfo;
-import android.opengl.GLSurfaceView;
 import android.os.Bundle;
 import android.util.DisplayMetrics;
 
+import java.io.File;
+
 public class MainActivity extends Activity {
-  private GLSurfaceView view;
+  private MainView view;
 
   @Override
   protected void onCreate(Bundle savedInstanceState) {
@@ -20,7 +21,7 @@ public class MainActivity extends Activity {
     DisplayMetrics displayMetrics = new DisplayMetrics();
     getWindowManager().getDefaultDisplay().getMetrics(displayMetrics);
 
-    view = new MainView(this, displayMetrics.density);
+    view = new MainView(this, displayMetrics.density, chunkStoreDir());
     setContentView(view);
   }
 
@@ -36,6 +37,21 @@ public class MainActivity extends Activity {
     view.onResume();
   }
 
+  @Override
+  protected void onDestroy() {
+    view.stop();
+    super.onDestroy();
+  }
+
+  /**
+   * Pre-generated chunks are looked up in the app's external files directory, so they can be
+   * pushed there with adb.  Returns null if external storage is not available.
+   */
+  private File chunkStoreDir() {
+    File externalFilesDir = getExternalFilesDir(null);
+    return externalFilesDir != null ? new File(externalFilesDir, "chunks") : null;
+  }
+
   private void checkForOpenGlEs20Support() {
     ActivityManager activityManager = (ActivityManager) getSystemService(Context.ACTIVITY_SERVICE);
     ConfigurationInfo configurationInfo = activityManager.getDeviceConfigurationInfo();
@@ -5,25 +5,45 @@ import android.opengl.GLSurfaceView;
 import android.view.KeyEvent;
 import android.view.MotionEvent;
 
+import java.io.File;
+
 class MainView extends GLSurfaceView {
   private final float screenDensity;
   private final GlRenderer renderer;
   private float prevX;
   private float prevY;
 
-  public MainView(Context context, float screenDensity){
+  public MainView(Context context, float screenDensity, File chunkStoreDir){
     super(context);
 
     this.screenDensity = screenDensity;
     setEGLContextClientVersion(2);
 
-    this.renderer = new GlRenderer(this.getResources());
+    this.renderer = new GlRenderer(this.getResources(), chunkStoreDir);
     setRenderer(this.renderer);
 
     // To make sure we get key notifications while scrolling around by touch.
     setFocusableInTouchMode(true);
   }
 
+  // Called from UI thread and not queued, the GL thread stops with the view.
+  @Override
+  public void onPause() {
+    super.onPause();
+    renderer.pause();
+  }
+
+  @Override
+  public void onResume() {
+    super.onResume();
+    renderer.resume();
+  }
+
+  /** Stops background threads for good, called when the activity is destroyed. */
+  void stop() {
+    renderer.stop();
+  }
+
   @Override
   public boolean onTouchEvent(MotionEvent e) {
     float x = e.getX();
@@ -0,0 +1,66 @@
+package com.skligys.cardboardcreeper;
+
+import com.skligys.cardboardcreeper.model.Block;
+import com.skligys.cardboardcreeper.model.Chunk;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/** Builds meshes for chunks of blocks.  Pure Java, the results are uploaded by SquareMesh. */
+class MeshBuilder {
+  private MeshBuilder() {}  // No instantiation.
+
+  /** Returns blocks with at least one face not covered by another block in {@code allBlocks}. */
+  static List<Block> shownBlocks(List<Block> blocks, Set<Block> allBlocks) {
+    List<Block> result = new ArrayList<Block>();
+    if (blocks == null) {
+      return result;
+    }
+
+    for (Block block : blocks) {
+      if (exposed(block, allBlocks)) {
+        result.add(block);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Checks all 6 faces of the given block and returns true if at least one face is not covered
+   * by another block in {@code allBlocks}.
+   */
+  static boolean exposed(Block block, Set<Block> allBlocks) {
+    return !allBlocks.contains(new Block(block.x - 1, block.y, block.z)) ||
+        !allBlocks.contains(new Block(block.x + 1, block.y, block.z)) ||
+        !allBlocks.contains(new Block(block.x, block.y - 1, block.z)) ||
+        !allBlocks.contains(new Block(block.x, block.y + 1, block.z)) ||
+        !allBlocks.contains(new Block(block.x, block.y, block.z - 1)) ||
+        !allBlocks.contains(new Block(block.x, block.y, block.z + 1));
+  }
+
+  /**
+   * Assumes the blocks belong to the chunk.  Adds a quad for each face that is not covered by
+   * another block in {@code allBlocks} to the cleared builder.
+   */
+  static void build(Chunk chunk, List<Block> blocks, Set<Block> allBlocks,
+      VertexBuilder builder) {
+    builder.clear();
+    int xOffset = chunk.x * Chunk.size();
+    int yOffset = chunk.y * Chunk.size();
+    int zOffset = chunk.z * Chunk.size();
+    // Faces outermost, the builder needs them in order.
+    for (Face face : Face.values()) {
+      for (Block block : blocks) {
+        // Only add faces that are not between two blocks and thus invisible.
+        Block neighbor = new Block(block.x + face.dx, block.y + face.dy, block.z + face.dz);
+        if (!allBlocks.contains(neighbor)) {
+          int x = block.x - xOffset;
+          int y = block.y - yOffset;
+          int z = block.z - zOffset;
+          builder.addFace(face, x, y, z, x, y, z);
+        }
+      }
+    }
+  }
+}
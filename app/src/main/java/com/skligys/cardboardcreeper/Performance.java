@@ -1,7 +1,5 @@
 package com.skligys.cardboardcreeper;
 
-import android.os.SystemClock;
-
 class Performance {
   private static final long FPS_INTERVAL = 5 * 1000;  // 5 seconds
   static final float[] FPS_THRESHOLDS = { 10.0f, 20.0f, 30.0f, 40.0f, 50.0f, 60.0f };
@@ -14,28 +12,46 @@ class Performance {
   private float maxFps = 0.0f;
   private float[] fpsAboveThresholdCounts = new float[FPS_THRESHOLDS.length];
 
-  private long physicsStartTimestamp = 0L;
-  private long physicsSpent = 0L;
-
   private long renderStartTimestamp = 0L;
   private long renderSpent = 0L;
 
+  private long meshesDrawn = 0L;
+  private long meshesCulled = 0L;
+  private long meshesOccluded = 0L;
+  private long drawCalls = 0L;
+  private long quadsDrawn = 0L;
+
+  private final Object physicsTickLock = new Object();
+  private int physicsTickCount = 0;
+  private long physicsTickStartNanos = 0L;
+  private long physicsTickSpentNanos = 0L;
+
   private final Object chunkLoadLock = new Object();
   private int chunkLoadCount = 0;
   private long chunkLoadStartTimestamp = 0L;
   private long chunkLoadSpent = 0L;
 
+  private final Object chunkPreviewLock = new Object();
+  private int chunkPreviewCount = 0;
+  private long chunkPreviewStartTimestamp = 0L;
+  private long chunkPreviewSpent = 0L;
+
   private final Object chunkUnloadLock = new Object();
   private int chunkUnloadCount = 0;
   private long chunkUnloadTimestamp = 0L;
   private long chunkUnloadSpent = 0L;
 
+  /** Returns monotonic time in milliseconds, plain Java so frames can be timed off device. */
+  private static long now() {
+    return System.nanoTime() / 1000000L;
+  }
+
   /**
    * Returns interval in seconds since the last tick, if any.  If this is the first tick,
    * returns a negative number.  Updates internal data to compute FPS.
    */
   float startFrame() {
-    currFrameTimestamp = SystemClock.uptimeMillis();
+    currFrameTimestamp = now();
     if (prevFrameTimestamp < 0L) {
       prevFrameTimestamp = currFrameTimestamp;
       fpsStartTimestamp = currFrameTimestamp;
@@ -85,30 +101,55 @@ class Performance {
     return result;
   }
 
-  void startPhysics() {
-    physicsStartTimestamp = SystemClock.uptimeMillis();
+  void startRendering() {
+    renderStartTimestamp = now();
   }
 
-  void endPhysics() {
-    physicsSpent += SystemClock.uptimeMillis() - physicsStartTimestamp;
-    physicsStartTimestamp = 0L;
+  void endRendering() {
+    renderSpent += now() - renderStartTimestamp;
+    renderStartTimestamp = 0L;
   }
 
-  public int physicsSpent() {
-    return (int) (physicsSpent / frameCount);
+  public int renderSpent() {
+    return (int) (renderSpent / frameCount);
   }
 
-  void startRendering() {
-    renderStartTimestamp = SystemClock.uptimeMillis();
+  /**
+   * Adds counts of meshes drawn, culled and occluded, draw calls issued and quads drawn in the
+   * current frame.
+   */
+  void addDraws(int meshesDrawn, int meshesCulled, int meshesOccluded, int drawCalls,
+      int quadsDrawn) {
+    this.meshesDrawn += meshesDrawn;
+    this.meshesCulled += meshesCulled;
+    this.meshesOccluded += meshesOccluded;
+    this.drawCalls += drawCalls;
+    this.quadsDrawn += quadsDrawn;
   }
 
-  void endRendering() {
-    renderSpent += SystemClock.uptimeMillis() - renderStartTimestamp;
-    renderStartTimestamp = 0L;
+  /** Returns average meshes drawn per frame. */
+  public int meshesDrawn() {
+    return (int) (meshesDrawn / frameCount);
   }
 
-  public int renderSpent() {
-    return (int) (renderSpent / frameCount);
+  /** Returns average meshes culled per frame for being out of view. */
+  public int meshesCulled() {
+    return (int) (meshesCulled / frameCount);
+  }
+
+  /** Returns average meshes skipped per frame for being hidden behind terrain. */
+  public int meshesOccluded() {
+    return (int) (meshesOccluded / frameCount);
+  }
+
+  /** Returns average draw calls per frame. */
+  public int drawCalls() {
+    return (int) (drawCalls / frameCount);
+  }
+
+  /** Returns average quads drawn per frame. */
+  public int quadsDrawn() {
+    return (int) (quadsDrawn / frameCount);
   }
 
   void endFrame() {
@@ -122,25 +163,63 @@ class Performance {
       for (int i = 0; i < fpsAboveThresholdCounts.length; ++i) {
         fpsAboveThresholdCounts[i] = 0;
       }
-      physicsSpent = 0L;
       renderSpent = 0L;
+      meshesDrawn = 0L;
+      meshesCulled = 0L;
+      meshesOccluded = 0L;
+      drawCalls = 0L;
+      quadsDrawn = 0L;
+      synchronized (physicsTickLock) {
+        physicsTickCount = 0;
+        physicsTickSpentNanos = 0L;
+      }
       chunkLoadCount = 0;
       chunkLoadSpent = 0L;
+      chunkPreviewCount = 0;
+      chunkPreviewSpent = 0L;
       chunkUnloadCount = 0;
       chunkUnloadSpent = 0L;
     }
   }
 
+  /** Physics ticks take microseconds, so they are timed in nanoseconds. */
+  void startPhysicsTick() {
+    synchronized (physicsTickLock) {
+      physicsTickStartNanos = System.nanoTime();
+    }
+  }
+
+  void endPhysicsTick() {
+    synchronized (physicsTickLock) {
+      ++physicsTickCount;
+      physicsTickSpentNanos += System.nanoTime() - physicsTickStartNanos;
+      physicsTickStartNanos = 0L;
+    }
+  }
+
+  public int physicsTickCount() {
+    synchronized (physicsTickLock) {
+      return physicsTickCount;
+    }
+  }
+
+  /** Returns average microseconds per physics tick. */
+  public int physicsTickSpent() {
+    synchronized (physicsTickLock) {
+      return physicsTickCount != 0 ? (int) (physicsTickSpentNanos / physicsTickCount / 1000L) : 0;
+    }
+  }
+
   void startChunkLoad() {
     synchronized (chunkLoadLock) {
-      chunkLoadStartTimestamp = SystemClock.uptimeMillis();
+      chunkLoadStartTimestamp = now();
     }
   }
 
   void endChunkLoad() {
     synchronized (chunkLoadLock) {
       ++chunkLoadCount;
-      chunkLoadSpent += SystemClock.uptimeMillis() - chunkLoadStartTimestamp;
+      chunkLoadSpent += now() - chunkLoadStartTimestamp;
       chunkLoadStartTimestamp = 0L;
     }
   }
@@ -157,16 +236,42 @@ class Performance {
     }
   }
 
+  void startChunkPreview() {
+    synchronized (chunkPreviewLock) {
+      chunkPreviewStartTimestamp = now();
+    }
+  }
+
+  void endChunkPreview() {
+    synchronized (chunkPreviewLock) {
+      ++chunkPreviewCount;
+      chunkPreviewSpent += now() - chunkPreviewStartTimestamp;
+      chunkPreviewStartTimestamp = 0L;
+    }
+  }
+
+  public int chunkPreviewCount() {
+    synchronized (chunkPreviewLock) {
+      return chunkPreviewCount;
+    }
+  }
+
+  public int chunkPreviewSpent() {
+    synchronized (chunkPreviewLock) {
+      return chunkPreviewCount != 0 ? (int) (chunkPreviewSpent / chunkPreviewCount) : 0;
+    }
+  }
+
   void startChunkUnload() {
     synchronized (chunkUnloadLock) {
-      chunkUnloadTimestamp = SystemClock.uptimeMillis();
+      chunkUnloadTimestamp = now();
     }
   }
 
   void endChunkUnload() {
     synchronized (chunkUnloadLock) {
       ++chunkUnloadCount;
-      chunkUnloadSpent += SystemClock.uptimeMillis() - chunkUnloadTimestamp;
+      chunkUnloadSpent += now() - chunkUnloadTimestamp;
       chunkUnloadTimestamp = 0L;
     }
   }
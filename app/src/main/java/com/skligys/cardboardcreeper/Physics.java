@@ -1,184 +1,176 @@
 package com.skligys.cardboardcreeper;
 
-import android.util.Log;
-
-import com.skligys.cardboardcreeper.model.Block;
-import com.skligys.cardboardcreeper.model.Point3;
-
-import java.util.HashSet;
-import java.util.Set;
-
 class Physics {
-  private static final String TAG = "Physics";
-
   private static final float STEVE_WALKING_SPEED = 4.317f;  // m/s
   private static final float GRAVITY = 32.0f;  // m/s^2
   private static final float TERMINAL_VELOCITY = 78.4f; // m/s
   private static final float MAX_JUMP_HEIGHT = 1.252f;  // m
   private static final float JUMP_SPEED = Floats.sqrt(2.0f * GRAVITY * MAX_JUMP_HEIGHT);
 
-  /** Returns final adjusted position of Steve's eye. */
-  Point3 updateEyePosition(Steve steve, float dt, Set<Block> blocks) {
-    // Will get -1.0f on the first call, skip physics.
-    if (dt <= 0.0f) {
-      return steve.position();
-    }
-
-    // When dt is too large, will fall through the floor.  Think about doing several physics
-    // iterations per frame if this becomes a problem.
-    if (dt > 0.05f) {
-      Log.i(TAG, "Skipped physics, dt: " + dt);
-      return steve.position();
-    }
-
-    // Update Steve's vertical speed: speed up if falling until he hits the terminal velocity; slow
-    // down if jumping until he starts to fall.
-    float verticalSpeed = Math.max(steve.verticalSpeed() - dt * GRAVITY, -TERMINAL_VELOCITY);
-    Point3 dxyz = steve.motionVector().times(dt * STEVE_WALKING_SPEED).plusY(dt * verticalSpeed);
-
-    Point3 newPosition = steve.position().plus(dxyz);
-    PositionStopVertical adjusted = collisionAdjust(steve, newPosition, blocks);
-    steve.setPosition(adjusted.position);
-
-    verticalSpeed = adjusted.stopVertical ? 0.0f : verticalSpeed;
-    if (verticalSpeed == 0.0f && shouldJump(steve, newPosition, blocks)) {
-      verticalSpeed = JUMP_SPEED;
-    }
-    steve.setVerticalSpeed(verticalSpeed);
-
-    return steve.position();
-  }
+  /**
+   * Faces closer than this are touching rather than overlapping, so sliding along a wall or floor
+   * does not catch on it.  Also lets through blocks overlapping by less, which float rounding of
+   * a position resting against them may cause.
+   */
+  private static final float EPSILON = 1e-3f;
 
-  private static class PositionStopVertical {
-    private final Point3 position;
-    /** Immediately stop falling or rising. */
-    private final boolean stopVertical;
+  private static final int X = 0;
+  private static final int Y = 1;
+  private static final int Z = 2;
 
-    PositionStopVertical(Point3 position, boolean stopVertical) {
-      this.position = position;
-      this.stopVertical = stopVertical;
-    }
-  }
+  // Scratch state of the current step, so that steps allocate nothing.  Use an instance per
+  // thread.
+  // The hitbox being moved, indexed by axis.
+  private final float[] min = new float[3];
+  private final float[] max = new float[3];
+  // Coordinates of a probed block.
+  private final int[] block = new int[3];
 
   /**
-   * Checks the player's eye position for collisions with any blocks in the world, each block pushes
-   * the position out.  This may not free the player if he is stuck between blocks.
+   * Moves Steve's eye by a step of {@code dt} seconds, sweeping his hitbox through the blocks
+   * along each axis in turn and stopping it where it first touches one.  Nothing is skipped
+   * however far the step goes, so any dt works in a single step.
    */
-  private PositionStopVertical collisionAdjust(Steve steve, Point3 eyePosition, Set<Block> blocks) {
-    Set<Block> collidingBlocks = new HashSet<Block>();
-    for (Block block : steve.hitboxCornerBlocks(eyePosition)) {
-      if (blocks.contains(block)) {
-        collidingBlocks.add(block);
-      }
-    }
-    if (collidingBlocks.isEmpty()) {
-      return new PositionStopVertical(eyePosition, false);
+  void updateEyePosition(Steve steve, float dt, SolidBlocks blocks) {
+    if (dt <= 0.0f) {
+      return;
     }
 
-    boolean stopVertical = false;
-    for (Block collidingBlock : collidingBlocks) {
-      PositionStopVertical adjusted = pushOut(steve, collidingBlock, eyePosition);
-      eyePosition = adjusted.position;
-      stopVertical |= adjusted.stopVertical;
-    }
-    return new PositionStopVertical(eyePosition, stopVertical);
+    float walked = dt * STEVE_WALKING_SPEED;
+    float verticalSpeed = move(steve.positionX(), steve.positionY() - Steve.EYE_LEVEL,
+        steve.positionZ(), Steve.HITBOX_WIDTH, Steve.HITBOX_HEIGHT, walked * steve.motionX(),
+        walked * steve.motionZ(), steve.verticalSpeed(), dt, blocks);
+    steve.setPosition(x(), y() + Steve.EYE_LEVEL, z());
+    steve.setVerticalSpeed(verticalSpeed);
   }
 
   /**
-   * The non-pushed out dimensions have to overlap at least this much for the pushing out to
-   * happen.  This is done to prevent Steve hitting a block's corner and then getting pushed
-   * sideways into the neighboring block.  Push-outs should be always perpendicular to the face
-   * being hit, across many blocks.
+   * Moves an upright hitbox of given size, whose bottom is centered at x, y, z, for a step of
+   * {@code dt} seconds: by dx, dz sideways, and falling or rising with given vertical speed.
+   * The hitbox is swept as for Steve, and ends up at {@link #x}, {@link #y}, {@link #z}.  Returns
+   * the vertical speed to continue with.
    */
-  private static final float OVERLAP_THRESHOLD = 0.25f;
-
-  private PositionStopVertical pushOut(Steve steve, Block block, Point3 eyePosition) {
-    Hitbox hit = steve.hitbox(eyePosition);
-
-    float overlapX = Math.min(block.x + 0.5f, hit.maxX) - Math.max(block.x - 0.5f, hit.minX);
-    if (overlapX < 0.0f) {
-      overlapX = 0.0f;
-    }
-
-    float overlapY = Math.min(block.y + 0.5f, hit.maxY) - Math.max(block.y - 0.5f, hit.minY);
-    if (overlapY < 0.0f) {
-      overlapY = 0.0f;
+  float move(float x, float y, float z, float width, float height, float dx, float dz,
+      float verticalSpeed, float dt, SolidBlocks blocks) {
+    // Speed up if falling until hitting the terminal velocity; slow down if jumping until
+    // starting to fall.
+    verticalSpeed = Math.max(verticalSpeed - dt * GRAVITY, -TERMINAL_VELOCITY);
+    float dy = dt * verticalSpeed;
+
+    min[X] = x - width / 2.0f;
+    max[X] = min[X] + width;
+    min[Y] = y;
+    max[Y] = min[Y] + height;
+    min[Z] = z - width / 2.0f;
+    max[Z] = min[Z] + width;
+    // All blocks the sweeps and the auto-jump check may probe, a block further for rounding.
+    blocks.cover(blockAt(min[X] + Math.min(dx, 0.0f)) - 1, blockAt(min[Y] + Math.min(dy, 0.0f)) - 1,
+        blockAt(min[Z] + Math.min(dz, 0.0f)) - 1, blockAt(max[X] + Math.max(dx, 0.0f)) + 1,
+        blockAt(max[Y] + Math.max(dy, 0.0f)) + 1, blockAt(max[Z] + Math.max(dz, 0.0f)) + 1);
+    // Vertical first, so walking sees where the feet ended up.
+    float movedY = sweep(Y, dy, blocks);
+    float movedX = sweep(X, dx, blocks);
+    float movedZ = sweep(Z, dz, blocks);
+
+    // If collided with ground or ceiling, immediately stop falling or rising.
+    verticalSpeed = movedY != dy ? 0.0f : verticalSpeed;
+    if (verticalSpeed == 0.0f && (movedX != dx || movedZ != dz) &&
+        shouldJump(dx - movedX, dz - movedZ, blocks)) {
+      verticalSpeed = JUMP_SPEED;
     }
+    return verticalSpeed;
+  }
 
-    float overlapZ = Math.min(block.z + 0.5f, hit.maxZ) - Math.max(block.z - 0.5f, hit.minZ);
-    if (overlapZ < 0.0f) {
-      overlapZ = 0.0f;
-    }
+  /** Returns where the last moved hitbox ended up, the center of its bottom. */
+  float x() {
+    return 0.5f * (min[X] + max[X]);
+  }
 
-    // Push out the smallest overlap, if the others are above a threshold.
-    boolean stopVertical = false;
-    if (overlapX <= overlapY && overlapX <= overlapZ) {
-      if (overlapX > 0.0f && overlapY >= OVERLAP_THRESHOLD && overlapZ >= OVERLAP_THRESHOLD) {
-        eyePosition = pushOutX(block, eyePosition, hit.minX, hit.maxX);
-      }
-    } else if (overlapY <= overlapX && overlapY <= overlapZ) {
-      if (overlapY > 0.0f && overlapX >= OVERLAP_THRESHOLD && overlapZ >= OVERLAP_THRESHOLD) {
-        eyePosition = pushOutY(block, eyePosition, hit.minY, hit.maxY);
-        // If collided with ground or ceiling, immediately stop falling or rising.
-        stopVertical = true;
-      }
-    } else {  // overlapZ <= overlapX && overlapZ <= overlapY
-      if (overlapZ > 0.0f && overlapX >= OVERLAP_THRESHOLD && overlapY >= OVERLAP_THRESHOLD) {
-        eyePosition = pushOutZ(block, eyePosition, hit.minZ, hit.maxZ);
-      }
-    }
+  float y() {
+    return min[Y];
+  }
 
-    return new PositionStopVertical(eyePosition, stopVertical);
+  float z() {
+    return 0.5f * (min[Z] + max[Z]);
   }
 
-  private Point3 pushOutX(Block block, Point3 p, float min, float max) {
-    float mid = 0.5f * (min + max);
-    if (mid < block.x) {
-      float overlap = max - (block.x - 0.5f);
-      return new Point3(p.x - overlap, p.y, p.z);
-    } else {
-      float overlap = (block.x + 0.5f) - min;
-      return new Point3(p.x + overlap, p.y, p.z);
+  /**
+   * Moves the hitbox by up to {@code distance} along the axis, until its leading face touches a
+   * block.  Block layers ahead are checked nearest first, each over the cross section of the
+   * hitbox.  Returns the distance moved, exactly {@code distance} if nothing was hit.
+   */
+  private float sweep(int axis, float distance, SolidBlocks blocks) {
+    float moved = distance;
+    if (distance > 0.0f) {
+      float face = max[axis];
+      // Blocks span layer - 0.5 to layer + 0.5.
+      int last = (int) Math.floor(face + distance + 0.5f);
+      for (int layer = (int) Math.ceil(face + 0.5f - EPSILON); layer <= last; ++layer) {
+        if (blocked(axis, layer, blocks)) {
+          moved = Math.max(layer - 0.5f - face, 0.0f);
+          break;
+        }
+      }
+    } else if (distance < 0.0f) {
+      float face = min[axis];
+      int last = (int) Math.ceil(face + distance - 0.5f);
+      for (int layer = (int) Math.floor(face - 0.5f + EPSILON); layer >= last; --layer) {
+        if (blocked(axis, layer, blocks)) {
+          moved = Math.min(layer + 0.5f - face, 0.0f);
+          break;
+        }
+      }
     }
+    min[axis] += moved;
+    max[axis] += moved;
+    return moved;
   }
 
-  private Point3 pushOutY(Block block, Point3 p, float min, float max) {
-    float mid = 0.5f * (min + max);
-    if (mid < block.y) {
-      float overlap = max - (block.y - 0.5f);
-      return new Point3(p.x, p.y - overlap, p.z);
-    } else {
-      float overlap = (block.y + 0.5f) - min;
-      return new Point3(p.x, p.y + overlap, p.z);
+  /** Returns whether any block in the layer overlaps the hitbox's cross section across the axis. */
+  private boolean blocked(int axis, int layer, SolidBlocks blocks) {
+    int axis1 = (axis + 1) % 3;
+    int axis2 = (axis + 2) % 3;
+    int last1 = blockAt(max[axis1] - EPSILON);
+    int last2 = blockAt(max[axis2] - EPSILON);
+    block[axis] = layer;
+    for (block[axis1] = blockAt(min[axis1] + EPSILON); block[axis1] <= last1; ++block[axis1]) {
+      for (block[axis2] = blockAt(min[axis2] + EPSILON); block[axis2] <= last2; ++block[axis2]) {
+        if (blocks.contains(block[X], block[Y], block[Z])) {
+          return true;
+        }
+      }
     }
+    return false;
   }
 
-  private Point3 pushOutZ(Block block, Point3 p, float min, float max) {
-    float mid = 0.5f * (min + max);
-    if (mid < block.z) {
-      float overlap = max - (block.z - 0.5f);
-      return new Point3(p.x, p.y, p.z - overlap);
-    } else {
-      float overlap = (block.z + 0.5f) - min;
-      return new Point3(p.x, p.y, p.z + overlap);
-    }
+  /** Returns the coordinate of blocks containing the coordinate. */
+  private static int blockAt(float coordinate) {
+    return Math.round(coordinate);
   }
 
   /**
-   * Test if Steve hit his knees on a step, i.e. knees collided with a block but head didn't.
-   * If so, auto-jump.
+   * Test if the hitbox hit its knees on a step, i.e. knees collided with a block but head didn't,
+   * where it would have been without the blocked horizontal movement.  If so, auto-jump.
    */
-  private boolean shouldJump(Steve steve, Point3 eyePosition, Set<Block> blocks) {
-    return intersects(steve.kneeBlocks(eyePosition), blocks) &&
-        !intersects(steve.headBlocks(eyePosition), blocks);
+  private boolean shouldJump(float blockedX, float blockedZ, SolidBlocks blocks) {
+    float kneeY = 0.5f * (min[Y] + max[Y]);
+    return anyCornerIn(kneeY, blockedX, blockedZ, blocks) &&
+        !anyCornerIn(max[Y], blockedX, blockedZ, blocks);
   }
 
-  private static <T> boolean intersects(Set<T> smallSet, Set<T> largeSet) {
-    for (T el : smallSet) {
-      if (largeSet.contains(el)) {
-        return true;
-      }
-    }
-    return false;
+  /**
+   * Returns whether any of the 4 hitbox corners around given height, moved by given horizontal
+   * offsets, is in a block.
+   */
+  private boolean anyCornerIn(float cornerY, float offsetX, float offsetZ, SolidBlocks blocks) {
+    int blockY = blockAt(cornerY);
+    int minBlockX = blockAt(min[X] + offsetX);
+    int maxBlockX = blockAt(max[X] + offsetX);
+    int minBlockZ = blockAt(min[Z] + offsetZ);
+    int maxBlockZ = blockAt(max[Z] + offsetZ);
+    return blocks.contains(minBlockX, blockY, minBlockZ) ||
+        blocks.contains(maxBlockX, blockY, minBlockZ) ||
+        blocks.contains(minBlockX, blockY, maxBlockZ) ||
+        blocks.contains(maxBlockX, blockY, maxBlockZ);
   }
 }
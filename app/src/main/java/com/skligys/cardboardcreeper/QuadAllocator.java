@@ -0,0 +1,65 @@
+package com.skligys.cardboardcreeper;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Hands out ranges of quads within a vertex buffer shared by many chunk meshes.  First fit, and
+ * freed ranges merge with free neighbors, so a changed chunk mesh no larger than before usually
+ * gets its old range back and is replaced in place.  Pure Java.
+ */
+class QuadAllocator {
+  private final int capacity;
+  /** Free ranges, first quad to quad count.  Never adjacent, they get merged. */
+  private final TreeMap<Integer, Integer> freeRanges = new TreeMap<Integer, Integer>();
+  private int allocatedQuads = 0;
+
+  QuadAllocator(int capacity) {
+    this.capacity = capacity;
+    freeRanges.put(0, capacity);
+  }
+
+  int capacity() {
+    return capacity;
+  }
+
+  int allocatedQuads() {
+    return allocatedQuads;
+  }
+
+  /** Returns the first quad of a newly allocated range of given length, or -1 if none fits. */
+  int allocate(int quads) {
+    for (Map.Entry<Integer, Integer> entry : freeRanges.entrySet()) {
+      int start = entry.getKey();
+      int length = entry.getValue();
+      if (length >= quads) {
+        freeRanges.remove(start);
+        if (length > quads) {
+          freeRanges.put(start + quads, length - quads);
+        }
+        allocatedQuads += quads;
+        return start;
+      }
+    }
+    return -1;
+  }
+
+  /** Gives back a range from {@link #allocate}. */
+  void free(int start, int quads) {
+    int end = start + quads;
+    if (start < 0 || end > capacity) {
+      Exceptions.failIllegalArgument("Quads %d-%d outside of 0-%d", start, end, capacity);
+    }
+    Map.Entry<Integer, Integer> before = freeRanges.lowerEntry(start);
+    if (before != null && before.getKey() + before.getValue() == start) {
+      start = before.getKey();
+      freeRanges.remove(start);
+    }
+    Integer afterLength = freeRanges.remove(end);
+    if (afterLength != null) {
+      end += afterLength;
+    }
+    freeRanges.put(start, end - start);
+    allocatedQuads -= quads;
+  }
+}
@@ -0,0 +1,47 @@
+package com.skligys.cardboardcreeper;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.ShortBuffer;
+
+/**
+ * Index buffer shared by all chunk meshes.  Each quad is 4 consecutive vertices drawn as the same
+ * 2 triangles, so indices only depend on the quad's position in the mesh and a single buffer
+ * sized for the largest mesh serves all of them.
+ */
+class QuadIndices {
+  private QuadIndices() {}  // No instantiation.
+
+  private static final int MAX_UNSIGNED_SHORT = 65535;
+  /** Most quads a mesh can have while indexing its vertices with unsigned shorts. */
+  static final int MAX_QUADS = (MAX_UNSIGNED_SHORT + 1) / 4;
+  static final int INDICES_PER_QUAD = Face.DRAW_LIST_IDXS.length;
+  /** Bytes per index, unsigned short. */
+  static final int INDEX_SIZE = 2;
+
+  private static final ShortBuffer buffer = createBuffer();
+
+  private static ShortBuffer createBuffer() {
+    ShortBuffer result = ByteBuffer.allocateDirect(INDEX_SIZE * MAX_QUADS * INDICES_PER_QUAD)
+        .order(ByteOrder.nativeOrder())
+        .asShortBuffer();
+    for (int quad = 0; quad < MAX_QUADS; ++quad) {
+      for (short index : Face.DRAW_LIST_IDXS) {
+        // Overflowing signed short into unsigned short is fine, GL reads them as unsigned.
+        result.put((short) (4 * quad + index));
+      }
+    }
+    result.position(0);
+    return result;
+  }
+
+  /** Returns the shared buffer positioned at 0.  Must not be modified. */
+  static ShortBuffer buffer() {
+    return buffer;
+  }
+
+  /** Returns the number of indices to draw a mesh with given number of quads. */
+  static int indexCount(int quadCount) {
+    return quadCount * INDICES_PER_QUAD;
+  }
+}
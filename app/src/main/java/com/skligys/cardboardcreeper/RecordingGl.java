@@ -0,0 +1,251 @@
+package com.skligys.cardboardcreeper;
+
+import android.opengl.GLES20;
+
+import java.nio.ByteBuffer;
+import java.nio.ShortBuffer;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * {@link Gl} without a GPU: hands out names, keeps track of bound objects and buffer sizes, and
+ * counts what a frame submits.  Buffer updates and draws outside of their buffers, and deleting
+ * unknown buffers, throw.  Lets rendering run and be measured on a plain JVM, GLES20 is only used
+ * for its constants.  Counts accumulate until {@link #reset}.
+ */
+class RecordingGl implements Gl {
+  private int nextName = 1;
+  /** Size in bytes of each live buffer object by name. */
+  private final Map<Integer, Integer> bufferSizes = new HashMap<Integer, Integer>();
+  private int bufferBytes = 0;
+
+  // Bound objects, 0 if none.
+  private int program = 0;
+  private int arrayBuffer = 0;
+  private int elementArrayBuffer = 0;
+  private int texture = 0;
+
+  private int drawCalls = 0;
+  private long indicesDrawn = 0L;
+  private int stateChanges = 0;
+  /** State changes which set what was already set. */
+  private int redundantStateChanges = 0;
+  private int bufferUploads = 0;
+  /** Buffer data and uniform values. */
+  private long bytesSubmitted = 0L;
+
+  /** Zeroes counts, live buffers and bound objects stay. */
+  void reset() {
+    drawCalls = 0;
+    indicesDrawn = 0L;
+    stateChanges = 0;
+    redundantStateChanges = 0;
+    bufferUploads = 0;
+    bytesSubmitted = 0L;
+  }
+
+  int drawCalls() {
+    return drawCalls;
+  }
+
+  long indicesDrawn() {
+    return indicesDrawn;
+  }
+
+  int stateChanges() {
+    return stateChanges;
+  }
+
+  int redundantStateChanges() {
+    return redundantStateChanges;
+  }
+
+  int bufferUploads() {
+    return bufferUploads;
+  }
+
+  long bytesSubmitted() {
+    return bytesSubmitted;
+  }
+
+  /** Returns the number of live buffer objects. */
+  int bufferCount() {
+    return bufferSizes.size();
+  }
+
+  /** Returns total size of live buffer objects in bytes. */
+  int bufferBytes() {
+    return bufferBytes;
+  }
+
+  @Override public int createVertexBuffer(int size) {
+    return createBuffer(size);
+  }
+
+  @Override public void updateVertexBuffer(int name, int offset, ByteBuffer vertices) {
+    int size = bufferSize(name);
+    if (offset < 0 || offset + vertices.remaining() > size) {
+      Exceptions.failIllegalArgument("Bytes %d-%d outside of buffer %d of %d bytes", offset,
+          offset + vertices.remaining(), name, size);
+    }
+    upload(vertices.remaining());
+  }
+
+  @Override public int createIndexBuffer(ShortBuffer indices) {
+    int name = createBuffer(2 * indices.remaining());
+    upload(2 * indices.remaining());
+    return name;
+  }
+
+  private int createBuffer(int size) {
+    int name = nextName++;
+    bufferSizes.put(name, size);
+    bufferBytes += size;
+    return name;
+  }
+
+  private void upload(int bytes) {
+    ++bufferUploads;
+    bytesSubmitted += bytes;
+  }
+
+  private int bufferSize(int name) {
+    Integer size = bufferSizes.get(name);
+    if (size == null) {
+      Exceptions.failIllegalArgument("Unknown buffer %d", name);
+    }
+    return size;
+  }
+
+  @Override public void deleteBuffer(int name) {
+    bufferBytes -= bufferSize(name);
+    bufferSizes.remove(name);
+    if (arrayBuffer == name) {
+      arrayBuffer = 0;
+    }
+    if (elementArrayBuffer == name) {
+      elementArrayBuffer = 0;
+    }
+  }
+
+  @Override public int linkProgram(String vertexShaderGlsl, String fragmentShaderGlsl) {
+    return nextName++;
+  }
+
+  @Override public void useProgram(int program) {
+    stateChange(this.program == program);
+    this.program = program;
+  }
+
+  @Override public int getUniformLocation(int program, String name) {
+    return nextName++;
+  }
+
+  @Override public int getAttribLocation(int program, String name) {
+    return nextName++;
+  }
+
+  @Override public void enableVertexAttribArray(int index) {
+    stateChange(false);
+  }
+
+  @Override public void vertexAttribPointer(int index, int size, int type, boolean normalized,
+      int stride, int offset) {
+    if (arrayBuffer == 0) {
+      Exceptions.fail("Attribute %d pointer without an array buffer bound", index);
+    }
+    stateChange(false);
+  }
+
+  @Override public void uniform1i(int location, int x) {
+    uniform(4);
+  }
+
+  @Override public void uniform2fv(int location, int count, float[] v, int offset) {
+    uniform(4 * 2 * count);
+  }
+
+  @Override public void uniform3f(int location, float x, float y, float z) {
+    uniform(4 * 3);
+  }
+
+  @Override public void uniformMatrix4fv(int location, int count, boolean transpose,
+      float[] value, int offset) {
+    uniform(4 * 16 * count);
+  }
+
+  private void uniform(int bytes) {
+    stateChange(false);
+    bytesSubmitted += bytes;
+  }
+
+  @Override public void activeTexture(int texture) {
+    stateChange(false);
+  }
+
+  @Override public void bindTexture(int target, int texture) {
+    stateChange(this.texture == texture);
+    this.texture = texture;
+  }
+
+  @Override public void bindBuffer(int target, int buffer) {
+    if (buffer != 0) {
+      bufferSize(buffer);
+    }
+    if (target == GLES20.GL_ARRAY_BUFFER) {
+      stateChange(arrayBuffer == buffer);
+      arrayBuffer = buffer;
+    } else {
+      stateChange(elementArrayBuffer == buffer);
+      elementArrayBuffer = buffer;
+    }
+  }
+
+  @Override public void drawElements(int mode, int count, int type, int offset) {
+    if (elementArrayBuffer == 0) {
+      Exceptions.fail("Drawing without an element array buffer bound");
+    }
+    int indexSize = type == GLES20.GL_UNSIGNED_SHORT ? 2 : 1;
+    int size = bufferSize(elementArrayBuffer);
+    if (offset < 0 || offset + indexSize * count > size) {
+      Exceptions.failIllegalArgument("Indices at bytes %d-%d outside of %d byte buffer", offset,
+          offset + indexSize * count, size);
+    }
+    ++drawCalls;
+    indicesDrawn += count;
+  }
+
+  @Override public void viewport(int x, int y, int width, int height) {
+    stateChange(false);
+  }
+
+  @Override public void clearColor(float red, float green, float blue, float alpha) {
+    stateChange(false);
+  }
+
+  @Override public void clear(int mask) {
+  }
+
+  @Override public void enable(int capability) {
+    stateChange(false);
+  }
+
+  @Override public void depthFunc(int func) {
+    stateChange(false);
+  }
+
+  @Override public void frontFace(int mode) {
+    stateChange(false);
+  }
+
+  @Override public void cullFace(int mode) {
+    stateChange(false);
+  }
+
+  private void stateChange(boolean redundant) {
+    ++stateChanges;
+    if (redundant) {
+      ++redundantStateChanges;
+    }
+  }
+}
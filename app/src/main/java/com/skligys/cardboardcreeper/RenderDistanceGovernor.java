@@ -0,0 +1,116 @@
+package com.skligys.cardboardcreeper;
+
+/**
+ * Picks how far around Steve chunks are loaded and drawn, to hold a frame time budget.  Frames
+ * are judged in windows of {@link #WINDOW_FRAMES}.  Two windows in a row whose frames come slower
+ * than the budget on average shrink the distance by a step, a single one may be a hitch from
+ * uploading a burst of chunks.  Growing needs several windows in a row on budget, with no chunks
+ * waiting to load, and with the work done per frame small enough to still fit the budget after a
+ * step, assuming work grows with the area shown.  Work excludes waiting for vsync, which hides any
+ * headroom from frame times alone.  The gap between the two thresholds keeps the distance from
+ * flapping between steps.  Pure Java, only used from the GL thread.
+ */
+class RenderDistanceGovernor {
+  /** Frames per decision, half a second at 60 FPS. */
+  static final int WINDOW_FRAMES = 30;
+  /** Windows in a row which must be over budget before a step down. */
+  static final int SHRINK_WINDOWS = 2;
+  /** Windows in a row which must allow growing before a step up. */
+  static final int GROW_WINDOWS = 4;
+  /** Frames may average this much above the budget before shrinking, to ride out jitter. */
+  private static final float SHRINK_SLACK = 1.1f;
+  /** Work predicted after growing must fit this fraction of the budget. */
+  private static final float GROW_HEADROOM = 0.8f;
+
+  private final float targetFrameSeconds;
+  private final int minDistance;
+  private final int maxDistance;
+  private final int step;
+  private int distance;
+
+  // Sums over the current window.
+  private int frames = 0;
+  private float frameSeconds = 0.0f;
+  private float workSeconds = 0.0f;
+  private boolean backlog = false;
+  // Windows in a row over budget, and which allowed growing.
+  private int shrinkWindows = 0;
+  private int growWindows = 0;
+
+  /**
+   * Distances are in blocks, from {@code minDistance} to {@code maxDistance} in steps of
+   * {@code step}, starting at {@code initialDistance}.
+   */
+  RenderDistanceGovernor(float targetFrameSeconds, int minDistance, int maxDistance, int step,
+      int initialDistance) {
+    if (minDistance > initialDistance || initialDistance > maxDistance || step <= 0) {
+      Exceptions.failIllegalArgument("Bad render distances %d <= %d <= %d by %d", minDistance,
+          initialDistance, maxDistance, step);
+    }
+    this.targetFrameSeconds = targetFrameSeconds;
+    this.minDistance = minDistance;
+    this.maxDistance = maxDistance;
+    this.step = step;
+    this.distance = initialDistance;
+  }
+
+  /** Returns the distance in blocks to load and draw chunks within. */
+  int distance() {
+    return distance;
+  }
+
+  /**
+   * Records a frame which took {@code frameSeconds} since the previous one, of which
+   * {@code workSeconds} were spent working rather than waiting, with {@code chunkBacklog} chunk
+   * changes still queued.  Returns true if the distance changed.  Frames without a previous one
+   * have negative frame seconds and are ignored.
+   */
+  boolean addFrame(float frameSeconds, float workSeconds, int chunkBacklog) {
+    if (frameSeconds < 0.0f) {
+      return false;
+    }
+    ++frames;
+    this.frameSeconds += frameSeconds;
+    this.workSeconds += workSeconds;
+    backlog |= chunkBacklog > 0;
+    if (frames < WINDOW_FRAMES) {
+      return false;
+    }
+
+    float averageFrame = this.frameSeconds / frames;
+    float averageWork = this.workSeconds / frames;
+    boolean waiting = backlog;
+    frames = 0;
+    this.frameSeconds = 0.0f;
+    this.workSeconds = 0.0f;
+    backlog = false;
+
+    if (averageFrame > targetFrameSeconds * SHRINK_SLACK) {
+      growWindows = 0;
+      if (++shrinkWindows < SHRINK_WINDOWS) {
+        return false;
+      }
+      shrinkWindows = 0;
+      return setDistance(distance - step);
+    }
+    shrinkWindows = 0;
+    float grownRatio = (float) (distance + step) / distance;
+    boolean canGrow =
+        !waiting && averageWork * grownRatio * grownRatio <= targetFrameSeconds * GROW_HEADROOM;
+    growWindows = canGrow ? growWindows + 1 : 0;
+    if (growWindows < GROW_WINDOWS) {
+      return false;
+    }
+    growWindows = 0;
+    return setDistance(distance + step);
+  }
+
+  private boolean setDistance(int newDistance) {
+    newDistance = Math.max(minDistance, Math.min(maxDistance, newDistance));
+    if (newDistance == distance) {
+      return false;
+    }
+    distance = newDistance;
+    return true;
+  }
+}
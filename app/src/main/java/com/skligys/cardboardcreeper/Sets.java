@@ -0,0 +1,15 @@
+package com.skligys.cardboardcreeper;
+
+import java.util.HashSet;
+import java.util.Set;
+
+class Sets {
+  private Sets() {}  // No instantiation.
+
+  /** Returns a new set with elements of {@code s1} which are not in {@code s2}. */
+  static <T> Set<T> difference(Set<T> s1, Set<T> s2) {
+    Set<T> result = new HashSet<T>(s1);
+    result.removeAll(s2);
+    return result;
+  }
+}
@@ -0,0 +1,221 @@
+package com.skligys.cardboardcreeper;
+
+/**
+ * Steps Steve's physics and the creepers at a fixed rate on its own thread, so results do not
+ * depend on the frame rate and frames only pay for rendering.  Each tick publishes a snapshot of
+ * Steve's eye, and frames draw it interpolated between the last two snapshots, a tick behind the
+ * latest one.  Input from other threads is applied at the next tick.
+ */
+class Simulation {
+  static final int TICKS_PER_SECOND = 60;
+  static final float TICK_SECONDS = 1.0f / TICKS_PER_SECOND;
+  static final long TICK_NANOS = 1000000000L / TICKS_PER_SECOND;
+  /**
+   * Ticks to catch up at most after falling behind, e.g. while the process was starved.  Older
+   * ones are dropped, Steve slows down rather than jumps.
+   */
+  private static final int MAX_CATCH_UP_TICKS = 12;
+
+  /** Steve's eye at a tick. */
+  private static class Snapshot {
+    private long nanos;
+    private float x;
+    private float y;
+    private float z;
+    private float rotationX;
+    private float rotationY;
+
+    void set(long nanos, Steve steve) {
+      this.nanos = nanos;
+      x = steve.positionX();
+      y = steve.positionY();
+      z = steve.positionZ();
+      rotationX = steve.rotationX();
+      rotationY = steve.rotationY();
+    }
+  }
+
+  /** Only accessed from the ticking thread once started. */
+  private final Steve steve;
+  private final Physics physics = new Physics();
+  private final CollisionCache blocks;
+  private final Creepers creepers;
+  private final Performance performance;
+
+  private final Object inputLock = new Object();
+  // Input since the last tick, guarded by inputLock.
+  private float dragX = 0.0f;
+  private float dragY = 0.0f;
+  private boolean walking = false;
+
+  private final Object snapshotLock = new Object();
+  // Snapshots of the last two ticks, guarded by snapshotLock.
+  private Snapshot previous = new Snapshot();
+  private Snapshot current = new Snapshot();
+
+  private final Object pauseLock = new Object();
+  // Guarded by pauseLock.
+  private boolean paused = false;
+  private boolean stopped = false;
+  private Thread thread = null;
+
+  /**
+   * {@code blocks} and {@code creepers} are only used from the ticking thread.  {@code creepers}
+   * may be null for none.
+   */
+  Simulation(Steve steve, CollisionCache blocks, Creepers creepers, Performance performance) {
+    this.steve = steve;
+    this.blocks = blocks;
+    this.creepers = creepers;
+    this.performance = performance;
+    previous.set(0L, steve);
+    current.set(0L, steve);
+  }
+
+  /** Starts ticking in the background, until stopped. */
+  void start() {
+    synchronized(pauseLock) {
+      thread = new Thread(new Runnable() {
+        @Override public void run() {
+          runTicks();
+          if (creepers != null) {
+            creepers.shutdown();
+          }
+        }
+      }, "simulation");
+      // Do not keep the process alive if never stopped.
+      thread.setDaemon(true);
+      thread.start();
+    }
+  }
+
+  /** Stops ticking for good, e.g. when the app is destroyed. */
+  void stop() {
+    synchronized(pauseLock) {
+      stopped = true;
+      pauseLock.notifyAll();
+      if (thread != null) {
+        thread.interrupt();
+      }
+    }
+  }
+
+  /**
+   * Stops ticking until resumed, time passing meanwhile is skipped.  The creepers' threads stop
+   * meanwhile too.
+   */
+  void pause() {
+    synchronized(pauseLock) {
+      paused = true;
+    }
+  }
+
+  void resume() {
+    synchronized(pauseLock) {
+      paused = false;
+      pauseLock.notifyAll();
+    }
+  }
+
+  void drag(float dx, float dy) {
+    synchronized(inputLock) {
+      dragX += dx;
+      dragY += dy;
+    }
+  }
+
+  void walk(boolean start) {
+    synchronized(inputLock) {
+      walking = start;
+    }
+  }
+
+  /** Returns when stopped. */
+  private void runTicks() {
+    long nextTick = System.nanoTime();
+    while (true) {
+      synchronized(pauseLock) {
+        if (paused && !stopped) {
+          if (creepers != null) {
+            creepers.shutdown();
+          }
+          while (paused && !stopped) {
+            try {
+              pauseLock.wait();
+            } catch (InterruptedException e) {
+              // Only interrupted when stopped.
+            }
+          }
+          nextTick = System.nanoTime();
+        }
+        if (stopped) {
+          return;
+        }
+      }
+
+      long now = System.nanoTime();
+      if (now - nextTick > MAX_CATCH_UP_TICKS * TICK_NANOS) {
+        nextTick = now - MAX_CATCH_UP_TICKS * TICK_NANOS;
+      }
+      while (nextTick <= now) {
+        tick(nextTick);
+        nextTick += TICK_NANOS;
+      }
+
+      long left = nextTick - System.nanoTime();
+      if (left > 0L) {
+        try {
+          Thread.sleep(left / 1000000L, (int) (left % 1000000L));
+        } catch (InterruptedException e) {
+          // Only interrupted when stopped, checked at the start of the loop.
+        }
+      }
+    }
+  }
+
+  /**
+   * Applies pending input and steps physics, Steve's and then the creepers' chasing him, for the
+   * tick scheduled at given time.
+   */
+  void tick(long nanos) {
+    synchronized(inputLock) {
+      steve.rotate(dragX, dragY);
+      steve.walk(walking);
+      dragX = 0.0f;
+      dragY = 0.0f;
+    }
+
+    performance.startPhysicsTick();
+    physics.updateEyePosition(steve, TICK_SECONDS, blocks);
+    if (creepers != null) {
+      creepers.tick(TICK_SECONDS, steve.positionX(), steve.positionY() - Steve.EYE_LEVEL,
+          steve.positionZ());
+    }
+    performance.endPhysicsTick();
+
+    synchronized(snapshotLock) {
+      Snapshot oldest = previous;
+      previous = current;
+      current = oldest;
+      current.set(nanos, steve);
+    }
+  }
+
+  /**
+   * Sets the eye to Steve's at given time, a tick earlier interpolated between the last two
+   * snapshots.  Later than a tick after the latest snapshot gets the latest one.
+   */
+  void interpolate(long nanos, Eye eye) {
+    synchronized(snapshotLock) {
+      float t = Math.max(0.0f, Math.min(1.0f, (float) (nanos - current.nanos) / TICK_NANOS));
+      eye.setPosition(lerp(previous.x, current.x, t), lerp(previous.y, current.y, t),
+          lerp(previous.z, current.z, t));
+      eye.setRotation(lerp(previous.rotationX, current.rotationX, t),
+          lerp(previous.rotationY, current.rotationY, t));
+    }
+  }
+
+  private static float lerp(float from, float to, float t) {
+    return from + (to - from) * t;
+  }
+}
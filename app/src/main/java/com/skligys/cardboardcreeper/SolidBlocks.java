@@ -0,0 +1,12 @@
+package com.skligys.cardboardcreeper;
+
+/**
+ * Which blocks physics collides with.  Probes are announced a box at a time, so implementations
+ * may prepare, e.g. copy the blocks in it somewhere faster to probe.
+ */
+interface SolidBlocks {
+  /** Called before probing blocks from the min to the max corner, inclusive. */
+  void cover(int minX, int minY, int minZ, int maxX, int maxY, int maxZ);
+
+  boolean contains(int x, int y, int z);
+}
@@ -0,0 +1,82 @@
+package com.skligys.cardboardcreeper;
+
+/**
+ * Entities bucketed by the cell of a uniform grid they stand in, so neighbors of one are found by
+ * looking at the cells around it rather than at all entities.  Cells are vertical columns, as
+ * entities stand on terrain, few share one.  Cells are hashed into a fixed number of buckets, so
+ * the grid is unbounded and empty cells cost nothing.  A bucket may hold entities of other cells
+ * too, callers check {@link #cell} of what they find.  Rebuilt from scratch with a counting sort,
+ * which allocates nothing.  Pure Java, any number of threads may query it between builds.
+ */
+class SpatialHash {
+  private final float cellSize;
+  /** Buckets - 1, a power of 2 at least twice the capacity. */
+  private final int mask;
+  /** Bucket b holds entities from bucketStart[b], up to before bucketStart[b + 1]. */
+  private final int[] bucketStart;
+  /** Entity indices sorted by bucket. */
+  private final int[] entities;
+  /** Bucket of each entity, scratch space of a build. */
+  private final int[] entityBucket;
+
+  /** Cells are squares of {@code cellSize}, which neighbors have to be closer than. */
+  SpatialHash(float cellSize, int capacity) {
+    int buckets = Integer.highestOneBit(Math.max(2 * capacity - 1, 1)) << 1;
+    this.cellSize = cellSize;
+    this.mask = buckets - 1;
+    this.bucketStart = new int[buckets + 1];
+    this.entities = new int[capacity];
+    this.entityBucket = new int[capacity];
+  }
+
+  /** Buckets the first {@code count} entities, given their x and z coordinates. */
+  void build(float[] xs, float[] zs, int count) {
+    if (count > entities.length) {
+      Exceptions.failIllegalArgument("%d entities, capacity is %d", count, entities.length);
+    }
+    for (int b = 0; b < bucketStart.length; ++b) {
+      bucketStart[b] = 0;
+    }
+    // Count entities per bucket, then turn counts into ends of buckets, then fill buckets from
+    // their ends down, leaving bucketStart at their starts.
+    for (int i = 0; i < count; ++i) {
+      int b = bucket(cell(xs[i]), cell(zs[i]));
+      entityBucket[i] = b;
+      ++bucketStart[b];
+    }
+    int end = 0;
+    for (int b = 0; b < bucketStart.length; ++b) {
+      end += bucketStart[b];
+      bucketStart[b] = end;
+    }
+    for (int i = count - 1; i >= 0; --i) {
+      entities[--bucketStart[entityBucket[i]]] = i;
+    }
+  }
+
+  /** Returns the cell coordinate containing the x or z coordinate. */
+  int cell(float coordinate) {
+    return (int) Math.floor(coordinate / cellSize);
+  }
+
+  /** Returns the bucket holding entities of the cell. */
+  int bucket(int cellX, int cellZ) {
+    int hash = (cellX * 0x9E3779B1) ^ (cellZ * 0x85EBCA77);
+    return (hash ^ (hash >>> 16)) & mask;
+  }
+
+  /** Returns the first position in {@link #entity} of entities in the bucket. */
+  int bucketStart(int bucket) {
+    return bucketStart[bucket];
+  }
+
+  /** Returns the position after the last one of entities in the bucket. */
+  int bucketEnd(int bucket) {
+    return bucketStart[bucket + 1];
+  }
+
+  /** Returns the entity index at a position, between the start and end of its bucket. */
+  int entity(int position) {
+    return entities[position];
+  }
+}
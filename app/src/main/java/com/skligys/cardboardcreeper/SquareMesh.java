@@ -1,254 +1,996 @@
 package com.skligys.cardboardcreeper;
 
-import android.content.res.Resources;
 import android.opengl.GLES20;
 
 import com.skligys.cardboardcreeper.model.Block;
 import com.skligys.cardboardcreeper.model.Chunk;
 import com.skligys.cardboardcreeper.model.Point3;
 
-import java.nio.FloatBuffer;
-import java.nio.ShortBuffer;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicReference;
 
 class SquareMesh {
+  /**
+   * Levels of detail a chunk may have a mesh for: level i is built of cubes of 2^i blocks per side,
+   * see {@link GreedyMeshBuilder#buildLod}.  Full detail is always built, coarser levels only once
+   * the chunk is far enough to be drawn with them.
+   */
+  static final int LOD_LEVELS = 3;
+
+  /**
+   * Side of a region in blocks.  Meshes of all chunks in a region are packed into shared vertex
+   * buffers, one per level of detail unless they fill up, so neighboring chunks are drawn with a
+   * single call.  Vertex coordinates relative to the region still fit in a byte.
+   */
+  static final int REGION_SIZE = Chunk.MAX_SIZE;
+  /** Quads in a shared region vertex buffer, larger meshes get a buffer of their own. */
+  static final int PAGE_QUADS = 4096;
+  /**
+   * Faces pointing away between visible ones of drawn meshes, next to each other in a shared
+   * vertex buffer, are drawn along if there are at most this many quads of them, which is cheaper
+   * than another draw call.  GL culls them before rasterizing.  Meshes which are not drawn are
+   * never bridged, they end the draw call.
+   */
+  static final int MAX_GAP_QUADS = 128;
+
+  private static final int QUAD_SIZE = 4 * VertexFormat.STRIDE;
+  /**
+   * Vertex bytes copied into buffer objects per frame at most, so loading many chunks at once,
+   * e.g. at start or after losing the GL context, spreads over frames rather than stalling one.
+   * Loads which do not fit wait for the next frame, one larger than this gets a frame alone.
+   */
+  static final int MAX_UPLOAD_BYTES_PER_FRAME = 256 * 1024;
+
   // Initialized during surface creation.
   private int program;
-  private int textureData;
   private int mvpMatrixHandle;
+  private int regionOriginHandle;
   private int positionHandle;
-  private int textureCoordHandle;
+  private int tileCoordHandle;
+  /** Index buffer object with the shared quad indices. */
+  private int quadIndexBuffer;
+
+  private final Frustum frustum = new Frustum();
+
+  // Counts for the last frame drawn, draw calls and quads summed over views.  Only accessed from
+  // the GL thread.
+  private int meshesDrawn = 0;
+  private int meshesCulled = 0;
+  private int meshesOccluded = 0;
+  private int drawCalls = 0;
+  private int quadsDrawn = 0;
+
+  // What became of a mesh part in the last cull, see MeshPart.state.
+  /** Not drawn and may not be drawn: not uploaded yet, or another level of detail is drawn. */
+  private static final int SKIPPED = 0;
+  /** Not drawn for being out of view or hidden behind terrain, counted apart for stats. */
+  private static final int HIDDEN = 1;
+  private static final int DRAWN = 2;
 
-  private static class Buffers {
-    private final FloatBuffer vertexBuffer;
-    private final ShortBuffer drawListBuffer;
-    private final FloatBuffer textureCoordBuffer;
-
-    Buffers(FloatBuffer vertexBuffer, ShortBuffer drawListBuffer, FloatBuffer textureCoordBuffer) {
-      this.vertexBuffer = vertexBuffer;
-      this.drawListBuffer = drawListBuffer;
-      this.textureCoordBuffer = textureCoordBuffer;
+  /**
+   * A chunk mesh, or a part of it if too large to draw at once.  Vertices are staged in a pooled
+   * client side buffer until the GL thread copies them into a range of a vertex buffer shared
+   * with other meshes in the chunk's region, see {@link Page}.
+   */
+  private static class MeshPart {
+    private final Chunk chunk;
+    /** Level of detail of the mesh, 0 for full detail. */
+    private final int lod;
+    /** Packed vertices relative to the region's origin block, see {@link VertexFormat}. */
+    private ByteBuffer stagedVertices;
+    private final int quadCount;
+    /** Box around the whole mesh in world coordinates, for frustum culling. */
+    private final Hitbox bounds;
+    /** Box around the whole chunk, the same for all levels of detail, for choosing one. */
+    private final Hitbox chunkBounds;
+    /** First chunk of the chunk's region, identifies the region. */
+    private final Chunk region;
+
+    // Only accessed from the GL thread.
+    /** Vertex buffer holding the mesh, null until uploaded and once deleted. */
+    private Page page = null;
+    /** First quad of the mesh in the page. */
+    private int firstQuad = 0;
+    /** GL context the page was created in, see {@code glContext}. */
+    private int context = 0;
+    /** SKIPPED, HIDDEN or DRAWN in the last cull. */
+    private int state = SKIPPED;
+    /** Quad ranges to draw if DRAWN, see FaceRanges.visibleRanges.  GL thread only. */
+    private final int[] drawRanges = new int[2 * FaceRanges.MAX_RANGES];
+    private int drawRangeCount = 0;
+    /** First quad for each face by ordinal, followed by the quad count, see FaceRanges. */
+    private final int[] faceQuadStarts;
+    /** World coordinates of the chunk's origin block. */
+    private final float originX;
+    private final float originY;
+    private final float originZ;
+
+    MeshPart(Chunk chunk, int lod, ByteBuffer stagedVertices, int[] faceQuadStarts,
+        Hitbox bounds) {
+      this.chunk = chunk;
+      this.lod = lod;
+      this.stagedVertices = stagedVertices;
+      this.quadCount = stagedVertices.remaining() / QUAD_SIZE;
+      this.faceQuadStarts = faceQuadStarts;
+      this.bounds = bounds;
+      int size = Chunk.size();
+      this.originX = chunk.x * size;
+      this.originY = chunk.y * size;
+      this.originZ = chunk.z * size;
+      this.chunkBounds = chunkBounds(chunk);
+      this.region = region(chunk);
     }
   }
 
+  /** Returns the box around the whole chunk. */
+  private static Hitbox chunkBounds(Chunk chunk) {
+    int size = Chunk.size();
+    float originX = chunk.x * size;
+    float originY = chunk.y * size;
+    float originZ = chunk.z * size;
+    return new Hitbox(originX - 0.5f, originY - 0.5f, originZ - 0.5f,
+        originX + size - 0.5f, originY + size - 0.5f, originZ + size - 0.5f);
+  }
+
   /**
-   * Chunk to buffers map, loaded on demand in a background thread. This needs to be accessed
-   * with synchronization since it will be written from background thread.
+   * A vertex buffer object shared by meshes of a single level of detail in a region, with at most
+   * as many quads as {@link QuadIndices} can index.  Only accessed from the GL thread.
    */
-  private static final Map<Chunk, Buffers> chunkToBuffers = new HashMap<Chunk, Buffers>();
+  private static class Page {
+    private final Region region;
+    private final int lod;
+    private final int vertexBuffer;
+    private final QuadAllocator allocator;
+    private final List<MeshPart> parts = new ArrayList<MeshPart>();
+    /** Meshes in the page front to back, rebuilt from {@code parts} when they changed. */
+    private final DrawOrder<MeshPart> drawOrder = new DrawOrder<MeshPart>();
+    private boolean partsChanged = false;
+
+    Page(Region region, int lod, int vertexBuffer, int capacity) {
+      this.region = region;
+      this.lod = lod;
+      this.vertexBuffer = vertexBuffer;
+      this.allocator = new QuadAllocator(capacity);
+    }
+  }
 
   /**
-   * Assumes the blocks belong to the chunk specified.  Creates a mesh and buffers based on the
-   * blocks, stores in {@code }chunkToBuffers} with the chunk as the key.
+   * Meshes of a load to upload, and those of the chunk they replace, deleted in the same sync so
+   * the chunk is drawn all along.
    */
-  void load(Chunk chunk, List<Block> blocks, Set<Block> allBlocks) {
-    Buffers buffers = createBuffers(blocks, allBlocks);
-    synchronized(chunkToBuffers) {
-      chunkToBuffers.put(chunk, buffers);
+  private static class Upload {
+    private final List<MeshPart> parts;
+    private final List<MeshPart> replaced;
+    private final int bytes;
+
+    Upload(List<MeshPart> parts, List<MeshPart> replaced) {
+      this.parts = parts;
+      this.replaced = replaced;
+      int quads = 0;
+      for (MeshPart part : parts) {
+        quads += part.quadCount;
+      }
+      this.bytes = quads * QUAD_SIZE;
     }
   }
 
-  void unload(Chunk chunk) {
-    synchronized(chunkToBuffers) {
-      chunkToBuffers.remove(chunk);
+  /** Pages of a region, and where it is.  Only accessed from the GL thread. */
+  private static class Region {
+    /** World coordinates of the region's origin block, vertex positions are relative to it. */
+    private final float originX;
+    private final float originY;
+    private final float originZ;
+    private final Hitbox bounds;
+    private final List<Page> pages = new ArrayList<Page>();
+    /** Levels of detail uploaded into the pages, by chunk. */
+    private final Map<Chunk, UploadedLods> uploadedLods = new HashMap<Chunk, UploadedLods>();
+
+    Region(Chunk region) {
+      int size = Chunk.size();
+      originX = region.x * size;
+      originY = region.y * size;
+      originZ = region.z * size;
+      bounds = new Hitbox(originX - 0.5f, originY - 0.5f, originZ - 0.5f,
+          originX + REGION_SIZE - 0.5f, originY + REGION_SIZE - 0.5f,
+          originZ + REGION_SIZE - 0.5f);
     }
   }
 
-  int chunksLoaded() {
-    synchronized(chunkToBuffers) {
-      return chunkToBuffers.keySet().size();
+  /** Which levels of detail of a chunk are uploaded.  Only accessed from the GL thread. */
+  private static class UploadedLods {
+    /** Mesh parts uploaded, by level of detail. */
+    private final int[] partCounts = new int[LOD_LEVELS];
+    /** Bit i is set if level i got requested from the loader, see {@link #pollLodRequest}. */
+    private int requested = 0;
+
+    boolean isEmpty() {
+      for (int count : partCounts) {
+        if (count > 0) {
+          return false;
+        }
+      }
+      return true;
     }
   }
 
-  private Buffers createBuffers(List<Block> blocks, Set<Block> allBlocks) {
-    VertexIndexTextureList vitList = new VertexIndexTextureList();
-    for (Block block : blocks) {
-      // Only add faces that are not between two blocks and thus invisible.
-      if (!allBlocks.contains(new Block(block.x, block.y + 1, block.z))) {
-        addTopFace(vitList, block);
-      }
-      if (!allBlocks.contains(new Block(block.x, block.y, block.z + 1))) {
-        addFrontFace(vitList, block);
+  /** Returns the first chunk of the chunk's region. */
+  private static Chunk region(Chunk chunk) {
+    int chunksPerRegion = REGION_SIZE / Chunk.size();
+    return new Chunk(regionStart(chunk.x, chunksPerRegion), regionStart(chunk.y, chunksPerRegion),
+        regionStart(chunk.z, chunksPerRegion));
+  }
+
+  /** Rounds down to a multiple of chunks per region, also for negative coordinates. */
+  private static int regionStart(int chunkCoordinate, int chunksPerRegion) {
+    int region = chunkCoordinate >= 0 ? chunkCoordinate / chunksPerRegion :
+        -((-chunkCoordinate - 1) / chunksPerRegion) - 1;
+    return region * chunksPerRegion;
+  }
+
+  /** Meshes of a loaded chunk, immutable. */
+  private static class ChunkMesh {
+    /** Meshes with more quads than {@link QuadIndices} can index are split into several. */
+    private final List<MeshPart> parts;
+    /** Which sides of the chunk connect through air, see ChunkVisibility.connectivity. */
+    private final long connectivity;
+    /** Bit i is set if level of detail i got built, even if it came out empty. */
+    private final int lods;
+
+    ChunkMesh(List<MeshPart> parts, long connectivity, int lods) {
+      this.parts = parts;
+      this.connectivity = connectivity;
+      this.lods = lods;
+    }
+  }
+
+  /**
+   * Immutable snapshot of all loaded chunk meshes.  Loading and unloading publish a changed copy,
+   * so the GL thread can draw the latest one without locking or waiting on the loader.
+   */
+  private static class RenderList {
+    private static final RenderList EMPTY =
+        new RenderList(Collections.<Chunk, ChunkMesh>emptyMap());
+
+    private final Map<Chunk, ChunkMesh> chunkMeshes;
+
+    private RenderList(Map<Chunk, ChunkMesh> chunkMeshes) {
+      this.chunkMeshes = chunkMeshes;
+    }
+
+    /** Returns a copy with the chunk's meshes replaced, or removed if null. */
+    RenderList with(Chunk chunk, ChunkMesh mesh) {
+      Map<Chunk, ChunkMesh> copy = new HashMap<Chunk, ChunkMesh>(chunkMeshes);
+      if (mesh != null) {
+        copy.put(chunk, mesh);
+      } else {
+        copy.remove(chunk);
       }
-      if (!allBlocks.contains(new Block(block.x - 1, block.y, block.z))) {
-        addLeftFace(vitList, block);
+      return new RenderList(Collections.unmodifiableMap(copy));
+    }
+
+    /** Returns a copy without the chunks. */
+    RenderList without(Set<Chunk> chunks) {
+      Map<Chunk, ChunkMesh> copy = new HashMap<Chunk, ChunkMesh>(chunkMeshes);
+      copy.keySet().removeAll(chunks);
+      return new RenderList(Collections.unmodifiableMap(copy));
+    }
+  }
+
+  /** Reused for building meshes, one per chunk loading thread. */
+  private static final ThreadLocal<VertexBuilder> builders =
+      new ThreadLocal<VertexBuilder>() {
+        @Override protected VertexBuilder initialValue() {
+          return new VertexBuilder();
+        }
+      };
+
+  private final Gl gl;
+  /** Distance from the eye in blocks past which chunks are drawn with less detail, 0 for never. */
+  private final float lodDistance;
+  /** Staged vertices are borrowed from here and given back once uploaded or unloaded. */
+  private final BufferPool bufferPool = new BufferPool();
+
+  /** Latest render list, swapped in whole by chunk loading threads and the GL thread. */
+  private final AtomicReference<RenderList> renderList =
+      new AtomicReference<RenderList>(RenderList.EMPTY);
+  /**
+   * Loads still to be uploaded by the GL thread, oldest first.  Meshes are queued after being
+   * published in a render list, replaced ones after a render list without them.
+   */
+  private final Queue<Upload> toUpload = new ConcurrentLinkedQueue<Upload>();
+  /**
+   * Unloaded meshes still to be deleted or released by the GL thread.  Meshes are queued only
+   * after a render list without them is published, so once the GL thread deletes them, it never
+   * draws them again.
+   */
+  private final Queue<MeshPart> toDelete = new ConcurrentLinkedQueue<MeshPart>();
+  /** Eye position of the last cull, for picking levels of detail to build.  Null until then. */
+  private volatile Point3 lodEyePosition = null;
+  /**
+   * Chunks drawn with full detail for lack of a coarser level, which the loader should build with
+   * {@link #loadLod}.
+   */
+  private final Queue<Chunk> lodRequests = new ConcurrentLinkedQueue<Chunk>();
+  /** Incremented whenever the GL context is lost, with all buffer objects in it. */
+  private int glContext = 0;
+
+  /** Regions with any uploaded meshes, by their first chunk.  Only accessed from the GL thread. */
+  private final Map<Chunk, Region> regions = new HashMap<Chunk, Region>();
+  /** Regions sorted front to back, rebuilt when regions come and go.  GL thread only. */
+  private final DrawOrder<Region> drawOrder = new DrawOrder<Region>();
+  private boolean regionsChanged = false;
+  /** Pages which became empty during a sync, deleted at its end unless refilled.  GL thread. */
+  private final List<Page> emptiedPages = new ArrayList<Page>();
+  /** Render list the chunk visibility was last reset for. */
+  private RenderList visibilityList = null;
+  /** Connectivity of loaded chunks.  GL thread only. */
+  private final ChunkVisibility chunkVisibility = new ChunkVisibility();
+
+  // Draw calls for the frame, each a range of quads in a page, front to back.  GL thread only.
+  private final List<Page> runPages = new ArrayList<Page>();
+  private int[] runFirstQuads = new int[64];
+  private int[] runQuadCounts = new int[64];
+
+  /**
+   * Chunks further than {@code lodDistance} blocks from the eye are drawn with meshes of 2 block
+   * cubes, further than twice that with 4 block cubes.  If 0, only full detail meshes are built.
+   */
+  SquareMesh(Gl gl, float lodDistance) {
+    this.gl = gl;
+    this.lodDistance = lodDistance;
+  }
+
+  /**
+   * Assumes the blocks belong to the chunk specified.  Creates a mesh based on the blocks and
+   * publishes it in a new render list.  The mesh is uploaded by the GL thread within a few
+   * frames, any previous one of the chunk is drawn until then.  If the chunk is far from the eye,
+   * a simplified mesh for drawing it from afar is built and uploaded along with it.
+   */
+  void load(Chunk chunk, List<Block> blocks, Set<Block> allBlocks) {
+    VertexBuilder builder = builders.get();
+    List<MeshPart> parts = new ArrayList<MeshPart>();
+    GreedyMeshBuilder.build(chunk, blocks, allBlocks, builder);
+    addParts(chunk, 0, builder, parts);
+    int lod = wantedLod(chunk);
+    if (lod > 0) {
+      GreedyMeshBuilder.buildLod(chunk, allBlocks, 1 << lod, builder);
+      addParts(chunk, lod, builder, parts);
+    }
+    long connectivity = ChunkVisibility.connectivity(chunk, allBlocks);
+    ChunkMesh replaced = publish(chunk, new ChunkMesh(parts, connectivity, 1 | 1 << lod));
+    toUpload.add(new Upload(parts,
+        replaced != null ? replaced.parts : Collections.<MeshPart>emptyList()));
+  }
+
+  /**
+   * Builds the level of detail the loaded chunk is to be drawn with now, unless built already, and
+   * publishes it along with the chunk's other meshes.  Does nothing if the chunk is not loaded.
+   * Only called from the thread loading chunks, with the same blocks it was loaded with.
+   */
+  void loadLod(Chunk chunk, Set<Block> allBlocks) {
+    ChunkMesh mesh = renderList.get().chunkMeshes.get(chunk);
+    int lod = wantedLod(chunk);
+    if (mesh == null || (mesh.lods & 1 << lod) != 0) {
+      return;
+    }
+    VertexBuilder builder = builders.get();
+    List<MeshPart> added = new ArrayList<MeshPart>();
+    GreedyMeshBuilder.buildLod(chunk, allBlocks, 1 << lod, builder);
+    addParts(chunk, lod, builder, added);
+    List<MeshPart> parts = new ArrayList<MeshPart>(mesh.parts);
+    parts.addAll(added);
+    ChunkMesh extended = new ChunkMesh(parts, mesh.connectivity, mesh.lods | 1 << lod);
+    while (true) {
+      RenderList current = renderList.get();
+      if (current.chunkMeshes.get(chunk) != mesh) {
+        // Dropped with the GL context meanwhile, the next sync releases the staged vertices.
+        toDelete.addAll(added);
+        return;
       }
-      if (!allBlocks.contains(new Block(block.x + 1, block.y, block.z))) {
-        addRightFace(vitList, block);
+      if (renderList.compareAndSet(current, current.with(chunk, extended))) {
+        toUpload.add(new Upload(added, Collections.<MeshPart>emptyList()));
+        return;
       }
-      if (!allBlocks.contains(new Block(block.x, block.y, block.z - 1))) {
-        addBackFace(vitList, block);
+    }
+  }
+
+  /**
+   * Returns a chunk which is drawn with full detail for lack of the coarser level it should be
+   * drawn with, see {@link #loadLod}, or null if there is none.  Each missing level of a chunk is
+   * returned once, until the chunk is loaded again.
+   */
+  Chunk pollLodRequest() {
+    return lodRequests.poll();
+  }
+
+  /** Returns the level of detail to draw the chunk with, as seen from the last cull. */
+  private int wantedLod(Chunk chunk) {
+    Point3 eyePosition = lodEyePosition;
+    return eyePosition != null ? lod(chunkBounds(chunk), eyePosition) : 0;
+  }
+
+  void unload(Chunk chunk) {
+    ChunkMesh removed = publish(chunk, null);
+    if (removed != null) {
+      toDelete.addAll(removed.parts);
+    }
+  }
+
+  /**
+   * Swaps in a render list with the chunk's meshes replaced, or removed if null, and returns the
+   * previous ones, if any.
+   */
+  private ChunkMesh publish(Chunk chunk, ChunkMesh mesh) {
+    while (true) {
+      RenderList current = renderList.get();
+      if (mesh == null && !current.chunkMeshes.containsKey(chunk)) {
+        return null;
       }
-      if (!allBlocks.contains(new Block(block.x, block.y - 1, block.z))) {
-        addBottomFace(vitList, block);
+      if (renderList.compareAndSet(current, current.with(chunk, mesh))) {
+        return current.chunkMeshes.get(chunk);
       }
     }
-
-    return new Buffers(
-        GlHelper.createFloatBuffer(vitList.getVertexArray()),
-        GlHelper.createShortBuffer(vitList.getIndexArray()),
-        GlHelper.createFloatBuffer(vitList.getTextureCoordArray()));
   }
 
-  // OpenGL coordinates:
-  //        ^ y
-  //        |     x
-  //        +--->
-  //   z   /
-  //      v
-  private static final Point3 TOP_FACE[] = {
-      new Point3(-0.5f, 0.5f, 0.5f),  // front left
-      new Point3(0.5f, 0.5f, 0.5f),  // front right
-      new Point3(0.5f, 0.5f, -0.5f),  // rear right
-      new Point3(-0.5f, 0.5f, -0.5f)  // rear left
-  };
+  int chunksLoaded() {
+    return renderList.get().chunkMeshes.size();
+  }
 
-  private static final short[] FACE_DRAW_LIST_IDXS = {
-      0, 1, 3,
-      3, 1, 2,
-  };
+  String bufferPoolStats() {
+    return bufferPool.stats();
+  }
 
-  // Flip top and bottom since bitmaps are loaded upside down.
-  private static final float[] TOP_FACE_TEXTURE_COORDS = {
-      0.0f, 1.0f,
-      0.5f, 1.0f,
-      0.5f, 0.5f,
-      0.0f, 0.5f,
-  };
+  /** Returns the number of meshes drawn in the last frame. */
+  int meshesDrawn() {
+    return meshesDrawn;
+  }
 
-  private void addTopFace(VertexIndexTextureList vitList, Block block) {
-    vitList.addFace(block, TOP_FACE, FACE_DRAW_LIST_IDXS, TOP_FACE_TEXTURE_COORDS);
+  /** Returns the number of meshes skipped in the last frame for being out of view. */
+  int meshesCulled() {
+    return meshesCulled;
   }
 
-  private static final Point3 FRONT_FACE[] = {
-      new Point3(-0.5f, -0.5f, 0.5f),  // bottom left
-      new Point3(0.5f, -0.5f, 0.5f),  // bottom right
-      new Point3(0.5f, 0.5f, 0.5f),  // top right
-      new Point3(-0.5f, 0.5f, 0.5f)  // top left
-  };
+  /** Returns the number of meshes skipped in the last frame for being hidden behind terrain. */
+  int meshesOccluded() {
+    return meshesOccluded;
+  }
 
-  // Flip top and bottom since bitmaps are loaded upside down.
-  private static final float[] SIDE_FACE_TEXTURE_COORDS = {
-      0.5f, 1.0f,
-      1.0f, 1.0f,
-      1.0f, 0.5f,
-      0.5f, 0.5f,
-  };
+  /** Returns the number of draw calls issued in the last frame. */
+  int drawCalls() {
+    return drawCalls;
+  }
 
-  private void addFrontFace(VertexIndexTextureList vitList, Block block) {
-    vitList.addFace(block, FRONT_FACE, FACE_DRAW_LIST_IDXS, SIDE_FACE_TEXTURE_COORDS);
+  /** Returns the number of quads drawn in the last frame. */
+  int quadsDrawn() {
+    return quadsDrawn;
   }
 
-  private static final Point3 LEFT_FACE[] = {
-      new Point3(-0.5f, -0.5f, -0.5f),  // rear bottom
-      new Point3(-0.5f, -0.5f, 0.5f),  // front bottom
-      new Point3(-0.5f, 0.5f, 0.5f),  // front top
-      new Point3(-0.5f, 0.5f, -0.5f)  // rear top
-  };
+  /** Returns the number of vertex buffer objects currently uploaded.  GL thread only. */
+  int vertexBuffersUploaded() {
+    int result = 0;
+    for (Region region : regions.values()) {
+      result += region.pages.size();
+    }
+    return result;
+  }
 
-  private void addLeftFace(VertexIndexTextureList vitList, Block block) {
-    vitList.addFace(block, LEFT_FACE, FACE_DRAW_LIST_IDXS, SIDE_FACE_TEXTURE_COORDS);
+  /**
+   * Adds the builder's mesh to the list, split into parts if needed, with vertices moved to be
+   * relative to the region's origin.
+   */
+  private void addParts(Chunk chunk, int lod, VertexBuilder builder, List<MeshPart> result) {
+    ByteBuffer vertices = builder.vertexBuffer();
+    int[] faceQuadStarts = builder.faceQuadStarts();
+    int quadCount = builder.quadCount();
+    if (quadCount == 0) {
+      return;
+    }
+    int size = Chunk.size();
+    Hitbox bounds = builder.bounds(chunk.x * size, chunk.y * size, chunk.z * size);
+    Chunk region = region(chunk);
+    for (int firstQuad = 0; firstQuad < quadCount; firstQuad += QuadIndices.MAX_QUADS) {
+      int partQuadCount = Math.min(quadCount - firstQuad, QuadIndices.MAX_QUADS);
+      vertices.limit((firstQuad + partQuadCount) * QUAD_SIZE)
+          .position(firstQuad * QUAD_SIZE);
+      ByteBuffer staged = bufferPool.borrowCopy(vertices);
+      VertexFormat.translate(staged, (chunk.x - region.x) * size, (chunk.y - region.y) * size,
+          (chunk.z - region.z) * size);
+      int[] partFaceQuadStarts = quadCount <= QuadIndices.MAX_QUADS ? faceQuadStarts :
+          FaceRanges.partFaceQuadStarts(faceQuadStarts, firstQuad, partQuadCount);
+      result.add(new MeshPart(chunk, lod, staged, partFaceQuadStarts, bounds));
+    }
   }
 
-  private static final Point3 RIGHT_FACE[] = {
-      new Point3(0.5f, -0.5f, 0.5f),  // front bottom
-      new Point3(0.5f, -0.5f, -0.5f),  // rear bottom
-      new Point3(0.5f, 0.5f, -0.5f),  // rear top
-      new Point3(0.5f, 0.5f, 0.5f)  // front top
-  };
+  /**
+   * Frees ranges of unloaded meshes and copies newly loaded ones into their regions' vertex
+   * buffers, giving their staged vertices back to the pool.  Uploads at most
+   * {@link #MAX_UPLOAD_BYTES_PER_FRAME}, leaving later loads for the next sync.  Only called from
+   * the GL thread, at the start of each frame.
+   */
+  void syncGpuBuffers() {
+    // Deleting first releases vertices of meshes unloaded before being uploaded, and frees ranges
+    // loads can reuse.
+    MeshPart part;
+    while ((part = toDelete.poll()) != null) {
+      delete(part);
+    }
+
+    int uploadedBytes = 0;
+    Upload next;
+    while ((next = toUpload.peek()) != null &&
+        (uploadedBytes == 0 || uploadedBytes + next.bytes <= MAX_UPLOAD_BYTES_PER_FRAME)) {
+      toUpload.poll();
+      for (MeshPart replaced : next.replaced) {
+        delete(replaced);
+      }
+      for (MeshPart loaded : next.parts) {
+        // May have been unloaded and released right away.
+        if (loaded.stagedVertices != null) {
+          upload(loaded);
+          bufferPool.release(loaded.stagedVertices);
+          loaded.stagedVertices = null;
+          uploadedBytes += loaded.quadCount * QUAD_SIZE;
+        }
+      }
+    }
+    // Only now, so a chunk replaced by one in the same region keeps the page.
+    deleteEmptiedPages();
+  }
 
-  private void addRightFace(VertexIndexTextureList vitList, Block block) {
-    vitList.addFace(block, RIGHT_FACE, FACE_DRAW_LIST_IDXS, SIDE_FACE_TEXTURE_COORDS);
+  /** Frees the mesh's range if uploaded, and releases its vertices if still staged. */
+  private void delete(MeshPart part) {
+    // Buffer objects from a lost context are gone already.
+    if (part.page != null && part.context == glContext) {
+      free(part);
+    }
+    part.page = null;
+    if (part.stagedVertices != null) {
+      bufferPool.release(part.stagedVertices);
+      part.stagedVertices = null;
+    }
   }
 
-  private static final Point3 BACK_FACE[] = {
-      new Point3(0.5f, -0.5f, -0.5f),  // bottom right
-      new Point3(-0.5f, -0.5f, -0.5f),  // bottom left
-      new Point3(-0.5f, 0.5f, -0.5f),  // top left
-      new Point3(0.5f, 0.5f, -0.5f)  // top right
-  };
+  /** Copies the mesh into a free range of a page in its region, adding one if none has room. */
+  private void upload(MeshPart part) {
+    Region region = regions.get(part.region);
+    if (region == null) {
+      region = new Region(part.region);
+      regions.put(part.region, region);
+      regionsChanged = true;
+    }
+    Page page = null;
+    int firstQuad = -1;
+    for (Page p : region.pages) {
+      if (p.lod == part.lod) {
+        firstQuad = p.allocator.allocate(part.quadCount);
+        if (firstQuad >= 0) {
+          page = p;
+          break;
+        }
+      }
+    }
+    if (page == null) {
+      int capacity = Math.max(PAGE_QUADS, part.quadCount);
+      page = new Page(region, part.lod, gl.createVertexBuffer(capacity * QUAD_SIZE),
+          capacity);
+      region.pages.add(page);
+      firstQuad = page.allocator.allocate(part.quadCount);
+    }
+    gl.updateVertexBuffer(page.vertexBuffer, firstQuad * QUAD_SIZE, part.stagedVertices);
+    UploadedLods uploaded = region.uploadedLods.get(part.chunk);
+    if (uploaded == null) {
+      uploaded = new UploadedLods();
+      region.uploadedLods.put(part.chunk, uploaded);
+    }
+    ++uploaded.partCounts[part.lod];
+    if (part.lod == 0) {
+      // Loaded again, maybe without levels requested before.
+      uploaded.requested = 0;
+    }
+    part.page = page;
+    part.firstQuad = firstQuad;
+    part.context = glContext;
+    page.parts.add(part);
+    page.partsChanged = true;
+  }
 
-  private void addBackFace(VertexIndexTextureList vitList, Block block) {
-    vitList.addFace(block, BACK_FACE, FACE_DRAW_LIST_IDXS, SIDE_FACE_TEXTURE_COORDS);
+  /** Frees the mesh's range, and remembers its page if that became empty. */
+  private void free(MeshPart part) {
+    Page page = part.page;
+    page.allocator.free(part.firstQuad, part.quadCount);
+    Map<Chunk, UploadedLods> uploadedLods = page.region.uploadedLods;
+    UploadedLods uploaded = uploadedLods.get(part.chunk);
+    --uploaded.partCounts[part.lod];
+    if (uploaded.isEmpty()) {
+      uploadedLods.remove(part.chunk);
+    }
+    page.parts.remove(part);
+    page.partsChanged = true;
+    if (page.parts.isEmpty()) {
+      emptiedPages.add(page);
+    }
   }
 
-  private static final Point3 BOTTOM_FACE[] = {
-      new Point3(-0.5f, -0.5f, -0.5f),  // rear left
-      new Point3(0.5f, -0.5f, -0.5f),  // rear right
-      new Point3(0.5f, -0.5f, 0.5f),  // front right
-      new Point3(-0.5f, -0.5f, 0.5f)  // front left
-  };
+  /** Deletes pages still empty after uploads, and regions left without pages. */
+  private void deleteEmptiedPages() {
+    for (Page page : emptiedPages) {
+      Region region = page.region;
+      if (!page.parts.isEmpty() || !region.pages.remove(page)) {
+        continue;
+      }
+      gl.deleteBuffer(page.vertexBuffer);
+      if (region.pages.isEmpty()) {
+        regions.values().remove(region);
+        regionsChanged = true;
+      }
+    }
+    emptiedPages.clear();
+  }
 
-  // Flip top and bottom since bitmaps are loaded upside down.
-  private static final float[] BOTTOM_FACE_TEXTURE_COORDS = {
-      0.0f, 0.5f,
-      0.5f, 0.5f,
-      0.5f, 0.0f,
-      0.0f, 0.0f,
-  };
-
-  private void addBottomFace(VertexIndexTextureList vitList, Block block) {
-    vitList.addFace(block, BOTTOM_FACE, FACE_DRAW_LIST_IDXS, BOTTOM_FACE_TEXTURE_COORDS);
+  /**
+   * Forgets all buffer objects after the GL context got lost, they are gone with it.  Their
+   * vertices have been given back to the pool already, so returns chunks which need to be loaded
+   * again.  Meshes still waiting for upload are kept.  Only called from the GL thread.
+   */
+  Set<Chunk> gpuBuffersLost() {
+    ++glContext;
+    Set<Chunk> result = new HashSet<Chunk>();
+    RenderList current;
+    do {
+      result.clear();
+      current = renderList.get();
+      for (Map.Entry<Chunk, ChunkMesh> entry : current.chunkMeshes.entrySet()) {
+        for (MeshPart part : entry.getValue().parts) {
+          if (part.page != null) {
+            result.add(entry.getKey());
+          }
+        }
+      }
+    } while (!result.isEmpty() &&
+        !renderList.compareAndSet(current, current.without(result)));
+
+    // Drop them like unloaded ones, the next sync releases any vertices still staged.
+    for (Chunk chunk : result) {
+      List<MeshPart> lost = current.chunkMeshes.get(chunk).parts;
+      for (MeshPart part : lost) {
+        part.page = null;
+      }
+      toDelete.addAll(lost);
+    }
+    regions.clear();
+    emptiedPages.clear();
+    regionsChanged = true;
+    return result;
   }
 
+  // Positions come in region relative and shifted by 0.5, with the face ordinal in w, see
+  // VertexFormat.
   private static final String VERTEX_SHADER_GLSL =
       "uniform mat4 mvpMatrix;\n" +
+      "uniform vec3 regionOrigin;\n" +
+      "uniform vec2 tileCorners[" + Face.values().length + "];\n" +
       "attribute vec4 position;\n" +
-      "attribute vec2 textureCoord;\n" +
-      "varying vec2 shared_textureCoord;\n" +
+      "attribute vec2 tileCoord;\n" +
+      "varying vec2 shared_tileCoord;\n" +
+      "varying vec2 shared_tileCorner;\n" +
       "\n" +
       "void main() {\n" +
-      "  gl_Position = mvpMatrix * position;\n" +
-      "  shared_textureCoord = textureCoord;\n" +
+      "  gl_Position = mvpMatrix * vec4(regionOrigin + position.xyz - 0.5, 1.0);\n" +
+      "  shared_tileCoord = tileCoord;\n" +
+      "  shared_tileCorner = tileCorners[int(position.w)];\n" +
       "}";
 
   private static final String FRAGMENT_SHADER_GLSL =
       "precision mediump float;\n" +
       "uniform sampler2D texture;\n" +
-      "varying vec2 shared_textureCoord;\n" +
+      "varying vec2 shared_tileCoord;\n" +
+      "varying vec2 shared_tileCorner;\n" +
       "\n" +
       "void main() {\n" +
-      "  gl_FragColor = texture2D(texture, shared_textureCoord);\n" +
+      "  // Repeat the tile across faces merged into a single quad.\n" +
+      "  vec2 textureCoord =\n" +
+      "      shared_tileCorner + fract(shared_tileCoord) * " + Face.TILE_SIZE + ";\n" +
+      "  gl_FragColor = texture2D(texture, textureCoord);\n" +
       "}\n";
 
-  void surfaceCreated(Resources resources) {
-    program = GlHelper.linkProgram(VERTEX_SHADER_GLSL, FRAGMENT_SHADER_GLSL);
-    GLES20.glUseProgram(program);
+  /**
+   * Sets up GL state for a new GL context, drawing with the block texture atlas given.  Returns
+   * chunks which were uploaded into the previous context, if any, and need to be loaded again,
+   * see {@link #gpuBuffersLost}.
+   */
+  Set<Chunk> surfaceCreated(int atlasTexture) {
+    Set<Chunk> lostChunks = gpuBuffersLost();
+    quadIndexBuffer = gl.createIndexBuffer(QuadIndices.buffer());
+
+    program = gl.linkProgram(VERTEX_SHADER_GLSL, FRAGMENT_SHADER_GLSL);
+    gl.useProgram(program);
+
+    mvpMatrixHandle = gl.getUniformLocation(program, "mvpMatrix");
+    regionOriginHandle = gl.getUniformLocation(program, "regionOrigin");
 
-    mvpMatrixHandle = GLES20.glGetUniformLocation(program, "mvpMatrix");
+    Face[] faces = Face.values();
+    float[] tileCorners = new float[2 * faces.length];
+    for (Face face : faces) {
+      tileCorners[2 * face.ordinal()] = face.tileU;
+      tileCorners[2 * face.ordinal() + 1] = face.tileV;
+    }
+    int tileCornersHandle = gl.getUniformLocation(program, "tileCorners");
+    gl.uniform2fv(tileCornersHandle, faces.length, tileCorners, 0);
 
-    positionHandle = GLES20.glGetAttribLocation(program, "position");
-    GLES20.glEnableVertexAttribArray(positionHandle);
+    positionHandle = gl.getAttribLocation(program, "position");
+    gl.enableVertexAttribArray(positionHandle);
 
-    textureCoordHandle = GLES20.glGetAttribLocation(program, "textureCoord");
-    GLES20.glEnableVertexAttribArray(textureCoordHandle);
+    tileCoordHandle = gl.getAttribLocation(program, "tileCoord");
+    gl.enableVertexAttribArray(tileCoordHandle);
 
-    textureData = GlHelper.loadTexture(resources, R.drawable.atlas);
-    int textureHandle = GLES20.glGetUniformLocation(program, "texture");
-    GLES20.glUniform1i(textureHandle, 0);
-    GLES20.glActiveTexture(GLES20.GL_TEXTURE0);
-    GLES20.glBindTexture(GLES20.GL_TEXTURE_2D, textureData);
+    int textureHandle = gl.getUniformLocation(program, "texture");
+    gl.uniform1i(textureHandle, 0);
+    gl.activeTexture(GLES20.GL_TEXTURE0);
+    gl.bindTexture(GLES20.GL_TEXTURE_2D, atlasTexture);
+    return lostChunks;
   }
 
-  void draw(float[] viewProjectionMatrix) {
-    GLES20.glUseProgram(program);
+  /**
+   * Picks quad ranges to draw this frame, see {@link #draw}.  Skips chunks out of view or hidden
+   * behind terrain, and faces pointing away from the eyes.  Regions, and meshes within their
+   * vertex buffers, are drawn front to back.  Ranges of meshes next to each other in both the
+   * order and the buffer are merged into a single draw call, along with any skipped faces between
+   * them if there are only a few.  Eyes are up to {@code eyeOffset} blocks along each axis from
+   * the eye position, which is used for ordering and choosing levels of detail.  The frustum has to
+   * hold all eyes' frusta, so both stereo views share a single pass.  Also uploads newly loaded
+   * meshes.
+   */
+  void cull(float[] cullViewProjectionMatrix, Point3 eyePosition, float eyeOffset) {
+    syncGpuBuffers();
+    lodEyePosition = eyePosition;
+
+    RenderList list = renderList.get();
+    if (visibilityList != list) {
+      resetChunkVisibility(list);
+      visibilityList = list;
+    }
+    if (regionsChanged) {
+      drawOrder.clear();
+      for (Region region : regions.values()) {
+        drawOrder.add(region, region.bounds);
+      }
+      regionsChanged = false;
+    }
+    drawOrder.sort(eyePosition.x, eyePosition.y, eyePosition.z);
+
+    frustum.set(cullViewProjectionMatrix);
+    Chunk eyeChunk = ChunkVisibility.eyeChunk(eyePosition);
+    chunkVisibility.traverse(eyeChunk.x, eyeChunk.y, eyeChunk.z, frustum);
+    meshesDrawn = 0;
+    meshesCulled = 0;
+    meshesOccluded = 0;
+    drawCalls = 0;
+    quadsDrawn = 0;
+    runPages.clear();
+    int size = Chunk.size();
+    for (int i = 0; i < drawOrder.size(); ++i) {
+      Region region = drawOrder.get(i);
+      if (!frustum.intersects(region.bounds)) {
+        for (Page page : region.pages) {
+          for (MeshPart part : page.parts) {
+            if (part.lod == drawnLod(region, part, eyePosition)) {
+              ++meshesCulled;
+            }
+          }
+        }
+        continue;
+      }
+      for (Page page : region.pages) {
+        for (MeshPart part : page.parts) {
+          cull(region, part, eyePosition, eyeOffset, size);
+        }
+        addRuns(page, eyePosition);
+      }
+    }
+  }
 
-    // Since model matrix is identity, MVP matrix is the same as VP matrix.
-    GLES20.glUniformMatrix4fv(mvpMatrixHandle, 1, false, viewProjectionMatrix, 0);
+  private void cull(Region region, MeshPart part, Point3 eyePosition, float eyeOffset,
+      int size) {
+    // Another level of detail is drawn for the chunk, drawing this one along would overlap it.
+    if (part.lod != drawnLod(region, part, eyePosition)) {
+      part.state = SKIPPED;
+      return;
+    }
+    if (!frustum.intersects(part.bounds)) {
+      ++meshesCulled;
+      part.state = HIDDEN;
+      return;
+    }
+    if (!chunkVisibility.visible(part.chunk)) {
+      ++meshesOccluded;
+      part.state = HIDDEN;
+      return;
+    }
+    ++meshesDrawn;
+    part.state = DRAWN;
+
+    // Each face's visibility depends on a single coordinate of the eye, so faces visible from
+    // either corner of the box around the eyes are all faces visible from any eye.
+    int visibleFaces = FaceRanges.visibleFaces(eyePosition.x - eyeOffset,
+        eyePosition.y - eyeOffset, eyePosition.z - eyeOffset,
+        part.originX, part.originY, part.originZ, size) |
+        FaceRanges.visibleFaces(eyePosition.x + eyeOffset, eyePosition.y + eyeOffset,
+            eyePosition.z + eyeOffset, part.originX, part.originY, part.originZ, size);
+    part.drawRangeCount =
+        FaceRanges.visibleRanges(visibleFaces, part.faceQuadStarts, part.drawRanges);
+  }
+
+  /**
+   * Adds draw calls for quad ranges of DRAWN meshes in the page, front to back, merged across gaps
+   * of at most {@link #MAX_GAP_QUADS} quads.  Only meshes next to each other in both the order and
+   * the buffer are merged, so gaps only span their faces, and merging keeps the order.
+   */
+  private void addRuns(Page page, Point3 eyePosition) {
+    if (page.partsChanged) {
+      page.drawOrder.clear();
+      for (MeshPart part : page.parts) {
+        page.drawOrder.add(part, part.bounds);
+      }
+      page.partsChanged = false;
+    }
+    page.drawOrder.sort(eyePosition.x, eyePosition.y, eyePosition.z);
+
+    int runStart = -1;
+    int runEnd = -1;
+    // End of the last DRAWN mesh.
+    int drawnEnd = -1;
+    for (int i = 0; i < page.drawOrder.size(); ++i) {
+      MeshPart part = page.drawOrder.get(i);
+      if (part.state != DRAWN) {
+        continue;
+      }
+      if (part.firstQuad != drawnEnd && runStart >= 0) {
+        addRun(page, runStart, runEnd - runStart);
+        runStart = -1;
+      }
+      drawnEnd = part.firstQuad + part.quadCount;
+      for (int j = 0; j < part.drawRangeCount; ++j) {
+        int start = part.firstQuad + part.drawRanges[2 * j];
+        int end = start + part.drawRanges[2 * j + 1];
+        if (runStart >= 0 && start - runEnd <= MAX_GAP_QUADS) {
+          runEnd = end;
+          continue;
+        }
+        if (runStart >= 0) {
+          addRun(page, runStart, runEnd - runStart);
+        }
+        runStart = start;
+        runEnd = end;
+      }
+    }
+    if (runStart >= 0) {
+      addRun(page, runStart, runEnd - runStart);
+    }
+  }
 
-    // Draw buffers for all loaded chunks.
-    synchronized(chunkToBuffers) {
-      for (Buffers b : chunkToBuffers.values()) {
-        GLES20.glVertexAttribPointer(positionHandle, 3, GLES20.GL_FLOAT, false, 0, b.vertexBuffer);
-        GLES20.glVertexAttribPointer(textureCoordHandle, 2, GLES20.GL_FLOAT, false, 0,
-            b.textureCoordBuffer);
+  private void addRun(Page page, int firstQuad, int quadCount) {
+    int index = runPages.size();
+    if (index == runFirstQuads.length) {
+      runFirstQuads = Arrays.copyOf(runFirstQuads, 2 * index);
+      runQuadCounts = Arrays.copyOf(runQuadCounts, 2 * index);
+    }
+    runPages.add(page);
+    runFirstQuads[index] = firstQuad;
+    runQuadCounts[index] = quadCount;
+  }
 
-        GLES20.glDrawElements(GLES20.GL_TRIANGLES, b.drawListBuffer.limit(), GLES20.GL_UNSIGNED_SHORT,
-            b.drawListBuffer);
+  /**
+   * Draws quad ranges picked by the last {@link #cull}, all sharing the same quad indices.  Called
+   * once per view, only the view projection matrix changes between them.
+   */
+  void draw(float[] viewProjectionMatrix) {
+    gl.useProgram(program);
+
+    // Vertices are moved to world coordinates with the regionOrigin uniform instead of a model
+    // matrix, so MVP matrix is the same as VP matrix.
+    gl.uniformMatrix4fv(mvpMatrixHandle, 1, false, viewProjectionMatrix, 0);
+
+    gl.bindBuffer(GLES20.GL_ELEMENT_ARRAY_BUFFER, quadIndexBuffer);
+    Page boundPage = null;
+    for (int i = 0; i < runPages.size(); ++i) {
+      Page page = runPages.get(i);
+      if (page != boundPage) {
+        bind(page);
+        boundPage = page;
       }
+      ++drawCalls;
+      quadsDrawn += runQuadCounts[i];
+      // Offset into the index buffer object in bytes.
+      int offset = QuadIndices.INDEX_SIZE * QuadIndices.indexCount(runFirstQuads[i]);
+      gl.drawElements(GLES20.GL_TRIANGLES, QuadIndices.indexCount(runQuadCounts[i]),
+          GLES20.GL_UNSIGNED_SHORT, offset);
+    }
+    gl.bindBuffer(GLES20.GL_ARRAY_BUFFER, 0);
+    gl.bindBuffer(GLES20.GL_ELEMENT_ARRAY_BUFFER, 0);
+  }
+
+  private void bind(Page page) {
+    Region region = page.region;
+    gl.uniform3f(regionOriginHandle, region.originX, region.originY, region.originZ);
+    gl.bindBuffer(GLES20.GL_ARRAY_BUFFER, page.vertexBuffer);
+    gl.vertexAttribPointer(positionHandle, VertexFormat.POSITION_SIZE,
+        GLES20.GL_UNSIGNED_BYTE, false, VertexFormat.STRIDE, VertexFormat.POSITION_OFFSET);
+    gl.vertexAttribPointer(tileCoordHandle, VertexFormat.TILE_COORD_SIZE,
+        GLES20.GL_UNSIGNED_BYTE, false, VertexFormat.STRIDE, VertexFormat.TILE_COORD_OFFSET);
+  }
+
+  /**
+   * Sets chunk visibility's box around all loaded chunks with a margin of one, so the walk can go
+   * around them, and their connectivity.
+   */
+  private void resetChunkVisibility(RenderList list) {
+    if (list.chunkMeshes.isEmpty()) {
+      chunkVisibility.reset(0, 0, 0, -1, -1, -1);
+      return;
+    }
+    int minX = Integer.MAX_VALUE;
+    int minY = Integer.MAX_VALUE;
+    int minZ = Integer.MAX_VALUE;
+    int maxX = Integer.MIN_VALUE;
+    int maxY = Integer.MIN_VALUE;
+    int maxZ = Integer.MIN_VALUE;
+    for (Chunk chunk : list.chunkMeshes.keySet()) {
+      minX = Math.min(minX, chunk.x);
+      minY = Math.min(minY, chunk.y);
+      minZ = Math.min(minZ, chunk.z);
+      maxX = Math.max(maxX, chunk.x);
+      maxY = Math.max(maxY, chunk.y);
+      maxZ = Math.max(maxZ, chunk.z);
+    }
+    chunkVisibility.reset(minX - 1, minY - 1, minZ - 1, maxX + 1, maxY + 1, maxZ + 1);
+    for (Map.Entry<Chunk, ChunkMesh> entry : list.chunkMeshes.entrySet()) {
+      chunkVisibility.setConnectivity(entry.getKey(), entry.getValue().connectivity);
+    }
+  }
+
+  /**
+   * Returns the level of detail to draw the part's chunk with: the one for its distance if
+   * uploaded, otherwise full detail, requesting the missing level from the loader once.
+   */
+  private int drawnLod(Region region, MeshPart part, Point3 eyePosition) {
+    int lod = lod(part.chunkBounds, eyePosition);
+    if (lod == 0) {
+      return 0;
+    }
+    UploadedLods uploaded = region.uploadedLods.get(part.chunk);
+    if (uploaded.partCounts[lod] > 0) {
+      return lod;
+    }
+    if ((uploaded.requested & 1 << lod) == 0) {
+      uploaded.requested |= 1 << lod;
+      lodRequests.add(part.chunk);
+    }
+    return 0;
+  }
+
+  /** Returns the level of detail to draw a chunk with, given its box. */
+  private int lod(Hitbox chunkBounds, Point3 eyePosition) {
+    if (lodDistance <= 0.0f) {
+      return 0;
+    }
+    float distanceSquared =
+        chunkBounds.distanceSquared(eyePosition.x, eyePosition.y, eyePosition.z);
+    int result = 0;
+    float levelDistance = lodDistance;
+    while (result < LOD_LEVELS - 1 && distanceSquared > levelDistance * levelDistance) {
+      ++result;
+      levelDistance *= 2.0f;
     }
+    return result;
   }
 }
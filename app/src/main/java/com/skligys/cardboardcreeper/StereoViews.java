@@ -0,0 +1,147 @@
+package com.skligys.cardboardcreeper;
+
+/**
+ * Views to render each frame: a single one filling the surface, or side by side views for the
+ * left and right eye.  Eyes share a symmetric projection and only differ by a sideways shift of
+ * the view.  Also computes a single culling view projection whose frustum holds both eyes'
+ * frusta, so chunks are culled and ordered once per frame for both eyes.  Pure Java, matrices are
+ * column-major as used by OpenGL.
+ */
+class StereoViews {
+  /** Distance between the eyes, in blocks, which are about a meter. */
+  static final float EYE_SEPARATION = 0.064f;
+
+  private final boolean stereo;
+  private final float fieldOfView;
+  private final float near;
+  private float far;
+
+  private int viewportWidth = 1;
+  private int viewportHeight = 1;
+  private final float[] projectionMatrix = new float[16];
+  /** Projection of the culling view, from behind the eyes. */
+  private final float[] cullProjectionMatrix = new float[16];
+  /** Distance the culling view is moved back from between the eyes. */
+  private float cullOffset = 0.0f;
+
+  private final float[][] viewProjectionMatrices;
+  private final float[] cullViewProjectionMatrix = new float[16];
+  // Scratch space.
+  private final float[] shiftedViewMatrix = new float[16];
+
+  /** Field of view is vertical, in radians. */
+  StereoViews(boolean stereo, float fieldOfView, float near, float far) {
+    this.stereo = stereo;
+    this.fieldOfView = fieldOfView;
+    this.near = near;
+    this.far = far;
+    viewProjectionMatrices = new float[eyeCount()][16];
+  }
+
+  int eyeCount() {
+    return stereo ? 2 : 1;
+  }
+
+  /** Returns how far each eye is from the center between them, 0 if mono. */
+  float eyeOffset() {
+    return stereo ? EYE_SEPARATION / 2.0f : 0.0f;
+  }
+
+  /** Sets the size of the surface in pixels, eyes get its left and right halves. */
+  void setSurfaceSize(int width, int height) {
+    viewportWidth = stereo ? width / 2 : width;
+    viewportHeight = height;
+    setProjections();
+  }
+
+  /** Moves the far plane, taking effect with the next view matrix. */
+  void setFar(float far) {
+    if (far != this.far) {
+      this.far = far;
+      setProjections();
+    }
+  }
+
+  private void setProjections() {
+    float aspect = (float) viewportWidth / viewportHeight;
+    float tanHalfHeight = (float) Math.tan(fieldOfView / 2.0f);
+    perspective(tanHalfHeight * aspect, tanHalfHeight, near, far, projectionMatrix);
+
+    // Moved back along the view direction until the side planes pass through the outer eyes'
+    // ones.  Near and far planes stay where the eyes' are.  Top and bottom planes end up a bit
+    // further out, which is fine for culling.
+    float tanHalfWidth = tanHalfHeight * aspect;
+    cullOffset = eyeOffset() / tanHalfWidth;
+    perspective(tanHalfWidth, tanHalfHeight, near + cullOffset, far + cullOffset,
+        cullProjectionMatrix);
+  }
+
+  int viewportX(int eye) {
+    return eye * viewportWidth;
+  }
+
+  int viewportWidth() {
+    return viewportWidth;
+  }
+
+  int viewportHeight() {
+    return viewportHeight;
+  }
+
+  /** Computes per eye and culling view projection matrices given the view from between eyes. */
+  void setViewMatrix(float[] viewMatrix) {
+    for (int eye = 0; eye < eyeCount(); ++eye) {
+      // Left eye is to the left of the center, so the world moves right in its view.
+      float shift = stereo ? (eye == 0 ? eyeOffset() : -eyeOffset()) : 0.0f;
+      translate(viewMatrix, shift, 0.0f, shiftedViewMatrix);
+      multiply(projectionMatrix, shiftedViewMatrix, viewProjectionMatrices[eye]);
+    }
+    translate(viewMatrix, 0.0f, -cullOffset, shiftedViewMatrix);
+    multiply(cullProjectionMatrix, shiftedViewMatrix, cullViewProjectionMatrix);
+  }
+
+  float[] viewProjectionMatrix(int eye) {
+    return viewProjectionMatrices[eye];
+  }
+
+  float[] cullViewProjectionMatrix() {
+    return cullViewProjectionMatrix;
+  }
+
+  /**
+   * Sets a symmetric perspective projection, given tangents of half the horizontal and vertical
+   * field of view.  The same as Matrix.frustumM with left = -right and bottom = -top.
+   */
+  static void perspective(float tanHalfWidth, float tanHalfHeight, float near, float far,
+      float[] result) {
+    for (int i = 0; i < 16; ++i) {
+      result[i] = 0.0f;
+    }
+    result[0] = 1.0f / tanHalfWidth;
+    result[5] = 1.0f / tanHalfHeight;
+    result[10] = (far + near) / (near - far);
+    result[11] = -1.0f;
+    result[14] = 2.0f * far * near / (near - far);
+  }
+
+  /** Sets result to the view matrix followed by a translation by dx, dz in view space. */
+  private static void translate(float[] viewMatrix, float dx, float dz, float[] result) {
+    System.arraycopy(viewMatrix, 0, result, 0, 16);
+    // The view's bottom row is 0, 0, 0, 1.
+    result[12] += dx;
+    result[14] += dz;
+  }
+
+  /** Multiplies column-major 4x4 matrices, lhs * rhs, into result. */
+  static void multiply(float[] lhs, float[] rhs, float[] result) {
+    for (int column = 0; column < 4; ++column) {
+      for (int row = 0; row < 4; ++row) {
+        float sum = 0.0f;
+        for (int i = 0; i < 4; ++i) {
+          sum += lhs[4 * i + row] * rhs[4 * column + i];
+        }
+        result[4 * column + row] = sum;
+      }
+    }
+  }
+}
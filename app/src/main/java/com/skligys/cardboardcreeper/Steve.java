@@ -4,13 +4,10 @@ import com.skligys.cardboardcreeper.model.Block;
 import com.skligys.cardboardcreeper.model.Chunk;
 import com.skligys.cardboardcreeper.model.Point3;
 
-import java.util.HashSet;
-import java.util.Set;
-
 class Steve {
-  private static final float STEVE_EYE_LEVEL = 1.62f;  // meters from feet.
-  private static final float STEVE_HITBOX_HEIGHT = 1.8f;  // meters from feet.
-  private static final float STEVE_HITBOX_WIDTH = 0.6f;  // meters
+  static final float EYE_LEVEL = 1.62f;  // meters from feet.
+  static final float HITBOX_HEIGHT = 1.8f;  // meters from feet.
+  static final float HITBOX_WIDTH = 0.6f;  // meters
 
   private final Eye eye;
   private boolean walking = false;
@@ -26,7 +23,7 @@ class Steve {
      * Initially, the eye is located at (block.x, block.z) in xz plane, at height block.y + 2.12
      * (feet to eye 1.62 + 0.5 displacement from block the feet are on).
      */
-    eye = new Eye(block.x, block.y + 0.50001f + STEVE_EYE_LEVEL, block.z);
+    eye = new Eye(block.x, block.y + 0.50001f + EYE_LEVEL, block.z);
     currentChunk = new Chunk(block);
   }
 
@@ -58,86 +55,41 @@ class Steve {
     eye.rotate(dx, dy);
   }
 
-  private static final Point3 ZERO_VECTOR = new Point3(0.0f, 0.0f, 0.0f);
+  float rotationX() {
+    return eye.rotationX();
+  }
+
+  float rotationY() {
+    return eye.rotationY();
+  }
 
   Point3 position() {
     return eye.position();
   }
 
-  void setPosition(Point3 eyePosition) {
-    eye.setPosition(eyePosition);
+  float positionX() {
+    return eye.x();
   }
 
-  Point3 motionVector() {
-    if (!walking) {
-      return ZERO_VECTOR;
-    }
+  float positionY() {
+    return eye.y();
+  }
+
+  float positionZ() {
+    return eye.z();
+  }
+
+  void setPosition(float x, float y, float z) {
+    eye.setPosition(x, y, z);
+  }
+
+  /** Returns the x of the unit vector Steve is walking along, 0 if standing. */
+  float motionX() {
+    return walking ? Floats.cos(eye.rotationX() - 90.0f) : 0.0f;
+  }
 
-    float xAngle = eye.rotation().x - 90.0f;
-    return new Point3(Floats.cos(xAngle), 0.0f, Floats.sin(xAngle));
-  }
-
-  /**
-   * Given Steve's eye position, returns a set of blocks corresponding to all 8 corners of his
-   * hitbox.
-   */
-  Set<Block> hitboxCornerBlocks(Point3 eyePosition) {
-    Hitbox hit = hitbox(eyePosition);
-
-    Set<Block> result = new HashSet<Block>();
-    result.add(new Block(hit.minX, hit.minY, hit.minZ));
-    result.add(new Block(hit.maxX, hit.minY, hit.minZ));
-    result.add(new Block(hit.minX, hit.maxY, hit.minZ));
-    result.add(new Block(hit.maxX, hit.maxY, hit.minZ));
-    result.add(new Block(hit.minX, hit.minY, hit.maxZ));
-    result.add(new Block(hit.maxX, hit.minY, hit.maxZ));
-    result.add(new Block(hit.minX, hit.maxY, hit.maxZ));
-    result.add(new Block(hit.maxX, hit.maxY, hit.maxZ));
-    return result;
-  }
-
-  /** Given Steve's eye position, returns his hitbox. */
-  Hitbox hitbox(Point3 eyePosition) {
-    float minX = eyePosition.x - STEVE_HITBOX_WIDTH / 2.0f;
-    float maxX = minX + STEVE_HITBOX_WIDTH;
-    float minY = eyePosition.y - STEVE_EYE_LEVEL;
-    float maxY = minY + STEVE_HITBOX_HEIGHT;
-    float minZ = eyePosition.z - STEVE_HITBOX_WIDTH / 2.0f;
-    float maxZ = minZ + STEVE_HITBOX_WIDTH;
-
-    return new Hitbox(minX, minY, minZ, maxX, maxY, maxZ);
-  }
-
-  /**
-   * Given Steve's eye position, returns a set of blocks corresponding to 4 points around his knees.
-   */
-  Set<Block> kneeBlocks(Point3 eyePosition) {
-    Hitbox hit = hitbox(eyePosition);
-    float kneeY = 0.5f * (hit.minY + hit.maxY);
-
-    Set<Block> result = new HashSet<Block>();
-    result.add(new Block(hit.minX, kneeY, hit.minZ));
-    result.add(new Block(hit.maxX, kneeY, hit.minZ));
-    result.add(new Block(hit.minX, kneeY, hit.maxZ));
-    result.add(new Block(hit.maxX, kneeY, hit.maxZ));
-    return result;
-  }
-
-  /**
-   * Given Steve's eye position, returns a set of blocks corresponding to 4 points around his head.
-   */
-  Set<Block> headBlocks(Point3 eyePosition) {
-    Hitbox hit = hitbox(eyePosition);
-
-    Set<Block> result = new HashSet<Block>();
-    result.add(new Block(hit.minX, hit.maxY, hit.minZ));
-    result.add(new Block(hit.maxX, hit.maxY, hit.minZ));
-    result.add(new Block(hit.minX, hit.maxY, hit.maxZ));
-    result.add(new Block(hit.maxX, hit.maxY, hit.maxZ));
-    return result;
-  }
-
-  public float[] viewMatrix() {
-    return eye.viewMatrix();
+  /** Returns the z of the unit vector Steve is walking along, 0 if standing. */
+  float motionZ() {
+    return walking ? Floats.sin(eye.rotationX() - 90.0f) : 0.0f;
   }
 }
@@ -0,0 +1,156 @@
+package com.skligys.cardboardcreeper;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Collects packed vertices (see {@link VertexFormat}) of a chunk mesh straight into a growable
+ * native order direct buffer, without boxing or intermediate arrays.  Every face is a quad of 4
+ * consecutive vertices, drawn with the shared {@link QuadIndices}.  Large chunks may need more
+ * quads than those can index, so meshes have to be drawn in parts of at most
+ * {@link QuadIndices#MAX_QUADS} quads each.  Meant to be reused for many meshes: {@link #clear}
+ * keeps the buffer, so after a few meshes it stops allocating.
+ * <p>
+ * Faces have to be added in {@link Face} order, so the quads facing each way form a single range
+ * which can be skipped as a whole when facing away from the eye, see {@link FaceRanges}.
+ */
+class VertexBuilder {
+  private static final int INITIAL_FACE_CAPACITY = 1024;
+
+  private ByteBuffer vertices;
+  private int quadCount = 0;
+  /** Number of quads added so far for each face, indexed by ordinal. */
+  private final int[] faceQuadCounts = new int[Face.values().length];
+  private int lastFaceOrdinal = 0;
+  /** Chunk-relative coordinates of blocks with faces added so far, min then max. */
+  private final int[] blockBounds = new int[6];
+
+  VertexBuilder() {
+    allocate(INITIAL_FACE_CAPACITY);
+    clear();
+  }
+
+  /** Forgets all faces added so far, keeping the buffer. */
+  void clear() {
+    vertices.clear();
+    quadCount = 0;
+    for (int i = 0; i < faceQuadCounts.length; ++i) {
+      faceQuadCounts[i] = 0;
+    }
+    lastFaceOrdinal = 0;
+    for (int i = 0; i < 3; ++i) {
+      blockBounds[i] = Integer.MAX_VALUE;
+      blockBounds[i + 3] = Integer.MIN_VALUE;
+    }
+  }
+
+  int quadCount() {
+    return quadCount;
+  }
+
+  int vertexCount() {
+    return 4 * quadCount;
+  }
+
+  /**
+   * Returns the index of the first quad for each face by ordinal, followed by the total number of
+   * quads, see {@link FaceRanges}.
+   */
+  int[] faceQuadStarts() {
+    int[] result = new int[faceQuadCounts.length + 1];
+    for (int i = 0; i < faceQuadCounts.length; ++i) {
+      result[i + 1] = result[i] + faceQuadCounts[i];
+    }
+    return result;
+  }
+
+  /**
+   * Adds a quad covering the given face of all blocks from min to max coordinates inclusive,
+   * which have to lie in the face's plane.  Coordinates are relative to the chunk's origin block.
+   * The position within the texture tile goes past 1 on merged faces, so the tile repeats across
+   * the quad.
+   */
+  void addFace(Face face, int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+    if (face.ordinal() < lastFaceOrdinal) {
+      throw new IllegalStateException("Faces out of order: " + face + " after " +
+          Face.values()[lastFaceOrdinal]);
+    }
+    if (vertices.remaining() < 4 * VertexFormat.STRIDE) {
+      grow();
+    }
+
+    int uExtent = extent(face.textureUAxis, minX, minY, minZ, maxX, maxY, maxZ);
+    int vExtent = extent(face.textureVAxis, minX, minY, minZ, maxX, maxY, maxZ);
+    for (int i = 0; i < 4; ++i) {
+      // Corners are at +-0.5 around the block center.
+      float cornerX = face.corners[i].x;
+      float cornerY = face.corners[i].y;
+      float cornerZ = face.corners[i].z;
+      VertexFormat.put(vertices,
+          cornerX < 0.0f ? minX + cornerX : maxX + cornerX,
+          cornerY < 0.0f ? minY + cornerY : maxY + cornerY,
+          cornerZ < 0.0f ? minZ + cornerZ : maxZ + cornerZ,
+          face,
+          Face.TILE_COORDS[2 * i] * uExtent,
+          Face.TILE_COORDS[2 * i + 1] * vExtent);
+    }
+    blockBounds[0] = Math.min(blockBounds[0], minX);
+    blockBounds[1] = Math.min(blockBounds[1], minY);
+    blockBounds[2] = Math.min(blockBounds[2], minZ);
+    blockBounds[3] = Math.max(blockBounds[3], maxX);
+    blockBounds[4] = Math.max(blockBounds[4], maxY);
+    blockBounds[5] = Math.max(blockBounds[5], maxZ);
+    ++quadCount;
+    ++faceQuadCounts[face.ordinal()];
+    lastFaceOrdinal = face.ordinal();
+  }
+
+  /**
+   * Returns the tightest box around all faces added so far, in world coordinates given those of
+   * the chunk's origin block, or null if there are none.
+   */
+  Hitbox bounds(float originX, float originY, float originZ) {
+    if (quadCount == 0) {
+      return null;
+    }
+    return new Hitbox(
+        originX + blockBounds[0] - 0.5f, originY + blockBounds[1] - 0.5f,
+        originZ + blockBounds[2] - 0.5f, originX + blockBounds[3] + 0.5f,
+        originY + blockBounds[4] + 0.5f, originZ + blockBounds[5] + 0.5f);
+  }
+
+  /** Returns the number of blocks from min to max coordinates inclusive along the axis. */
+  private static int extent(int axis, int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+    switch (axis) {
+      case Face.X:
+        return maxX - minX + 1;
+      case Face.Y:
+        return maxY - minY + 1;
+      default:
+        return maxZ - minZ + 1;
+    }
+  }
+
+  /**
+   * Returns a view of the vertices added so far, positioned at 0.  Only valid until the builder
+   * is cleared or more faces are added.
+   */
+  ByteBuffer vertexBuffer() {
+    ByteBuffer result = vertices.duplicate();
+    result.flip();
+    return result;
+  }
+
+  /** Doubles the capacity, keeping the faces added so far. */
+  private void grow() {
+    ByteBuffer oldVertices = vertexBuffer();
+    allocate(2 * vertices.capacity() / (4 * VertexFormat.STRIDE));
+    vertices.put(oldVertices);
+  }
+
+  private void allocate(int faceCapacity) {
+    vertices = ByteBuffer
+        .allocateDirect(faceCapacity * 4 * VertexFormat.STRIDE)
+        .order(ByteOrder.nativeOrder());
+  }
+}
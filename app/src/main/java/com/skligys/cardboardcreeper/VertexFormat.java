@@ -0,0 +1,95 @@
+package com.skligys.cardboardcreeper;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Layout of packed, interleaved chunk mesh vertices, 8 bytes each:
+ * <pre>
+ *   0: x, y, z  unsigned bytes, corner coordinates relative to the chunk's origin block plus 0.5
+ *   3: face     unsigned byte, ordinal of the {@link Face}, selects the texture tile
+ *   4: u, v     unsigned bytes, position within the texture tile, in tiles
+ *   6: padding  to keep vertices 4 byte aligned
+ * </pre>
+ * Block centers are at integer coordinates, so corners are at halves and shifting them by 0.5
+ * makes them small non-negative integers.  The vertex shader undoes the shift and adds the
+ * chunk's origin.
+ */
+class VertexFormat {
+  private VertexFormat() {}  // No instantiation.
+
+  static final int STRIDE = 8;
+  /** Offset of x, y, z and face, read by the shader as a single vec4. */
+  static final int POSITION_OFFSET = 0;
+  static final int POSITION_SIZE = 4;
+  /** Offset of u, v, read by the shader as a vec2. */
+  static final int TILE_COORD_OFFSET = 4;
+  static final int TILE_COORD_SIZE = 2;
+
+  private static final int MAX_UNSIGNED_BYTE = 255;
+
+  /**
+   * Appends a vertex at the buffer's position.  Corner coordinates are relative to the chunk's
+   * origin block, so range from -0.5 to chunk size - 0.5.
+   */
+  static void put(ByteBuffer buffer, float x, float y, float z, Face face, float u, float v) {
+    buffer.put(unsignedByte(x + 0.5f));
+    buffer.put(unsignedByte(y + 0.5f));
+    buffer.put(unsignedByte(z + 0.5f));
+    buffer.put((byte) face.ordinal());
+    buffer.put(unsignedByte(u));
+    buffer.put(unsignedByte(v));
+    buffer.put((byte) 0);
+    buffer.put((byte) 0);
+  }
+
+  private static byte unsignedByte(float f) {
+    int i = Math.round(f);
+    if (i < 0 || i > MAX_UNSIGNED_BYTE || i != f) {
+      Exceptions.failIllegalArgument("%f does not fit into an unsigned byte", f);
+    }
+    return (byte) i;
+  }
+
+  /**
+   * Moves all vertices from the buffer's position to its limit by given whole blocks, so they
+   * become relative to another origin block.
+   */
+  static void translate(ByteBuffer buffer, int dx, int dy, int dz) {
+    int[] deltas = { dx, dy, dz };
+    for (int vertex = buffer.position(); vertex < buffer.limit(); vertex += STRIDE) {
+      for (int axis = 0; axis < 3; ++axis) {
+        int index = vertex + POSITION_OFFSET + axis;
+        buffer.put(index, unsignedByte((buffer.get(index) & 0xff) + deltas[axis]));
+      }
+    }
+  }
+
+  /** Returns the chunk relative x coordinate of the vertex with given index in the buffer. */
+  static float x(ByteBuffer buffer, int vertex) {
+    return unsigned(buffer, vertex, POSITION_OFFSET) - 0.5f;
+  }
+
+  static float y(ByteBuffer buffer, int vertex) {
+    return unsigned(buffer, vertex, POSITION_OFFSET + 1) - 0.5f;
+  }
+
+  static float z(ByteBuffer buffer, int vertex) {
+    return unsigned(buffer, vertex, POSITION_OFFSET + 2) - 0.5f;
+  }
+
+  static Face face(ByteBuffer buffer, int vertex) {
+    return Face.values()[unsigned(buffer, vertex, POSITION_OFFSET + 3)];
+  }
+
+  static int u(ByteBuffer buffer, int vertex) {
+    return unsigned(buffer, vertex, TILE_COORD_OFFSET);
+  }
+
+  static int v(ByteBuffer buffer, int vertex) {
+    return unsigned(buffer, vertex, TILE_COORD_OFFSET + 1);
+  }
+
+  private static int unsigned(ByteBuffer buffer, int vertex, int offset) {
+    return buffer.get(vertex * STRIDE + offset) & 0xff;
+  }
+}
@@ -1,8 +1,5 @@
 package com.skligys.cardboardcreeper;
 
-import android.content.res.Resources;
-import android.opengl.Matrix;
-import android.os.SystemClock;
 import android.util.Log;
 
 import com.skligys.cardboardcreeper.model.Block;
@@ -10,6 +7,8 @@ import com.skligys.cardboardcreeper.model.Chunk;
 import com.skligys.cardboardcreeper.model.Point3;
 import com.skligys.cardboardcreeper.perlin.Generator;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -25,33 +24,68 @@ class World {
   private static final String TAG = "World";
 
   /**
-   * Do several physics iterations per frame to avoid falling through the floor when dt is large.
+   * Blocks per side of a chunk, one of 16, 32 or 64.  Larger chunks mean fewer draw calls and
+   * less per chunk overhead, but longer loads and coarser culling.
    */
-  private static final int PHYSICS_ITERATIONS_PER_FRAME = 5;
+  private static final int CHUNK_SIZE = 16;
+
+  /**
+   * Distance in blocks past which chunks are drawn with meshes of 2 block cubes, and past twice
+   * which with 4 block cubes.
+   */
+  private static final float LOD_DISTANCE = 32.0f;
+
+  /**
+   * How far past the current chunk to show chunks, in blocks.  Starts in the middle and is moved
+   * by a chunk at a time to hold the target frame rate, see {@link RenderDistanceGovernor}.
+   */
+  private static final int MIN_SHOWN_DISTANCE = 32;
+  private static final int INITIAL_SHOWN_DISTANCE = 48;
+  private static final int MAX_SHOWN_DISTANCE = 96;
+  private static final float TARGET_FPS = 60.0f;
+  /** Far plane distance per shown distance, far enough for corners of the farthest chunks. */
+  private static final float FAR_PLANE_PER_SHOWN_DISTANCE = 1.25f;
 
   /** Perlin 3d noise based world generator. */
   private final Generator generator;
+  /** Pre-generated chunks, used instead of the generator when present.  May be null. */
+  private final ChunkStore chunkStore;
 
-  /** Lock for synchronizing access to blocks and chunkBlocks from GL and chunk loader threads. */
+  /**
+   * Lock for synchronizing access to blocks, solidBlocks and chunkBlocks from GL, simulation and
+   * chunk loader threads.
+   */
   private final Object blocksLock = new Object();
   /**
    * All blocks in the world.  Written from chunk loader thread.  Read from chunk loader thread
-   * to create per chunk meshes and from GL thread to perform physics updates per frame. */
+   * to create per chunk meshes. */
   private final Set<Block> blocks = new HashSet<Block>();
+  /**
+   * The same blocks and those of previewed chunks, for collisionCache to copy without allocating.
+   * Written from chunk loader thread. */
+  private final BlockSet solidBlocks = new BlockSet();
+  /**
+   * Blocks around Steve, which physics probes from the simulation thread.  Told about changed
+   * blocks from chunk loader thread. */
+  private final CollisionCache collisionCache = new CollisionCache(solidBlocks, blocksLock);
   /**
    * Maps chunk coordinates to a list of blocks inside the chunk.  Written from chunk loader thread.
    * Read from chunk loader thread to create per chunk meshes and from GL thread during
    * initialization to determine initial Steve's position. */
   private final Map<Chunk, List<Block>> chunkBlocks = new HashMap<Chunk, List<Block>>();
 
+  private final Gl gl;
   /** OpenGL support for drawing grass blocks. */
-  private final SquareMesh squareMesh = new SquareMesh();
+  private final SquareMesh squareMesh;
   private final Performance performance = new Performance();
+  /** Picks the shown distance.  Only accessed from GL thread. */
+  private final RenderDistanceGovernor governor;
   private final Steve steve;
-  private final Physics physics = new Physics();
-
-  /** Pre-allocated temporary matrix. */
-  private final float[] viewProjectionMatrix = new float[16];
+  private final Simulation simulation;
+  /**
+   * Steve's eye as drawn, interpolated from simulation snapshots.  Only accessed from GL thread.
+   */
+  private final Eye eye = new Eye(0.0f, 0.0f, 0.0f);
 
   private static interface ChunkChange {}
 
@@ -63,6 +97,48 @@ class World {
     }
   }
 
+  /**
+   * Shows a cheap preview of a chunk right away and schedules a {@link ChunkRefine} to replace it
+   * with the exact chunk.
+   */
+  private static class ChunkPreview implements ChunkChange {
+    private final Chunk chunk;
+
+    ChunkPreview(Chunk chunk) {
+      this.chunk = chunk;
+    }
+  }
+
+  /** Replaces a previewed chunk with the exact one, unless it got unloaded in the meantime. */
+  private static class ChunkRefine implements ChunkChange {
+    private final Chunk chunk;
+
+    ChunkRefine(Chunk chunk) {
+      this.chunk = chunk;
+    }
+  }
+
+  /**
+   * Builds the mesh of a loaded chunk again, after it got lost with the GL context.  Previewed
+   * chunks are skipped, their pending {@link ChunkRefine} will load them.
+   */
+  private static class ChunkRemesh implements ChunkChange {
+    private final Chunk chunk;
+
+    ChunkRemesh(Chunk chunk) {
+      this.chunk = chunk;
+    }
+  }
+
+  /** Builds the level of detail a loaded or previewed chunk is to be drawn with from afar. */
+  private static class ChunkLod implements ChunkChange {
+    private final Chunk chunk;
+
+    ChunkLod(Chunk chunk) {
+      this.chunk = chunk;
+    }
+  }
+
   private static class ChunkUnload implements ChunkChange {
     private final Chunk chunk;
 
@@ -72,10 +148,34 @@ class World {
   }
 
   private final BlockingDeque<ChunkChange> chunkChanges = new LinkedBlockingDeque<ChunkChange>();
+  /**
+   * Refines queued by previews.  Taken in turns with {@link #chunkChanges}, so that previews show
+   * well ahead of exact chunks, yet a stream of them never starves refines.
+   */
+  private final BlockingDeque<ChunkRefine> chunkRefines = new LinkedBlockingDeque<ChunkRefine>();
+  /** Whether the chunk loader took a refine last.  Only accessed from chunk loader thread. */
+  private boolean refinedLast = false;
   private final Thread chunkLoader;
+  /**
+   * Blocks of chunks showing a preview and waiting to be refined.  Only accessed from chunk loader
+   * thread.
+   */
+  private final Map<Chunk, List<Block>> previewedChunks = new HashMap<Chunk, List<Block>>();
 
-  World() {
-    generator = new Generator(new Random().nextInt());
+  /**
+   * @param gl  Used for all drawing, only from the GL thread.
+   * @param chunkStoreDir  Directory with pre-generated chunks.  If it contains a chunk store,
+   *     the world is created with the store's seed and stored chunks are read instead of generated.
+   *     May be null.
+   */
+  World(Gl gl, File chunkStoreDir) {
+    this.gl = gl;
+    squareMesh = new SquareMesh(gl, LOD_DISTANCE);
+    Chunk.setSize(CHUNK_SIZE);
+    governor = new RenderDistanceGovernor(1.0f / TARGET_FPS, MIN_SHOWN_DISTANCE,
+        MAX_SHOWN_DISTANCE, CHUNK_SIZE, INITIAL_SHOWN_DISTANCE);
+    chunkStore = openChunkStore(chunkStoreDir);
+    generator = new Generator(chunkStore != null ? chunkStore.seed() : new Random().nextInt());
 
     // Start the thread for loading chunks in the background.
     chunkLoader = createChunkLoader();
@@ -88,25 +188,66 @@ class World {
     // Wait for the background thread to finish loading all of them.  The whole stack of chunks
     // around the starting position is needed to determine Steve's initial position's y coordinate.
     while (chunkChanges.size() > 0) {
-      SystemClock.sleep(100L);
+      sleep(100L);
     }
 
-    int startX = Chunk.CHUNK_SIZE / 2;
-    int startZ = Chunk.CHUNK_SIZE / 2;
+    int startX = Chunk.size() / 2;
+    int startZ = Chunk.size() / 2;
     steve = new Steve(startPosition(startX, startZ));
+    // No creepers until they can be drawn.
+    simulation = new Simulation(steve, collisionCache, null, performance);
+    simulation.start();
 
     // Schedule neighboring chunks to load in the background.
     Chunk currChunk = steve.currentChunk();
-    Set<Chunk> chunksToLoad = neighboringChunks(currChunk);
+    Set<Chunk> chunksToLoad = neighboringChunks(currChunk, governor.distance());
     chunksToLoad.removeAll(preloadedChunks);
     for (Chunk chunk : chunksToLoad) {
-      chunkChanges.add(new ChunkLoad(chunk));
+      chunkChanges.add(new ChunkPreview(chunk));
+    }
+  }
+
+  /** Sleeps like SystemClock.sleep, finishing the sleep even if interrupted. */
+  private static void sleep(long millis) {
+    long end = System.nanoTime() + millis * 1000000L;
+    boolean interrupted = false;
+    long left;
+    while ((left = end - System.nanoTime()) > 0L) {
+      try {
+        Thread.sleep(left / 1000000L, (int) (left % 1000000L));
+      } catch (InterruptedException e) {
+        interrupted = true;
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static ChunkStore openChunkStore(File dir) {
+    if (dir == null) {
+      return null;
+    }
+    try {
+      ChunkStore result = ChunkStore.open(dir);
+      if (result == null) {
+        return null;
+      }
+      if (result.chunkSize() != Chunk.size()) {
+        Log.w(TAG, "Ignoring chunk store " + dir + " with chunk size " + result.chunkSize());
+        return null;
+      }
+      Log.i(TAG, "Using chunk store " + dir + " with seed " + result.seed());
+      return result;
+    } catch (IOException e) {
+      Log.e(TAG, "Failed to open chunk store " + dir, e);
+      return null;
     }
   }
 
   private List<Chunk> preloadedChunks() {
-    // Generate a stack of chunks around the starting position (8, 8), other chunks will be loaded
-    // in the background.
+    // Generate a stack of chunks around the starting position in the middle of chunk (0, 0), other
+    // chunks will be loaded in the background.
     int minChunkY = Generator.minChunkY();
     int maxChunkY = Generator.maxChunkY();
 
@@ -125,8 +266,8 @@ class World {
   /** Given (x,z) coordinates, finds and returns the highest y so that (x,y,z) is a solid block. */
   private int highestSolidY(int x, int z) {
     int maxY = Generator.minElevation();
-    int chunkX = x / Chunk.CHUNK_SIZE;
-    int chunkZ = z / Chunk.CHUNK_SIZE;
+    int chunkX = x / Chunk.size();
+    int chunkZ = z / Chunk.size();
     synchronized(blocksLock) {
       for (Chunk chunk : chunkBlocks.keySet()) {
         if (chunk.x != chunkX || chunk.z != chunkZ) {
@@ -145,33 +286,10 @@ class World {
     return maxY;
   }
 
-  private static final int SHOWN_CHUNK_RADIUS = 3;
-
-  /** Returns chunks within some radius of center, but only those containing any blocks. */
-  private Set<Chunk> neighboringChunks(Chunk center) {
-    int minChunkY = Generator.minChunkY();
-    int maxChunkY = Generator.maxChunkY();
-
-    Set<Chunk> result = new HashSet<Chunk>();
-    for (int dx = -SHOWN_CHUNK_RADIUS; dx <= SHOWN_CHUNK_RADIUS; ++dx) {
-      for (int dy = -SHOWN_CHUNK_RADIUS; dy <= SHOWN_CHUNK_RADIUS; ++dy) {
-        for (int dz = -SHOWN_CHUNK_RADIUS; dz <= SHOWN_CHUNK_RADIUS; ++dz) {
-          if (!chunkShown(dx, dy, dz)) {
-            continue;
-          }
-          Chunk chunk = center.plus(new Chunk(dx, dy, dz));
-          if (chunk.y < minChunkY || chunk.y > maxChunkY) {
-            continue;
-          }
-          result.add(chunk);
-        }
-      }
-    }
-    return result;
-  }
-
-  private static boolean chunkShown(int dx, int dy, int dz) {
-    return dx * dx + dy * dy + dz * dz <= SHOWN_CHUNK_RADIUS * SHOWN_CHUNK_RADIUS;
+  /** Returns chunks within given distance in blocks past the center chunk. */
+  private static Set<Chunk> neighboringChunks(Chunk center, int distance) {
+    int size = Chunk.size();
+    return Chunks.neighboringChunks(center, (distance + size - 1) / size);
   }
 
   /** Asynchronous chunk loader. */
@@ -180,7 +298,7 @@ class World {
       @Override public void run() {
         while (true) {
           try {
-            ChunkChange cc = chunkChanges.takeFirst();
+            ChunkChange cc = nextChunkChange();
             if (cc instanceof ChunkLoad) {
               performance.startChunkLoad();
               Chunk chunk = ((ChunkLoad) cc).chunk;
@@ -189,10 +307,58 @@ class World {
                 squareMesh.load(chunk, shownBlocks(chunkBlocks.get(chunk)), blocks);
               }
               performance.endChunkLoad();
+            } else if (cc instanceof ChunkPreview) {
+              Chunk chunk = ((ChunkPreview) cc).chunk;
+              if (chunkStore != null && chunkStore.contains(chunk)) {
+                // Reading a stored chunk is cheap enough to skip the preview.
+                performance.startChunkLoad();
+                synchronized(blocksLock) {
+                  loadChunk(chunk);
+                  squareMesh.load(chunk, shownBlocks(chunkBlocks.get(chunk)), blocks);
+                }
+                performance.endChunkLoad();
+              } else if (previewChunk(chunk)) {
+                chunkRefines.addLast(new ChunkRefine(chunk));
+              }
+            } else if (cc instanceof ChunkRefine) {
+              Chunk chunk = ((ChunkRefine) cc).chunk;
+              List<Block> previewBlocks = previewedChunks.remove(chunk);
+              if (previewBlocks != null) {
+                performance.startChunkLoad();
+                synchronized(blocksLock) {
+                  removePreviewBlocks(chunk, previewBlocks);
+                  loadChunk(chunk);
+                  squareMesh.load(chunk, shownBlocks(chunkBlocks.get(chunk)), blocks);
+                }
+                performance.endChunkLoad();
+              }
+            } else if (cc instanceof ChunkRemesh) {
+              Chunk chunk = ((ChunkRemesh) cc).chunk;
+              synchronized(blocksLock) {
+                if (chunkBlocks.containsKey(chunk)) {
+                  squareMesh.load(chunk, shownBlocks(chunkBlocks.get(chunk)), blocks);
+                }
+              }
+            } else if (cc instanceof ChunkLod) {
+              Chunk chunk = ((ChunkLod) cc).chunk;
+              List<Block> previewBlocks = previewedChunks.get(chunk);
+              if (previewBlocks != null) {
+                squareMesh.loadLod(chunk, new HashSet<Block>(previewBlocks));
+              } else {
+                synchronized(blocksLock) {
+                  if (chunkBlocks.containsKey(chunk)) {
+                    squareMesh.loadLod(chunk, blocks);
+                  }
+                }
+              }
             } else if (cc instanceof ChunkUnload) {
               performance.startChunkUnload();
               Chunk chunk = ((ChunkUnload) cc).chunk;
+              List<Block> previewBlocks = previewedChunks.remove(chunk);
               synchronized(blocksLock) {
+                if (previewBlocks != null) {
+                  removePreviewBlocks(chunk, previewBlocks);
+                }
                 unloadChunk(chunk);
                 squareMesh.unload(chunk);
               }
@@ -201,28 +367,100 @@ class World {
               throw new RuntimeException("Unknown ChunkChange subtype: " + cc.getClass().getName());
             }
           } catch (InterruptedException e) {
-            throw new RuntimeException(e);
+            // Only interrupted by stop().
+            return;
           }
 
-          SystemClock.sleep(1);
+          sleep(1L);
         }
       }
     };
-    return new Thread(runnable);
+    Thread thread = new Thread(runnable);
+    // Do not keep the process alive if never stopped.
+    thread.setDaemon(true);
+    return thread;
+  }
+
+  /**
+   * Takes the next change to make, waiting for one if there is none.  Alternates between refines
+   * and other changes while both are pending.
+   */
+  private ChunkChange nextChunkChange() throws InterruptedException {
+    if (chunkRefines.isEmpty()) {
+      refinedLast = false;
+      return chunkChanges.takeFirst();
+    }
+    ChunkChange cc = refinedLast ? chunkChanges.pollFirst() : null;
+    refinedLast = cc == null;
+    return cc != null ? cc : chunkRefines.takeFirst();
+  }
+
+  /**
+   * Shows a preview mesh for the chunk, generated from a coarse heightmap.  Preview blocks are
+   * added to {@code solidBlocks} until refined, so that Steve does not fall through previewed
+   * terrain, but not to {@code blocks}, so exact neighbors are meshed as before.  Returns false if
+   * the chunk is already loaded or previewed and nothing was done.
+   */
+  private boolean previewChunk(Chunk chunk) {
+    if (previewedChunks.containsKey(chunk)) {
+      return false;
+    }
+    synchronized(blocksLock) {
+      if (chunkBlocks.keySet().contains(chunk)) {
+        return false;
+      }
+    }
+
+    performance.startChunkPreview();
+    List<Block> previewBlocks = generator.generateChunkPreview(chunk);
+    squareMesh.load(chunk, previewBlocks, new HashSet<Block>(previewBlocks));
+    synchronized(blocksLock) {
+      solidBlocks.addAll(previewBlocks);
+      collisionCache.chunkChanged(chunk);
+    }
+    previewedChunks.put(chunk, previewBlocks);
+    performance.endChunkPreview();
+    return true;
+  }
+
+  private void removePreviewBlocks(Chunk chunk, List<Block> previewBlocks) {
+    solidBlocks.removeAll(previewBlocks);
+    collisionCache.chunkChanged(chunk);
   }
 
-  /** Adds blocks within a single chunk generated based on 3d Perlin noise. */
+  /**
+   * Adds blocks within a single chunk read from the chunk store, or generated based on 3d Perlin
+   * noise if not stored.
+   */
   private void loadChunk(Chunk chunk) {
     if (chunkBlocks.keySet().contains(chunk)) {
       return;
     }
 
-    List<Block> blocksInChunk = generator.generateChunk(chunk);
+    List<Block> blocksInChunk = storedChunk(chunk);
+    if (blocksInChunk == null) {
+      blocksInChunk = generator.generateChunk(chunk);
+    }
     addChunkBlocks(chunk, blocksInChunk);
   }
 
+  /** Returns blocks of the chunk if in the chunk store, otherwise null. */
+  private List<Block> storedChunk(Chunk chunk) {
+    if (chunkStore == null) {
+      return null;
+    }
+    try {
+      return chunkStore.read(chunk);
+    } catch (IOException e) {
+      Log.e(TAG, "Failed to read " + chunk + " from chunk store", e);
+      return null;
+    }
+  }
+
   private void addChunkBlocks(Chunk chunk, List<Block> blocksInChunk) {
     blocks.addAll(blocksInChunk);
+    solidBlocks.addAll(blocksInChunk);
+    collisionCache.chunkChanged(chunk);
     chunkBlocks.put(chunk, blocksInChunk);
   }
 
@@ -233,85 +471,92 @@ class World {
     }
     chunkBlocks.remove(chunk);
     blocks.removeAll(blocksInChunk);
+    solidBlocks.removeAll(blocksInChunk);
+    collisionCache.chunkChanged(chunk);
   }
 
-  private List<Block> shownBlocks(List<Block> blocks) {
-    List<Block> result = new ArrayList<Block>();
-    if (blocks == null) {
-      return result;
-    }
+  private List<Block> shownBlocks(List<Block> blocksInChunk) {
+    return MeshBuilder.shownBlocks(blocksInChunk, blocks);
+  }
 
-    for (Block block : blocks) {
-      if (exposed(block)) {
-        result.add(block);
-      }
+  /** Sets up drawing in a new GL context, with the block texture atlas loaded into it. */
+  void surfaceCreated(int atlasTexture) {
+    // Chunk meshes uploaded into a previous GL context are gone, rebuild them before loading more.
+    for (Chunk chunk : squareMesh.surfaceCreated(atlasTexture)) {
+      chunkChanges.addFirst(new ChunkRemesh(chunk));
     }
-    return result;
   }
 
   /**
-   * Checks all 6 faces of the given block and returns true if at least one face is not covered
-   * by another block in {@code blocks}.
+   * Draws all views, each into its viewport, after a single culling pass for all of them.  Returns
+   * performance stats to log every few seconds, null in between.
    */
-  private boolean exposed(Block block) {
-    return !blocks.contains(new Block(block.x - 1, block.y, block.z)) ||
-        !blocks.contains(new Block(block.x + 1, block.y, block.z)) ||
-        !blocks.contains(new Block(block.x, block.y - 1, block.z)) ||
-        !blocks.contains(new Block(block.x, block.y + 1, block.z)) ||
-        !blocks.contains(new Block(block.x, block.y, block.z - 1)) ||
-        !blocks.contains(new Block(block.x, block.y, block.z + 1));
-  }
-
-  void surfaceCreated(Resources resources) {
-    squareMesh.surfaceCreated(resources);
-  }
-
-  void draw(float[] projectionMatrix) {
+  String draw(StereoViews views) {
     // This has to be first to have up to date startFrame timestamp for FPS computation.
-    float dt = Math.min(performance.startFrame(), 0.2f);
-
-    performance.startPhysics();
-    Point3 eyePosition = null;
-    synchronized(blocksLock) {
-      // Do several physics iterations per frame to avoid falling through the floor when dt is large.
-      for (int i = 0; i < PHYSICS_ITERATIONS_PER_FRAME; ++i) {
-        // Physics needs all blocks in the world to compute collisions.
-        eyePosition = physics.updateEyePosition(steve, dt / PHYSICS_ITERATIONS_PER_FRAME, blocks);
-      }
-    }
-    performance.endPhysics();
+    float frameSeconds = performance.startFrame();
+    long workStart = System.nanoTime();
+    simulation.interpolate(workStart, eye);
+    Point3 eyePosition = eye.position();
 
     Chunk beforeChunk = steve.currentChunk();
     Chunk afterChunk = new Chunk(eyePosition);
+    int distance = governor.distance();
     if (!afterChunk.equals(beforeChunk)) {
-      queueChunkLoads(beforeChunk, afterChunk);
+      queueChunkLoads(beforeChunk, distance, afterChunk, distance);
       steve.setCurrentChunk(afterChunk);
     }
 
     performance.startRendering();
-    Matrix.multiplyMM(viewProjectionMatrix, 0, projectionMatrix, 0, steve.viewMatrix(), 0);
-    squareMesh.draw(viewProjectionMatrix);
+    views.setFar(distance * FAR_PLANE_PER_SHOWN_DISTANCE);
+    views.setViewMatrix(eye.viewMatrix());
+    squareMesh.cull(views.cullViewProjectionMatrix(), eyePosition, views.eyeOffset());
+    Chunk lodChunk;
+    while ((lodChunk = squareMesh.pollLodRequest()) != null) {
+      chunkChanges.addLast(new ChunkLod(lodChunk));
+    }
+    for (int view = 0; view < views.eyeCount(); ++view) {
+      gl.viewport(views.viewportX(view), 0, views.viewportWidth(), views.viewportHeight());
+      squareMesh.draw(views.viewProjectionMatrix(view));
+    }
     performance.endRendering();
+    performance.addDraws(squareMesh.meshesDrawn(), squareMesh.meshesCulled(),
+        squareMesh.meshesOccluded(), squareMesh.drawCalls(), squareMesh.quadsDrawn());
+
+    // Work done by the CPU this frame, waiting for vsync happens after it.
+    float workSeconds = (System.nanoTime() - workStart) * 1e-9f;
+    if (governor.addFrame(frameSeconds, workSeconds,
+        chunkChanges.size() + chunkRefines.size())) {
+      queueChunkLoads(afterChunk, distance, afterChunk, governor.distance());
+    }
 
+    String status = null;
     if (performance.hasStats()) {
-      String status;
       synchronized(blocksLock) {
         status = String.format(">>>>> %f FPS (%f-%f), " +
                 "%s\n" +
-                "%d / %d chunks, %d blocks, " +
-                "physics: %dms, render: %dms, " +
+                "%d / %d chunks, %d blocks, shown distance: %d, " +
+                "physics: %dx%dus, render: %dms, " +
+                "meshes: %d drawn, %d culled, %d occluded, %d draw calls, %d quads per frame, " +
+                "chunk preview: %dx%dms, " +
                 "chunk load: %dx%dms, " +
-                "chunk unload: %dx%dms",
+                "chunk unload: %dx%dms\n" +
+                "mesh buffers: %d uploaded, staging: %s",
             performance.fps(), performance.minFps(), performance.maxFps(),
             formatFpsPercentages(performance.fpsPercentages()),
             squareMesh.chunksLoaded(), chunkBlocks.keySet().size(), blocks.size(),
-            performance.physicsSpent(), performance.renderSpent(),
+            governor.distance(),
+            performance.physicsTickCount(), performance.physicsTickSpent(),
+            performance.renderSpent(),
+            performance.meshesDrawn(), performance.meshesCulled(), performance.meshesOccluded(),
+            performance.drawCalls(), performance.quadsDrawn(),
+            performance.chunkPreviewCount(), performance.chunkPreviewSpent(),
             performance.chunkLoadCount(), performance.chunkLoadSpent(),
-            performance.chunkUnloadCount(), performance.chunkUnloadSpent());
+            performance.chunkUnloadCount(), performance.chunkUnloadSpent(),
+            squareMesh.vertexBuffersUploaded(), squareMesh.bufferPoolStats());
       }
-      Log.i(TAG, status);
     }
     performance.endFrame();
+    return status;
   }
 
   private static String formatFpsPercentages(float[] percentages) {
@@ -332,31 +577,42 @@ class World {
     return sb.toString();
   }
 
-  private void queueChunkLoads(Chunk beforeChunk, Chunk afterChunk) {
-    Set<Chunk> beforeShownChunks = neighboringChunks(beforeChunk);
-    Set<Chunk> afterShownChunks = neighboringChunks(afterChunk);
+  /** Queues changes for moving to another chunk, or changing the shown distance, or both. */
+  private void queueChunkLoads(Chunk beforeChunk, int beforeDistance, Chunk afterChunk,
+      int afterDistance) {
+    Set<Chunk> beforeShownChunks = neighboringChunks(beforeChunk, beforeDistance);
+    Set<Chunk> afterShownChunks = neighboringChunks(afterChunk, afterDistance);
 
     // chunksToLoad = afterShownChunks \ beforeShownChunks
     // chunksToUnload = beforeShownChunks \ afterShownChunks
-    for (Chunk chunk : setDiff(afterShownChunks, beforeShownChunks)) {
-      chunkChanges.add(new ChunkLoad(chunk));
+    for (Chunk chunk : Sets.difference(afterShownChunks, beforeShownChunks)) {
+      chunkChanges.add(new ChunkPreview(chunk));
     }
-    for (Chunk chunk : setDiff(beforeShownChunks, afterShownChunks)) {
+    for (Chunk chunk : Sets.difference(beforeShownChunks, afterShownChunks)) {
       chunkChanges.add(new ChunkUnload(chunk));
     }
   }
 
-  private static <T> Set<T> setDiff(Set<T> s1, Set<T> s2) {
-    Set<T> result = new HashSet<T>(s1);
-    result.removeAll(s2);
-    return result;
-  }
-
   void drag(float dx, float dy) {
-    steve.rotate(dx, dy);
+    simulation.drag(dx, dy);
   }
 
   void walk(boolean start) {
-    steve.walk(start);
+    simulation.walk(start);
+  }
+
+  /** Stops the simulation while the app is in the background. */
+  void pause() {
+    simulation.pause();
+  }
+
+  void resume() {
+    simulation.resume();
+  }
+
+  /** Stops the simulation and chunk loader threads for good. */
+  void stop() {
+    simulation.stop();
+    chunkLoader.interrupt();
   }
 }
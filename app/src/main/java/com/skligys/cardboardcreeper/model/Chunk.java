@@ -1,15 +1,46 @@
 package com.skligys.cardboardcreeper.model;
 
 public class Chunk extends Point3Int {
-  /** Blocks per side of a chunk. */
-  public static final int CHUNK_SIZE = 16;
+  /** Blocks per side of a chunk unless configured otherwise. */
+  public static final int DEFAULT_SIZE = 16;
+  /** Largest supported chunk size, chunk-relative vertex coordinates have to fit in a byte. */
+  public static final int MAX_SIZE = 64;
+
+  private static volatile int size = DEFAULT_SIZE;
+  /** Set once the first chunk is created, the size may not change after that. */
+  private static volatile boolean created = false;
+
+  /** Returns blocks per side of a chunk. */
+  public static int size() {
+    return size;
+  }
+
+  /**
+   * Sets blocks per side of a chunk, one of 16, 32 or 64.  Has to be called before any chunks are
+   * created, since chunk coordinates and everything derived from them depend on it.  Setting the
+   * same size again later is allowed, changing it throws IllegalStateException.
+   */
+  public static void setSize(int size) {
+    if (size != 16 && size != 32 && size != MAX_SIZE) {
+      throw new IllegalArgumentException("Unsupported chunk size: " + size);
+    }
+    if (created && size != Chunk.size) {
+      throw new IllegalStateException(
+          "Chunk size changed to " + size + " after creating chunks of size " + Chunk.size);
+    }
+    Chunk.size = size;
+  }
 
   public Chunk(int x, int y, int z) {
     super(x, y, z);
+    // Reading first avoids a volatile write for every chunk.
+    if (!created) {
+      created = true;
+    }
   }
 
   public Chunk(Block block) {
-    this(block.x / CHUNK_SIZE, block.y / CHUNK_SIZE, block.z / CHUNK_SIZE);
+    this(block.x / size, block.y / size, block.z / size);
   }
 
   public Chunk(Point3 position) {
@@ -16,6 +16,10 @@ public class Generator {
   private static final int MIN_FOREST_HILLS_Y = 46;
   private static final int MAX_FOREST_HILLS_Y = 100;
   private static final int SEA_LEVEL = 63;
+  /** Sampling rate of the 3d noise used for exact chunk generation. */
+  private static final int SAMPLING_RATE = 4;
+  /** Sampling rate of the 2d heightmap used for chunk previews. */
+  private static final int PREVIEW_SAMPLING_RATE = 8;
 
   private final int seed;
 
@@ -28,29 +32,38 @@ public class Generator {
   }
 
   public static int minChunkY() {
-    return MIN_FOREST_HILLS_Y / Chunk.CHUNK_SIZE;
+    return MIN_FOREST_HILLS_Y / Chunk.size();
   }
 
   public static int maxChunkY() {
-    return (MAX_FOREST_HILLS_Y + Chunk.CHUNK_SIZE - 1) / Chunk.CHUNK_SIZE;
+    int size = Chunk.size();
+    return (MAX_FOREST_HILLS_Y + size - 1) / size;
   }
 
   /** Generates blocks for a single chunk. */
   public List<Block> generateChunk(Chunk chunk) {
-    int xOffset = chunk.x * Chunk.CHUNK_SIZE;
-    int yOffset = chunk.y * Chunk.CHUNK_SIZE;
-    int zOffset = chunk.z * Chunk.CHUNK_SIZE;
-    float[][][] noise = noise(Chunk.CHUNK_SIZE, Chunk.CHUNK_SIZE, Chunk.CHUNK_SIZE, 4,
-        xOffset, yOffset, zOffset);
+    return generateChunk(chunk, SAMPLING_RATE);
+  }
+
+  /**
+   * Generates blocks for a single chunk, sampling 3d noise every {@code samplingRate} blocks and
+   * interpolating in between.  The sampling rate has to divide the chunk size.
+   */
+  public List<Block> generateChunk(Chunk chunk, int samplingRate) {
+    int size = Chunk.size();
+    int xOffset = chunk.x * size;
+    int yOffset = chunk.y * size;
+    int zOffset = chunk.z * size;
+    float[][][] noise = noise(size, size, size, samplingRate, xOffset, yOffset, zOffset);
 
     float minElevation = MIN_FOREST_HILLS_Y;
     float maxElevation = MAX_FOREST_HILLS_Y;
     float height = 0.5f * (maxElevation - minElevation);
 
     List<Block> result = new ArrayList<Block>();
-    for (int x = 0; x < Chunk.CHUNK_SIZE; ++x) {
-      for (int y = 0; y < Chunk.CHUNK_SIZE; ++y) {
-        for (int z = 0; z < Chunk.CHUNK_SIZE; ++z) {
+    for (int x = 0; x < size; ++x) {
+      for (int y = 0; y < size; ++y) {
+        for (int z = 0; z < size; ++z) {
           float noiseValue = noise[x][y][z] - (y + yOffset - minElevation - height) / height;
           if (noiseValue >= 0.0f) {
             result.add(new Block(x + xOffset, y + yOffset, z + zOffset));
@@ -61,6 +74,84 @@ public class Generator {
     return result;
   }
 
+  /**
+   * Generates a cheap approximation of the blocks for a single chunk, to be shown until
+   * {@link #generateChunk} is done with it.  Treats the terrain as a 2d heightmap sampled at low
+   * resolution at mid elevation and only fills in each column's surface and the cliffs facing its
+   * lower neighbors, so chunks below the surface come out empty.
+   */
+  public List<Block> generateChunkPreview(Chunk chunk) {
+    int size = Chunk.size();
+    int xOffset = chunk.x * size;
+    int yOffset = chunk.y * size;
+    int zOffset = chunk.z * size;
+    // Include a 1 block border around the chunk to know the heights of neighboring columns.
+    int[][] heights =
+        heightmap(size + 2, size + 2, PREVIEW_SAMPLING_RATE, xOffset - 1, zOffset - 1);
+
+    List<Block> result = new ArrayList<Block>();
+    for (int x = 1; x <= size; ++x) {
+      for (int z = 1; z <= size; ++z) {
+        int top = heights[x][z];
+        int bottom = Math.min(
+            Math.min(heights[x - 1][z], heights[x + 1][z]),
+            Math.min(heights[x][z - 1], heights[x][z + 1]));
+        int minY = Math.max(Math.min(bottom, top), yOffset);
+        int maxY = Math.min(top, yOffset + size - 1);
+        for (int y = minY; y <= maxY; ++y) {
+          result.add(new Block(x - 1 + xOffset, y, z - 1 + zOffset));
+        }
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Generates a heightmap with given size and offset, by sampling noise at mid elevation and
+   * bilinearly interpolating between sampling points.
+   */
+  private int[][] heightmap(int xSize, int zSize, int samplingRate, int xOffset, int zOffset) {
+    if (samplingRate <= 0) {
+      throw new IllegalArgumentException();
+    }
+
+    float minElevation = MIN_FOREST_HILLS_Y;
+    float maxElevation = MAX_FOREST_HILLS_Y;
+    float height = 0.5f * (maxElevation - minElevation);
+    float midElevation = minElevation + height;
+
+    Module noiseGenerator = createGenerator(seed);
+    // One more sampling point past the last one covering the heightmap, to interpolate towards.
+    int xSamples = (xSize - 1) / samplingRate + 2;
+    int zSamples = (zSize - 1) / samplingRate + 2;
+    float[][] samples = new float[xSamples][zSamples];
+    for (int i = 0; i < xSamples; ++i) {
+      for (int k = 0; k < zSamples; ++k) {
+        samples[i][k] = (float) noiseGenerator.GetValue(i * samplingRate + xOffset, midElevation,
+            k * samplingRate + zOffset);
+      }
+    }
+
+    // The surface is where noise equals (y - midElevation) / height, assuming noise does not
+    // depend on y.
+    int[][] result = new int[xSize][zSize];
+    for (int x = 0; x < xSize; ++x) {
+      int i = x / samplingRate;
+      int sx0 = i * samplingRate;
+      int sx1 = sx0 + samplingRate;
+      for (int z = 0; z < zSize; ++z) {
+        int k = z / samplingRate;
+        int sz0 = k * samplingRate;
+        int sz1 = sz0 + samplingRate;
+        float q0 = lerp(x, sx0, sx1, samples[i][k], samples[i + 1][k]);
+        float q1 = lerp(x, sx0, sx1, samples[i][k + 1], samples[i + 1][k + 1]);
+        float noiseValue = lerp(z, sz0, sz1, q0, q1);
+        result[x][z] = (int) Math.floor(midElevation + height * noiseValue);
+      }
+    }
+    return result;
+  }
+
   /** Generates 3d noise for a single chunk with given size and offset. */
   private float[][][] noise(int xSize, int ySize, int zSize, int samplingRate,
       int xOffset, int yOffset, int zOffset) {
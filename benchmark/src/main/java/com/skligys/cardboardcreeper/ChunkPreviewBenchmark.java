@@ -0,0 +1,60 @@
+package com.skligys.cardboardcreeper;
+
+import com.skligys.cardboardcreeper.model.Block;
+import com.skligys.cardboardcreeper.model.Chunk;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time until the column of chunks at the origin first shows, generated and meshed exactly or as a
+ * preview, the way the chunk loader does it.  Neighboring columns are loaded.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class ChunkPreviewBenchmark {
+  private Terrain terrain;
+  private final List<Chunk> column = Terrain.column(0, 0);
+  private final VertexBuilder builder = new VertexBuilder();
+
+  @Setup
+  public void setUp() {
+    terrain = new Terrain(1);
+  }
+
+  @Benchmark
+  public void exact(Blackhole blackhole) {
+    for (Chunk chunk : column) {
+      List<Block> blocksInChunk = terrain.generator.generateChunk(chunk);
+      List<Block> shownBlocks = MeshBuilder.shownBlocks(blocksInChunk, terrain.blocks);
+      GreedyMeshBuilder.build(chunk, shownBlocks, terrain.blocks, builder);
+      blackhole.consume(builder.vertexCount());
+    }
+  }
+
+  @Benchmark
+  public void preview(Blackhole blackhole) {
+    for (Chunk chunk : column) {
+      List<Block> previewBlocks = terrain.generator.generateChunkPreview(chunk);
+      GreedyMeshBuilder.build(chunk, previewBlocks, new HashSet<Block>(previewBlocks), builder);
+      blackhole.consume(builder.vertexCount());
+    }
+  }
+}
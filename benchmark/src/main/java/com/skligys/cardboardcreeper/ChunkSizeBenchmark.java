@@ -0,0 +1,135 @@
+package com.skligys.cardboardcreeper;
+
+import com.skligys.cardboardcreeper.model.Block;
+import com.skligys.cardboardcreeper.model.Chunk;
+import com.skligys.cardboardcreeper.perlin.Generator;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loads the same square area of the world, all the way up, with each supported chunk size:
+ * generation plus meshing, and meshing alone.  Setup prints how many meshes and draw calls it
+ * takes to show the area from above its center, with faces pointing away culled as
+ * {@link SquareMesh} does.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class ChunkSizeBenchmark {
+  /** Side of the area in blocks, a multiple of all chunk sizes. */
+  private static final int AREA_SIZE = Chunk.MAX_SIZE;
+
+  @Param({"16", "32", "64"})
+  public int chunkSize;
+
+  private Generator generator;
+  private final List<Chunk> chunks = new ArrayList<Chunk>();
+  private final Map<Chunk, List<Block>> chunkBlocks = new HashMap<Chunk, List<Block>>();
+  private final Set<Block> blocks = new HashSet<Block>();
+  private final VertexBuilder builder = new VertexBuilder();
+
+  @Setup
+  public void setUp() {
+    Chunk.setSize(chunkSize);
+    generator = new Generator(Terrain.SEED);
+    int columns = AREA_SIZE / chunkSize;
+    for (int x = 0; x < columns; ++x) {
+      for (int z = 0; z < columns; ++z) {
+        chunks.addAll(Terrain.column(x, z));
+      }
+    }
+    for (Chunk chunk : chunks) {
+      List<Block> blocksInChunk = generator.generateChunk(chunk);
+      chunkBlocks.put(chunk, blocksInChunk);
+      blocks.addAll(blocksInChunk);
+    }
+    printDrawCalls();
+  }
+
+  private void printDrawCalls() {
+    float eyeX = AREA_SIZE / 2;
+    float eyeZ = AREA_SIZE / 2;
+    float eyeY = Generator.minElevation();
+    for (Block block : blocks) {
+      if (block.x == (int) eyeX && block.z == (int) eyeZ) {
+        // Standing on the highest block.
+        eyeY = Math.max(eyeY, block.y + 2.0f);
+      }
+    }
+
+    int meshCount = 0;
+    int drawCallCount = 0;
+    int quadCount = 0;
+    int[] ranges = new int[2 * FaceRanges.MAX_RANGES];
+    for (Chunk chunk : chunks) {
+      GreedyMeshBuilder.build(chunk, MeshBuilder.shownBlocks(chunkBlocks.get(chunk), blocks),
+          blocks, builder);
+      int chunkQuadCount = builder.quadCount();
+      if (chunkQuadCount == 0) {
+        continue;
+      }
+      quadCount += chunkQuadCount;
+      int visibleFaces = FaceRanges.visibleFaces(eyeX, eyeY, eyeZ,
+          chunk.x * chunkSize, chunk.y * chunkSize, chunk.z * chunkSize, chunkSize);
+      // Parts of meshes too large for the shared quad indices, like SquareMesh splits them.
+      for (int firstQuad = 0; firstQuad < chunkQuadCount; firstQuad += QuadIndices.MAX_QUADS) {
+        int partQuadCount = Math.min(chunkQuadCount - firstQuad, QuadIndices.MAX_QUADS);
+        int[] faceQuadStarts =
+            FaceRanges.partFaceQuadStarts(builder.faceQuadStarts(), firstQuad, partQuadCount);
+        ++meshCount;
+        drawCallCount += FaceRanges.visibleRanges(visibleFaces, faceQuadStarts, ranges);
+      }
+    }
+    System.out.printf("%nChunk size %d: %d chunks, %d meshes, %d draw calls, %d quads%n",
+        chunkSize, chunks.size(), meshCount, drawCallCount, quadCount);
+  }
+
+  @Benchmark
+  public void load(Blackhole blackhole) {
+    // Generate first, meshes need neighboring chunks' blocks.
+    Map<Chunk, List<Block>> loadedChunkBlocks = new HashMap<Chunk, List<Block>>();
+    Set<Block> loadedBlocks = new HashSet<Block>();
+    for (Chunk chunk : chunks) {
+      List<Block> blocksInChunk = generator.generateChunk(chunk);
+      loadedChunkBlocks.put(chunk, blocksInChunk);
+      loadedBlocks.addAll(blocksInChunk);
+    }
+    for (Chunk chunk : chunks) {
+      GreedyMeshBuilder.build(chunk,
+          MeshBuilder.shownBlocks(loadedChunkBlocks.get(chunk), loadedBlocks), loadedBlocks,
+          builder);
+      blackhole.consume(builder.vertexCount());
+    }
+  }
+
+  @Benchmark
+  public void mesh(Blackhole blackhole) {
+    for (Chunk chunk : chunks) {
+      GreedyMeshBuilder.build(chunk, MeshBuilder.shownBlocks(chunkBlocks.get(chunk), blocks),
+          blocks, builder);
+      blackhole.consume(builder.vertexCount());
+    }
+  }
+}
@@ -0,0 +1,41 @@
+package com.skligys.cardboardcreeper;
+
+import com.skligys.cardboardcreeper.model.Chunk;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/** Finding chunks to load and unload when Steve crosses a chunk border, per shown radius. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class ChunksBenchmark {
+  @Param({"3", "5", "8"})
+  public int radius;
+
+  private final Chunk beforeChunk = new Chunk(0, 4, 0);
+  private final Chunk afterChunk = new Chunk(1, 4, 0);
+
+  @Benchmark
+  public void borderCrossing(Blackhole blackhole) {
+    Set<Chunk> beforeShownChunks = Chunks.neighboringChunks(beforeChunk, radius);
+    Set<Chunk> afterShownChunks = Chunks.neighboringChunks(afterChunk, radius);
+    blackhole.consume(Sets.difference(afterShownChunks, beforeShownChunks));
+    blackhole.consume(Sets.difference(beforeShownChunks, afterShownChunks));
+  }
+}
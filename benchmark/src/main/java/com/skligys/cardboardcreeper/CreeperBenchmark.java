@@ -0,0 +1,89 @@
+package com.skligys.cardboardcreeper;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A tick of the creepers, per creeper and thread count.  Creepers start on a grid around Steve
+ * over hilly terrain, those close to him chase him and crowd around him, the rest wander.  The
+ * creepers counter gives creepers updated per millisecond.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class CreeperBenchmark {
+  private static final float DT = Simulation.TICK_SECONDS;
+  /** Blocks between neighboring creepers on the starting grid. */
+  private static final float SPACING = 1.5f;
+
+  /** Counts creepers updated, reported per time unit. */
+  @State(Scope.Thread)
+  @AuxCounters
+  public static class Counters {
+    public long creepers;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+      creepers = 0L;
+    }
+  }
+
+  @Param({"100", "500", "1000"})
+  public int count;
+
+  @Param({"1", "4"})
+  public int threads;
+
+  private Terrain terrain;
+  private Creepers creepers;
+  private float steveY;
+
+  @Setup
+  public void setUpTerrain() {
+    // Wide enough that creepers rarely wander off within an iteration.
+    terrain = new Terrain(3);
+    steveY = terrain.surfaceY(0, 0) + 0.5f;
+  }
+
+  /** Starts over each iteration, before creepers spread out or all gather around Steve. */
+  @Setup(Level.Iteration)
+  public void setUpCreepers() {
+    creepers = new Creepers(terrain.solidBlocks, new Object(), count, threads);
+    int side = (int) Math.ceil(Math.sqrt(count));
+    for (int i = 0; i < count; ++i) {
+      float x = (i % side - side / 2) * SPACING;
+      float z = (i / side - side / 2) * SPACING;
+      int surfaceY = terrain.surfaceY(Math.round(x), Math.round(z));
+      creepers.add(x, surfaceY + 0.5f, z, i + 1);
+    }
+  }
+
+  @TearDown(Level.Iteration)
+  public void tearDownCreepers() {
+    creepers.shutdown();
+  }
+
+  @Benchmark
+  public float tick(Counters counters) {
+    creepers.tick(DT, 0.0f, steveY, 0.0f);
+    counters.creepers += creepers.count();
+    return creepers.y(0);
+  }
+}
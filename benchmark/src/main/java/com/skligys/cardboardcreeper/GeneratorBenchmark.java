@@ -0,0 +1,48 @@
+package com.skligys.cardboardcreeper;
+
+import com.skligys.cardboardcreeper.model.Chunk;
+import com.skligys.cardboardcreeper.perlin.Generator;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/** Generation of a whole column of chunks, per noise sampling rate. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class GeneratorBenchmark {
+  @Param({"1", "2", "4", "8", "16"})
+  public int samplingRate;
+
+  private Generator generator;
+  private List<Chunk> column;
+
+  @Setup
+  public void setUp() {
+    generator = new Generator(Terrain.SEED);
+    column = Terrain.column(0, 0);
+  }
+
+  @Benchmark
+  public void generateColumn(Blackhole blackhole) {
+    for (Chunk chunk : column) {
+      blackhole.consume(generator.generateChunk(chunk, samplingRate));
+    }
+  }
+}
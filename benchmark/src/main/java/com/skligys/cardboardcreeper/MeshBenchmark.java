@@ -0,0 +1,72 @@
+package com.skligys.cardboardcreeper;
+
+import com.skligys.cardboardcreeper.model.Block;
+import com.skligys.cardboardcreeper.model.Chunk;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Exposed block filtering and mesh building for the column of chunks at the origin, with all
+ * neighboring columns loaded, as the chunk loader does it.  Run with {@code -prof gc} to see
+ * garbage per mesh.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class MeshBenchmark {
+  private Terrain terrain;
+  private final List<Chunk> column = Terrain.column(0, 0);
+  private final List<List<Block>> chunkBlocks = new ArrayList<List<Block>>();
+  private final List<List<Block>> shownBlocks = new ArrayList<List<Block>>();
+  private final VertexBuilder builder = new VertexBuilder();
+
+  @Setup
+  public void setUp() {
+    terrain = new Terrain(1);
+    for (Chunk chunk : column) {
+      List<Block> blocksInChunk = terrain.chunkBlocks.get(chunk);
+      chunkBlocks.add(blocksInChunk);
+      shownBlocks.add(MeshBuilder.shownBlocks(blocksInChunk, terrain.blocks));
+    }
+  }
+
+  @Benchmark
+  public void shownBlocks(Blackhole blackhole) {
+    for (List<Block> blocks : chunkBlocks) {
+      blackhole.consume(MeshBuilder.shownBlocks(blocks, terrain.blocks));
+    }
+  }
+
+  @Benchmark
+  public void build(Blackhole blackhole) {
+    for (int i = 0; i < column.size(); ++i) {
+      MeshBuilder.build(column.get(i), shownBlocks.get(i), terrain.blocks, builder);
+      blackhole.consume(builder.vertexCount());
+    }
+  }
+
+  @Benchmark
+  public void buildGreedy(Blackhole blackhole) {
+    for (int i = 0; i < column.size(); ++i) {
+      GreedyMeshBuilder.build(column.get(i), shownBlocks.get(i), terrain.blocks, builder);
+      blackhole.consume(builder.vertexCount());
+    }
+  }
+}
@@ -0,0 +1,73 @@
+package com.skligys.cardboardcreeper;
+
+import com.skligys.cardboardcreeper.model.Block;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A physics tick of the simulation.  Steve keeps walking in a small circle over hilly terrain, so
+ * steps include falling, collisions and auto-jumps.  Collisions make the circle drift, he is put
+ * back at the start before walking off the terrain.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class PhysicsBenchmark {
+  private static final float DT = Simulation.TICK_SECONDS;
+  /** Turns Steve 1 degree per step. */
+  private static final float TURN = 5.0f;
+  /** Blocks from the start along x or z, well within the terrain. */
+  private static final float MAX_WANDER = 12.0f;
+
+  private Terrain terrain;
+  private CollisionCache cache;
+  private final Physics physics = new Physics();
+  private Steve steve;
+  // Steve's eye at the start.
+  private float startX;
+  private float startY;
+  private float startZ;
+
+  @Setup
+  public void setUpTerrain() {
+    terrain = new Terrain(1);
+    cache = new CollisionCache(terrain.solidBlocks, new Object());
+  }
+
+  @Setup(Level.Iteration)
+  public void setUpSteve() {
+    Block start = terrain.highestBlock(8, 8);
+    steve = new Steve(start);
+    steve.walk(true);
+    startX = steve.positionX();
+    startY = steve.positionY();
+    startZ = steve.positionZ();
+  }
+
+  @Benchmark
+  public float step() {
+    steve.rotate(TURN, 0.0f);
+    physics.updateEyePosition(steve, DT, cache);
+    if (Math.abs(steve.positionX() - startX) > MAX_WANDER ||
+        Math.abs(steve.positionZ() - startZ) > MAX_WANDER) {
+      steve.setPosition(startX, startY, startZ);
+      steve.setVerticalSpeed(0.0f);
+    }
+    return steve.positionY();
+  }
+}
@@ -0,0 +1,95 @@
+package com.skligys.cardboardcreeper;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Whole frames of {@link World#draw}, eye interpolation, culling and GL submission, against a
+ * {@link RecordingGl}.  Steve stands at the start turning around, after all chunks around him
+ * got loaded.  Frames here are fast, so the shown distance has grown to its largest by then.
+ * Each iteration prints what a frame submitted on average.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class RenderBenchmark {
+  /** Turns Steve 1 degree per frame, the simulation applies them at its next tick. */
+  private static final float TURN = 5.0f;
+  /**
+   * Chunks are considered loaded once frames upload nothing for this long, longer than the
+   * governor takes to grow the shown distance by a step.
+   */
+  private static final long SETTLE_MILLIS = 3000L;
+  /** Recording GL does not check texture names, any will do for the atlas. */
+  private static final int ATLAS_TEXTURE = 1;
+
+  @Param({"false", "true"})
+  public boolean stereo;
+
+  private final RecordingGl gl = new RecordingGl();
+  private World world;
+  private StereoViews views;
+  private int frames = 0;
+
+  @Setup
+  public void setUp() {
+    world = new World(gl, null);
+    world.surfaceCreated(ATLAS_TEXTURE);
+    views = new StereoViews(stereo, (float) Math.toRadians(70.0f), 0.1f, 60.0f);
+    views.setSurfaceSize(1920, 1080);
+
+    long settledSince = System.currentTimeMillis();
+    while (System.currentTimeMillis() - settledSince < SETTLE_MILLIS) {
+      gl.reset();
+      world.draw(views);
+      if (gl.bufferUploads() > 0) {
+        settledSince = System.currentTimeMillis();
+      }
+    }
+    System.out.printf("%nLoaded: %d buffers, %d KB%n", gl.bufferCount(), gl.bufferBytes() / 1024);
+  }
+
+  @Setup(Level.Iteration)
+  public void resetCounts() {
+    gl.reset();
+    frames = 0;
+  }
+
+  @TearDown(Level.Iteration)
+  public void printCounts() {
+    System.out.printf("%nPer frame: %.1f draw calls, %.0f indices, %.1f state changes " +
+            "(%.1f redundant), %.1f buffer uploads, %.0f bytes submitted%n",
+        (double) gl.drawCalls() / frames, (double) gl.indicesDrawn() / frames,
+        (double) gl.stateChanges() / frames, (double) gl.redundantStateChanges() / frames,
+        (double) gl.bufferUploads() / frames, (double) gl.bytesSubmitted() / frames);
+  }
+
+  /** Stops the world's threads, so they do not pile up across parameters. */
+  @TearDown
+  public void tearDown() {
+    world.stop();
+  }
+
+  @Benchmark
+  public String frame() {
+    ++frames;
+    world.drag(TURN, 0.0f);
+    return world.draw(views);
+  }
+}
@@ -0,0 +1,70 @@
+package com.skligys.cardboardcreeper;
+
+import com.skligys.cardboardcreeper.model.Block;
+import com.skligys.cardboardcreeper.model.Chunk;
+import com.skligys.cardboardcreeper.perlin.Generator;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Deterministic terrain shared by benchmarks: full chunk columns within a square of given radius
+ * (in chunks) around the origin, generated with a fixed seed.
+ */
+class Terrain {
+  static final int SEED = 1234;
+
+  final Generator generator = new Generator(SEED);
+  final Map<Chunk, List<Block>> chunkBlocks = new HashMap<Chunk, List<Block>>();
+  final Set<Block> blocks = new HashSet<Block>();
+  final BlockSet solidBlocks = new BlockSet();
+
+  Terrain(int radius) {
+    for (int x = -radius; x <= radius; ++x) {
+      for (int z = -radius; z <= radius; ++z) {
+        for (Chunk chunk : column(x, z)) {
+          List<Block> blocksInChunk = generator.generateChunk(chunk);
+          chunkBlocks.put(chunk, blocksInChunk);
+          blocks.addAll(blocksInChunk);
+          solidBlocks.addAll(blocksInChunk);
+        }
+      }
+    }
+  }
+
+  /** Returns all chunks which may contain blocks, stacked at given chunk xz coordinates. */
+  static List<Chunk> column(int x, int z) {
+    List<Chunk> result = new ArrayList<Chunk>();
+    for (int y = Generator.minChunkY(); y <= Generator.maxChunkY(); ++y) {
+      result.add(new Chunk(x, y, z));
+    }
+    return result;
+  }
+
+  /** Finds the highest solid block with given xz coordinates and returns it. */
+  Block highestBlock(int x, int z) {
+    Block result = null;
+    for (Block block : blocks) {
+      if (block.x == x && block.z == z && (result == null || block.y > result.y)) {
+        result = block;
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Returns the y coordinate of the highest solid block with given xz coordinates, by probing
+   * {@link #solidBlocks} from the top, much faster than {@link #highestBlock}.
+   */
+  int surfaceY(int x, int z) {
+    for (int y = (Generator.maxChunkY() + 1) * Chunk.size(); ; --y) {
+      if (solidBlocks.contains(x, y, z)) {
+        return y;
+      }
+    }
+  }
+}
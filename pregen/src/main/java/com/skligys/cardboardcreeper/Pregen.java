@@ -0,0 +1,191 @@
+package com.skligys.cardboardcreeper;
+
+import com.skligys.cardboardcreeper.model.Block;
+import com.skligys.cardboardcreeper.model.Chunk;
+import com.skligys.cardboardcreeper.perlin.Generator;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pre-generates all chunks within a square around spawn into a chunk store, on all cores.
+ * Chunks already in the store are skipped, so an interrupted run can simply be restarted.  A big
+ * job can be split between processes with {@code --part k/n}: columns of chunks are ordered by
+ * distance from spawn and each part takes its own contiguous range of them.
+ *
+ * <pre>
+ * pregen --seed 42 --radius 32 --out chunks [--chunk-size 16] [--part 1/4] [--threads 8]
+ * </pre>
+ */
+public class Pregen {
+  private static final long REPORT_INTERVAL = 5 * 1000;  // 5 seconds
+
+  private final Generator generator;
+  private final ChunkStore chunkStore;
+  private final AtomicInteger generatedCount = new AtomicInteger();
+  private final AtomicInteger skippedCount = new AtomicInteger();
+  private final AtomicInteger failedCount = new AtomicInteger();
+
+  private Pregen(int seed, ChunkStore chunkStore) {
+    this.generator = new Generator(seed);
+    this.chunkStore = chunkStore;
+  }
+
+  public static void main(String[] args) throws IOException, InterruptedException {
+    int seed = 0;
+    boolean seedSet = false;
+    int radius = -1;
+    File out = null;
+    int chunkSize = Chunk.DEFAULT_SIZE;
+    int part = 1;
+    int partCount = 1;
+    int threads = Runtime.getRuntime().availableProcessors();
+    try {
+      for (int i = 0; i < args.length; i += 2) {
+        if (i + 1 >= args.length) {
+          usage("Missing value for " + args[i]);
+        }
+        String value = args[i + 1];
+        if (args[i].equals("--seed")) {
+          seed = Integer.parseInt(value);
+          seedSet = true;
+        } else if (args[i].equals("--radius")) {
+          radius = Integer.parseInt(value);
+        } else if (args[i].equals("--out")) {
+          out = new File(value);
+        } else if (args[i].equals("--chunk-size")) {
+          chunkSize = Integer.parseInt(value);
+        } else if (args[i].equals("--part")) {
+          String[] parts = value.split("/");
+          if (parts.length != 2) {
+            usage("Malformed part: " + value);
+          }
+          part = Integer.parseInt(parts[0]);
+          partCount = Integer.parseInt(parts[1]);
+        } else if (args[i].equals("--threads")) {
+          threads = Integer.parseInt(value);
+        } else {
+          usage("Unknown option: " + args[i]);
+        }
+      }
+    } catch (NumberFormatException e) {
+      usage("Malformed number: " + e.getMessage());
+    }
+    if (!seedSet || radius < 0 || out == null) {
+      usage("--seed, --radius and --out are required");
+    }
+    if (partCount <= 0 || part <= 0 || part > partCount || threads <= 0) {
+      usage("Invalid --part or --threads");
+    }
+
+    try {
+      Chunk.setSize(chunkSize);
+    } catch (IllegalArgumentException e) {
+      usage(e.getMessage());
+    }
+
+    List<Chunk> columns = columns(radius);
+    int from = (int) ((long) (part - 1) * columns.size() / partCount);
+    int to = (int) ((long) part * columns.size() / partCount);
+    Pregen pregen = new Pregen(seed, ChunkStore.create(out, seed));
+    pregen.run(columns.subList(from, to), threads);
+  }
+
+  private static void usage(String error) {
+    System.err.println(error);
+    System.err.println(
+        "Usage: pregen --seed N --radius CHUNKS --out DIR [--chunk-size 16|32|64] " +
+            "[--part K/N] [--threads N]");
+    System.exit(1);
+  }
+
+  /**
+   * Returns the bottom chunk of each column within a square of given radius around spawn,
+   * ordered by distance from spawn.
+   */
+  private static List<Chunk> columns(int radius) {
+    int minChunkY = Generator.minChunkY();
+    List<Chunk> result = new ArrayList<Chunk>();
+    for (int x = -radius; x <= radius; ++x) {
+      for (int z = -radius; z <= radius; ++z) {
+        result.add(new Chunk(x, minChunkY, z));
+      }
+    }
+    Collections.sort(result, new Comparator<Chunk>() {
+      @Override public int compare(Chunk c1, Chunk c2) {
+        int ring1 = Math.max(Math.abs(c1.x), Math.abs(c1.z));
+        int ring2 = Math.max(Math.abs(c2.x), Math.abs(c2.z));
+        if (ring1 != ring2) {
+          return ring1 < ring2 ? -1 : 1;
+        }
+        if (c1.x != c2.x) {
+          return c1.x < c2.x ? -1 : 1;
+        }
+        return c1.z < c2.z ? -1 : (c1.z == c2.z ? 0 : 1);
+      }
+    });
+    return result;
+  }
+
+  private void run(List<Chunk> columns, int threads) throws InterruptedException {
+    int chunkCount = columns.size() * (Generator.maxChunkY() - Generator.minChunkY() + 1);
+    System.out.printf("Generating %d chunks in %d columns on %d threads%n",
+        chunkCount, columns.size(), threads);
+
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    for (final Chunk column : columns) {
+      executor.execute(new Runnable() {
+        @Override public void run() {
+          generateColumn(column);
+        }
+      });
+    }
+    executor.shutdown();
+
+    long startTimestamp = System.currentTimeMillis();
+    while (!executor.awaitTermination(REPORT_INTERVAL, TimeUnit.MILLISECONDS)) {
+      report(startTimestamp, chunkCount);
+    }
+    report(startTimestamp, chunkCount);
+    if (failedCount.get() > 0) {
+      System.exit(2);
+    }
+  }
+
+  private void generateColumn(Chunk column) {
+    for (int y = Generator.minChunkY(); y <= Generator.maxChunkY(); ++y) {
+      Chunk chunk = new Chunk(column.x, y, column.z);
+      if (chunkStore.contains(chunk)) {
+        skippedCount.incrementAndGet();
+        continue;
+      }
+      List<Block> blocks = generator.generateChunk(chunk);
+      try {
+        chunkStore.write(chunk, blocks);
+        generatedCount.incrementAndGet();
+      } catch (IOException e) {
+        System.err.println("Failed to write " + chunk + ": " + e.getMessage());
+        failedCount.incrementAndGet();
+      }
+    }
+  }
+
+  private void report(long startTimestamp, int chunkCount) {
+    long spent = Math.max(System.currentTimeMillis() - startTimestamp, 1L);
+    int generated = generatedCount.get();
+    int skipped = skippedCount.get();
+    int failed = failedCount.get();
+    System.out.printf("%d / %d chunks: %d generated, %d already stored, %d failed, " +
+            "%.1f chunks/s%n",
+        generated + skipped + failed, chunkCount, generated, skipped, failed,
+        generated * 1000.0f / spent);
+  }
+}